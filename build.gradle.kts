@@ -4,6 +4,7 @@ plugins {
     id("java-library")
     id("signing")
     id("com.gradleup.nmcp") version "0.0.9"
+    id("me.champeau.jmh") version "0.7.3"
 }
 
 group = "dev.avelar"
@@ -29,6 +30,7 @@ dependencies {
 
     testImplementation(platform("org.junit:junit-bom:5.10.0"))
     testImplementation("org.junit.jupiter:junit-jupiter")
+    testRuntimeOnly("com.h2database:h2:2.2.224")
     testRuntimeOnly("org.junit.platform:junit-platform-launcher")
 }
 
@@ -40,6 +42,46 @@ tasks.withType<JavaCompile> {
     options.encoding = "UTF-8"
 }
 
+// ============================================================================
+// JMH Benchmarks
+// ============================================================================
+//
+//   ./gradlew jmh                                      run every benchmark
+//   ./gradlew jmh -Pjmh.includes=RendererBenchmark     run a subset (regex)
+//   ./gradlew jmhSaveBaseline                          store the last results as the baseline
+//   ./gradlew jmhCompare                               compare the last results with the baseline
+
+val jmhResults = layout.buildDirectory.file("results/jmh/results.csv")
+val jmhBaseline = layout.projectDirectory.file("src/jmh/baseline.csv")
+
+jmh {
+    jmhVersion.set("1.37")
+    profilers.add("gc")
+    resultFormat.set("CSV")
+    resultsFile.set(jmhResults)
+    providers.gradleProperty("jmh.includes").orNull?.let { includes.add(it) }
+}
+
+tasks.register<Copy>("jmhSaveBaseline") {
+    group = "benchmark"
+    description = "Stores the latest JMH results as the baseline used by jmhCompare."
+    from(jmhResults)
+    into(jmhBaseline.asFile.parentFile)
+    rename { jmhBaseline.asFile.name }
+}
+
+tasks.register<JavaExec>("jmhCompare") {
+    group = "benchmark"
+    description = "Compares the latest JMH results against the stored baseline."
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("dev.avelar.jambock.benchmarks.BaselineComparison")
+    args(
+        jmhResults.get().asFile.path,
+        jmhBaseline.asFile.path,
+        providers.gradleProperty("jmh.threshold").getOrElse("10")
+    )
+}
+
 // ============================================================================
 // Maven Publication Configuration
 // ============================================================================
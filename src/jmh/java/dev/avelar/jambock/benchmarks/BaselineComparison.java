@@ -0,0 +1,144 @@
+package dev.avelar.jambock.benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compares a JMH CSV result file against a stored baseline and reports regressions.
+ *
+ * <p>Usage: {@code BaselineComparison <results.csv> <baseline.csv> [thresholdPercent]}. Primary
+ * scores and the {@code gc.alloc.rate.norm} secondary metric are compared; for average-time and
+ * allocation metrics lower is better, for throughput higher is better. Exits with status 1 if any
+ * benchmark regressed by more than the threshold (default 10%).
+ */
+public final class BaselineComparison {
+
+    private BaselineComparison() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BaselineComparison <results.csv> <baseline.csv> [thresholdPercent]");
+            System.exit(2);
+        }
+        Path resultsFile = Paths.get(args[0]);
+        Path baselineFile = Paths.get(args[1]);
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+
+        if (!Files.exists(baselineFile)) {
+            System.out.println("No baseline at " + baselineFile + "; run jmhSaveBaseline to create one.");
+            return;
+        }
+
+        Map<String, Row> baseline = read(baselineFile);
+        Map<String, Row> results = read(resultsFile);
+
+        int regressions = 0;
+        System.out.println(String.format(Locale.ROOT, "%-100s %14s %14s %9s", "Benchmark", "Baseline", "Current", "Change"));
+        for (Map.Entry<String, Row> entry : results.entrySet()) {
+            Row current = entry.getValue();
+            Row base = baseline.get(entry.getKey());
+            if (base == null) {
+                System.out.println(String.format(Locale.ROOT, "%-100s %14s %14.3f %9s", entry.getKey(), "-", current.score, "new"));
+                continue;
+            }
+            double change = base.score == 0 ? 0 : (current.score - base.score) / base.score * 100.0;
+            double worsening = current.higherIsBetter() ? -change : change;
+            boolean regressed = worsening > threshold;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.println(String.format(Locale.ROOT, "%-100s %14.3f %14.3f %+8.1f%%%s",
+                    entry.getKey(), base.score, current.score, change, regressed ? "  REGRESSION" : ""));
+        }
+
+        if (regressions > 0) {
+            System.out.println(regressions + " benchmark(s) regressed by more than " + threshold + "%");
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, Row> read(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        Map<String, Row> rows = new LinkedHashMap<>();
+        if (lines.isEmpty()) {
+            return rows;
+        }
+        List<String> header = parseLine(lines.get(0));
+        int benchmarkCol = header.indexOf("Benchmark");
+        int modeCol = header.indexOf("Mode");
+        int scoreCol = header.indexOf("Score");
+        int unitCol = header.indexOf("Unit");
+
+        for (String line : lines.subList(1, lines.size())) {
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            List<String> fields = parseLine(line);
+            String benchmark = fields.get(benchmarkCol);
+            boolean secondary = benchmark.contains(":") || benchmark.contains("·");
+            if (secondary && !benchmark.contains("gc.alloc.rate.norm")) {
+                continue;
+            }
+            StringBuilder key = new StringBuilder(benchmark);
+            for (int i = 0; i < header.size(); i++) {
+                if (header.get(i).startsWith("Param: ") && i < fields.size() && !fields.get(i).isEmpty()) {
+                    key.append(' ').append(header.get(i).substring("Param: ".length())).append('=').append(fields.get(i));
+                }
+            }
+            double score = Double.parseDouble(fields.get(scoreCol).replace(',', '.'));
+            rows.put(key.toString(), new Row(fields.get(modeCol), fields.get(unitCol), secondary, score));
+        }
+        return rows;
+    }
+
+    private static List<String> parseLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                if (quoted && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = !quoted;
+                }
+            } else if (c == ',' && !quoted) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static final class Row {
+        private final String mode;
+        private final String unit;
+        private final boolean secondary;
+        private final double score;
+
+        private Row(String mode, String unit, boolean secondary, double score) {
+            this.mode = mode;
+            this.unit = unit;
+            this.secondary = secondary;
+            this.score = score;
+        }
+
+        private boolean higherIsBetter() {
+            return !secondary && "thrpt".equals(mode) && !unit.startsWith("B/");
+        }
+    }
+}
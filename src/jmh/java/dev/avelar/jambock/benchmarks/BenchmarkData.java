@@ -0,0 +1,90 @@
+package dev.avelar.jambock.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds data models for the bundled templates with a configurable number of line items.
+ */
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Returns a model for the given template name ({@code sample-report}, {@code invoice} or
+     * {@code landscape-report}, with or without extension).
+     */
+    static Map<String, Object> forTemplate(String templateName, int rows) {
+        if (templateName.startsWith("invoice")) {
+            return invoice(rows);
+        }
+        return sampleReport(rows);
+    }
+
+    /** Model for {@code sample-report.ftl}, {@code sample-report.html} and {@code landscape-report.ftl}. */
+    static Map<String, Object> sampleReport(int rows) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("title", "Benchmark Report");
+        data.put("subtitle", rows + " items");
+        data.put("generatedDate", "January 01, 2026");
+        data.put("author", "Benchmark");
+        data.put("description", "Synthetic report used by the JMH benchmarks");
+        data.put("pageOrientation", "portrait");
+        data.put("pageSize", "A4");
+
+        List<Map<String, Object>> items = new ArrayList<>(rows);
+        double total = 0;
+        for (int i = 0; i < rows; i++) {
+            Map<String, Object> item = new HashMap<>();
+            item.put("id", String.format("%06d", i));
+            item.put("name", "Item " + i);
+            item.put("description", "Description of item " + i);
+            item.put("quantity", i % 17 + 1);
+            item.put("price", 10.0 + (i % 100) * 0.25);
+            total += (i % 17 + 1) * (10.0 + (i % 100) * 0.25);
+            items.add(item);
+        }
+        data.put("items", items);
+        data.put("total", total);
+        return data;
+    }
+
+    /** Model for {@code invoice.ftl}. */
+    static Map<String, Object> invoice(int rows) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("companyName", "Acme Corporation");
+        data.put("companyAddress", "123 Business Street");
+        data.put("companyCity", "New York");
+        data.put("companyState", "NY");
+        data.put("companyZip", "10001");
+        data.put("companyPhone", "(555) 123-4567");
+        data.put("invoiceNumber", "INV-BENCH-0001");
+        data.put("invoiceDate", "01/01/2026");
+        data.put("dueDate", "01/31/2026");
+        data.put("customerName", "Tech Solutions Inc.");
+        data.put("customerAddress", "456 Client Avenue");
+        data.put("customerCity", "Boston");
+        data.put("customerState", "MA");
+        data.put("customerZip", "02101");
+
+        List<Map<String, Object>> lineItems = new ArrayList<>(rows);
+        double subtotal = 0;
+        for (int i = 0; i < rows; i++) {
+            Map<String, Object> item = new HashMap<>();
+            item.put("description", "Service line " + i);
+            item.put("quantity", i % 9 + 1);
+            item.put("unitPrice", 25.0 + i % 50);
+            subtotal += (i % 9 + 1) * (25.0 + i % 50);
+            lineItems.add(item);
+        }
+        data.put("lineItems", lineItems);
+        data.put("subtotal", subtotal);
+        data.put("tax", subtotal * 0.08);
+        data.put("taxRate", "8.00");
+        data.put("total", subtotal * 1.08);
+        return data;
+    }
+}
@@ -0,0 +1,26 @@
+package dev.avelar.jambock.benchmarks;
+
+import java.io.OutputStream;
+
+/**
+ * Output stream that counts and discards everything written to it, so benchmarks measure
+ * rendering rather than buffer growth.
+ */
+final class DiscardingOutputStream extends OutputStream {
+
+    private long count;
+
+    @Override
+    public void write(int b) {
+        count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        count += len;
+    }
+
+    long getCount() {
+        return count;
+    }
+}
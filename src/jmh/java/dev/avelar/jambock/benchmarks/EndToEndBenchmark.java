@@ -0,0 +1,72 @@
+package dev.avelar.jambock.benchmarks;
+
+import dev.avelar.jambock.reports.DocxOutputRenderer;
+import dev.avelar.jambock.reports.FreemarkerTemplateEngine;
+import dev.avelar.jambock.reports.OutputRenderer;
+import dev.avelar.jambock.reports.PdfOutputRenderer;
+import dev.avelar.jambock.reports.ReportEngine;
+import dev.avelar.jambock.reports.ReportGenerationException;
+import dev.avelar.jambock.reports.TemplateEngine;
+import dev.avelar.jambock.reports.ThymeleafTemplateEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full {@link ReportEngine#generateReport} path, template plus output rendering, for every
+ * template engine and output renderer combination.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EndToEndBenchmark {
+
+    @Param({"sample-report.ftl", "invoice.ftl", "landscape-report.ftl", "sample-report.html"})
+    public String template;
+
+    @Param({"pdf", "docx"})
+    public String format;
+
+    @Param({"10", "1000", "10000", "100000"})
+    public int rows;
+
+    private ReportEngine engine;
+    private String templateName;
+    private Map<String, Object> data;
+
+    @Setup
+    public void setUp() {
+        TemplateEngine templateEngine;
+        if (template.endsWith(".html")) {
+            templateEngine = new ThymeleafTemplateEngine();
+            templateName = template.substring(0, template.length() - ".html".length());
+        } else {
+            templateEngine = new FreemarkerTemplateEngine();
+            templateName = template;
+        }
+        OutputRenderer renderer = "docx".equals(format) ? new DocxOutputRenderer() : new PdfOutputRenderer();
+        engine = new ReportEngine(templateEngine, renderer);
+        data = BenchmarkData.forTemplate(template, rows);
+    }
+
+    @Benchmark
+    public long generateReport() throws ReportGenerationException {
+        DiscardingOutputStream out = new DiscardingOutputStream();
+        engine.generateReport(templateName, data, out);
+        return out.getCount();
+    }
+}
@@ -0,0 +1,83 @@
+package dev.avelar.jambock.benchmarks;
+
+import dev.avelar.jambock.reports.DocxOutputRenderer;
+import dev.avelar.jambock.reports.FreemarkerTemplateEngine;
+import dev.avelar.jambock.reports.PdfOutputRenderer;
+import dev.avelar.jambock.reports.ReportGenerationException;
+import dev.avelar.jambock.reports.StreamingDocxOutputRenderer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Output stage only: the HTML is produced once during setup, then converted by
+ * {@link PdfOutputRenderer}, {@link DocxOutputRenderer} or {@link StreamingDocxOutputRenderer} into a
+ * discarding stream.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RendererBenchmark {
+
+    @Param({"sample-report.ftl", "invoice.ftl", "landscape-report.ftl"})
+    public String template;
+
+    @Param({"10", "1000", "10000", "100000"})
+    public int rows;
+
+    private String html;
+    private PdfOutputRenderer pdfRenderer;
+    private PdfOutputRenderer html5PdfRenderer;
+    private DocxOutputRenderer docxRenderer;
+    private StreamingDocxOutputRenderer streamingDocxRenderer;
+
+    @Setup
+    public void setUp() throws ReportGenerationException {
+        html = new FreemarkerTemplateEngine().processTemplate(template, BenchmarkData.forTemplate(template, rows));
+        pdfRenderer = new PdfOutputRenderer();
+        html5PdfRenderer = new PdfOutputRenderer().withHtml5Parsing();
+        docxRenderer = new DocxOutputRenderer();
+        streamingDocxRenderer = new StreamingDocxOutputRenderer();
+    }
+
+    @Benchmark
+    public long pdf() throws ReportGenerationException {
+        DiscardingOutputStream out = new DiscardingOutputStream();
+        pdfRenderer.render(html, out);
+        return out.getCount();
+    }
+
+    @Benchmark
+    public long pdfHtml5Parsing() throws ReportGenerationException {
+        DiscardingOutputStream out = new DiscardingOutputStream();
+        html5PdfRenderer.render(html, out);
+        return out.getCount();
+    }
+
+    @Benchmark
+    public long docx() throws ReportGenerationException {
+        DiscardingOutputStream out = new DiscardingOutputStream();
+        docxRenderer.render(html, out);
+        return out.getCount();
+    }
+
+    @Benchmark
+    public long docxStreaming() throws ReportGenerationException {
+        DiscardingOutputStream out = new DiscardingOutputStream();
+        streamingDocxRenderer.render(html, out);
+        return out.getCount();
+    }
+}
@@ -0,0 +1,59 @@
+package dev.avelar.jambock.benchmarks;
+
+import dev.avelar.jambock.reports.FreemarkerTemplateEngine;
+import dev.avelar.jambock.reports.PdfOutputRenderer;
+import dev.avelar.jambock.reports.ReportGenerationException;
+import dev.avelar.jambock.reports.TableSplitter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PDF output stage for the single-table {@code sample-report.ftl}, with and without
+ * {@link TableSplitter}. Comparing {@code rowsPerTable=0} (no splitting) with the split variants
+ * across {@code rows} shows how layout cost grows with table length.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TableSplittingBenchmark {
+
+    @Param({"1000", "5000", "20000", "50000"})
+    public int rows;
+
+    /** Maximum body rows per table; {@code 0} disables splitting. */
+    @Param({"0", "250", "1000"})
+    public int rowsPerTable;
+
+    private String html;
+    private PdfOutputRenderer pdfRenderer;
+
+    @Setup
+    public void setUp() throws ReportGenerationException {
+        html = new FreemarkerTemplateEngine().processTemplate("sample-report.ftl", BenchmarkData.sampleReport(rows));
+        pdfRenderer = new PdfOutputRenderer();
+        if (rowsPerTable > 0) {
+            pdfRenderer.withHtmlTransformer(new TableSplitter(rowsPerTable));
+        }
+    }
+
+    @Benchmark
+    public long pdf() throws ReportGenerationException {
+        DiscardingOutputStream out = new DiscardingOutputStream();
+        pdfRenderer.render(html, out);
+        return out.getCount();
+    }
+}
@@ -0,0 +1,85 @@
+package dev.avelar.jambock.benchmarks;
+
+import dev.avelar.jambock.reports.FreemarkerTemplateEngine;
+import dev.avelar.jambock.reports.ReportGenerationException;
+import dev.avelar.jambock.reports.TemplateEngine;
+import dev.avelar.jambock.reports.ThymeleafTemplateEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.Writer;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Template stage only: evaluates a bundled template into a discarding {@link Writer}.
+ * Templates ending in {@code .html} run through Thymeleaf, all others through FreeMarker.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TemplateStageBenchmark {
+
+    @Param({"sample-report.ftl", "invoice.ftl", "landscape-report.ftl", "sample-report.html"})
+    public String template;
+
+    @Param({"10", "1000", "10000", "100000"})
+    public int rows;
+
+    private TemplateEngine engine;
+    private String templateName;
+    private Map<String, Object> data;
+
+    @Setup
+    public void setUp() {
+        if (template.endsWith(".html")) {
+            engine = new ThymeleafTemplateEngine();
+            templateName = template.substring(0, template.length() - ".html".length());
+        } else {
+            engine = new FreemarkerTemplateEngine();
+            templateName = template;
+        }
+        data = BenchmarkData.forTemplate(template, rows);
+    }
+
+    @Benchmark
+    public long processTemplate() throws ReportGenerationException {
+        CountingWriter writer = new CountingWriter();
+        engine.processTemplate(templateName, data, writer);
+        return writer.count;
+    }
+
+    private static final class CountingWriter extends Writer {
+        private long count;
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            count += len;
+        }
+
+        @Override
+        public void write(String str, int off, int len) {
+            count += len;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
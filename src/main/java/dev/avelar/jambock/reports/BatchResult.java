@@ -0,0 +1,121 @@
+package dev.avelar.jambock.reports;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of {@link ReportEngine#generateBatch(String, Iterable, java.util.function.Function)}:
+ * one {@link Item} per data model pulled from the source, in source order.
+ */
+public final class BatchResult {
+
+    private final List<Item> items;
+    private final long elapsedNanos;
+
+    BatchResult(List<Item> items, long elapsedNanos) {
+        this.items = Collections.unmodifiableList(items);
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Returns the per-item results, ordered by their position in the source.
+     *
+     * @return the item results
+     */
+    public List<Item> getItems() {
+        return items;
+    }
+
+    /**
+     * Returns the results of the items that failed.
+     *
+     * @return the failed items, ordered by their position in the source
+     */
+    public List<Item> getFailures() {
+        List<Item> failures = new ArrayList<>();
+        for (Item item : items) {
+            if (!item.isSuccessful()) {
+                failures.add(item);
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Returns the number of reports generated successfully.
+     *
+     * @return the success count
+     */
+    public int getSuccessCount() {
+        return items.size() - getFailureCount();
+    }
+
+    /**
+     * Returns the number of reports that failed.
+     *
+     * @return the failure count
+     */
+    public int getFailureCount() {
+        int failures = 0;
+        for (Item item : items) {
+            if (!item.isSuccessful()) {
+                failures++;
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Returns whether every report in the batch was generated successfully.
+     *
+     * @return {@code true} if no item failed
+     */
+    public boolean isSuccessful() {
+        return getFailureCount() == 0;
+    }
+
+    /**
+     * Returns the wall-clock duration of the whole batch.
+     *
+     * @return the elapsed time in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Result of a single report within a batch.
+     */
+    public static final class Item {
+        private final int index;
+        private final Exception error;
+        private final long durationNanos;
+
+        Item(int index, Exception error, long durationNanos) {
+            this.index = index;
+            this.error = error;
+            this.durationNanos = durationNanos;
+        }
+
+        /** @return the zero-based position of the data model in the source */
+        public int getIndex() {
+            return index;
+        }
+
+        /** @return {@code true} if the report was generated and written successfully */
+        public boolean isSuccessful() {
+            return error == null;
+        }
+
+        /** @return the failure cause, or {@code null} if the item succeeded */
+        public Exception getError() {
+            return error;
+        }
+
+        /** @return the time spent generating and writing this report, in nanoseconds */
+        public long getDurationNanos() {
+            return durationNanos;
+        }
+    }
+}
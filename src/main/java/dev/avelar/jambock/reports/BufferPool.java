@@ -0,0 +1,212 @@
+package dev.avelar.jambock.reports;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of fixed-size byte buffer segments that {@link ReportEngine} writes report output into
+ * instead of growing {@code byte[]} arrays.
+ *
+ * <p>A document is stored as a chain of segments taken from the pool and handed back once the
+ * document has been consumed, so steady-state rendering allocates no output buffers at all and
+ * never asks the collector for a huge contiguous array. With {@code direct} segments the output
+ * lives off-heap entirely.
+ *
+ * <pre>{@code
+ * BufferPool pool = new BufferPool(BufferPool.DEFAULT_SEGMENT_SIZE, 4096, true);
+ * engine.setBufferPool(pool);
+ * }</pre>
+ *
+ * <p>At most {@code maxPooledSegments} idle segments are retained; segments released beyond that
+ * are dropped and left to the collector. Instances are safe for concurrent use.
+ */
+public final class BufferPool {
+
+    /** Default segment size of 64 KiB, small enough to stay clear of G1's humongous threshold. */
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024;
+
+    private final int segmentSize;
+    private final int maxPooledSegments;
+    private final boolean direct;
+    private final ConcurrentLinkedQueue<ByteBuffer> idle = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private final AtomicInteger inUse = new AtomicInteger();
+    private final AtomicInteger peakInUse = new AtomicInteger();
+    private final AtomicLong acquisitions = new AtomicLong();
+    private final AtomicLong allocations = new AtomicLong();
+    private final AtomicLong discards = new AtomicLong();
+
+    /**
+     * Creates a pool of heap segments.
+     *
+     * @param segmentSize       the size of each segment in bytes
+     * @param maxPooledSegments the maximum number of idle segments kept for reuse
+     */
+    public BufferPool(int segmentSize, int maxPooledSegments) {
+        this(segmentSize, maxPooledSegments, false);
+    }
+
+    /**
+     * Creates a pool of heap or direct segments.
+     *
+     * @param segmentSize       the size of each segment in bytes
+     * @param maxPooledSegments the maximum number of idle segments kept for reuse
+     * @param direct            {@code true} to allocate segments off-heap with
+     *                          {@link ByteBuffer#allocateDirect(int)}
+     */
+    public BufferPool(int segmentSize, int maxPooledSegments, boolean direct) {
+        if (segmentSize < 1) {
+            throw new IllegalArgumentException("segmentSize must be at least 1, got " + segmentSize);
+        }
+        if (maxPooledSegments < 0) {
+            throw new IllegalArgumentException("maxPooledSegments must not be negative, got " + maxPooledSegments);
+        }
+        this.segmentSize = segmentSize;
+        this.maxPooledSegments = maxPooledSegments;
+        this.direct = direct;
+    }
+
+    /**
+     * Returns the size of each segment in bytes.
+     *
+     * @return the segment size
+     */
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    /**
+     * Returns {@code true} if segments are allocated off-heap.
+     *
+     * @return whether segments are direct buffers
+     */
+    public boolean isDirect() {
+        return direct;
+    }
+
+    /**
+     * Drops every idle segment. Segments currently in use are unaffected and return to the pool
+     * when released.
+     */
+    public void clear() {
+        while (idle.poll() != null) {
+            idleCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * Returns a snapshot of the pool's usage counters.
+     *
+     * @return the current statistics
+     */
+    public Statistics getStatistics() {
+        return new Statistics(segmentSize, acquisitions.get(), allocations.get(), discards.get(),
+                inUse.get(), peakInUse.get(), idleCount.get());
+    }
+
+    // -------------------------------------------------------------------------
+    // Package-private access used by PooledOutputStream
+    // -------------------------------------------------------------------------
+
+    /** Takes an empty segment from the pool, allocating a new one if none is idle. */
+    ByteBuffer acquire() {
+        acquisitions.incrementAndGet();
+        ByteBuffer segment = idle.poll();
+        if (segment != null) {
+            idleCount.decrementAndGet();
+            ((Buffer) segment).clear();
+        } else {
+            allocations.incrementAndGet();
+            segment = direct ? ByteBuffer.allocateDirect(segmentSize) : ByteBuffer.allocate(segmentSize);
+        }
+        int current = inUse.incrementAndGet();
+        peakInUse.accumulateAndGet(current, Math::max);
+        return segment;
+    }
+
+    /** Returns a segment obtained from {@link #acquire()}. The caller must not use it afterwards. */
+    void release(ByteBuffer segment) {
+        inUse.decrementAndGet();
+        if (idleCount.incrementAndGet() <= maxPooledSegments) {
+            idle.offer(segment);
+        } else {
+            idleCount.decrementAndGet();
+            discards.incrementAndGet();
+        }
+    }
+
+    /**
+     * Point-in-time usage counters of a {@link BufferPool}.
+     */
+    public static final class Statistics {
+        private final int segmentSize;
+        private final long acquisitions;
+        private final long allocations;
+        private final long discards;
+        private final int segmentsInUse;
+        private final int peakSegmentsInUse;
+        private final int idleSegments;
+
+        Statistics(int segmentSize, long acquisitions, long allocations, long discards, int segmentsInUse,
+                   int peakSegmentsInUse, int idleSegments) {
+            this.segmentSize = segmentSize;
+            this.acquisitions = acquisitions;
+            this.allocations = allocations;
+            this.discards = discards;
+            this.segmentsInUse = segmentsInUse;
+            this.peakSegmentsInUse = peakSegmentsInUse;
+            this.idleSegments = idleSegments;
+        }
+
+        /** @return number of segments handed out, whether reused or newly allocated */
+        public long getAcquisitions() {
+            return acquisitions;
+        }
+
+        /** @return number of segments that had to be allocated because none was idle */
+        public long getAllocations() {
+            return allocations;
+        }
+
+        /** @return number of released segments dropped because the pool was full */
+        public long getDiscards() {
+            return discards;
+        }
+
+        /** @return number of segments currently holding report output */
+        public int getSegmentsInUse() {
+            return segmentsInUse;
+        }
+
+        /** @return highest number of segments in use at the same time */
+        public int getPeakSegmentsInUse() {
+            return peakSegmentsInUse;
+        }
+
+        /** @return number of idle segments waiting to be reused */
+        public int getIdleSegments() {
+            return idleSegments;
+        }
+
+        /** @return bytes held by segments currently in use */
+        public long getBytesInUse() {
+            return (long) segmentsInUse * segmentSize;
+        }
+
+        /** @return bytes held by idle segments */
+        public long getIdleBytes() {
+            return (long) idleSegments * segmentSize;
+        }
+
+        @Override
+        public String toString() {
+            return "BufferPool.Statistics{acquisitions=" + acquisitions + ", allocations=" + allocations
+                    + ", discards=" + discards + ", segmentsInUse=" + segmentsInUse
+                    + ", peakSegmentsInUse=" + peakSegmentsInUse + ", idleSegments=" + idleSegments
+                    + ", segmentSize=" + segmentSize + "}";
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package dev.avelar.jambock.reports;
+
+import org.xhtmlrenderer.extend.FSImage;
+import org.xhtmlrenderer.extend.UserAgentCallback;
+import org.xhtmlrenderer.pdf.ITextFSImage;
+import org.xhtmlrenderer.resource.CSSResource;
+import org.xhtmlrenderer.resource.ImageResource;
+import org.xhtmlrenderer.resource.XMLResource;
+import org.xml.sax.InputSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * {@link UserAgentCallback} that answers image, stylesheet and binary resource requests from a
+ * shared {@link PdfResourceCache}, delegating to Flying Saucer's own user agent on a miss.
+ */
+final class CachingUserAgent implements UserAgentCallback {
+
+    private static final String CSS = "css:";
+    private static final String IMAGE = "img:";
+    private static final String BINARY = "bin:";
+
+    private final UserAgentCallback delegate;
+    private final PdfResourceCache cache;
+
+    CachingUserAgent(UserAgentCallback delegate, PdfResourceCache cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public CSSResource getCSSResource(String uri) {
+        String resolved = resolve(uri);
+        if (resolved == null) {
+            return delegate.getCSSResource(uri);
+        }
+        byte[] css = (byte[]) cache.get(CSS, resolved);
+        if (css == null) {
+            css = readStylesheet(delegate.getCSSResource(uri));
+            if (css == null) {
+                return new CSSResource((InputStream) null);
+            }
+            cache.put(CSS, resolved, css, css.length);
+        }
+        return new CSSResource(new ByteArrayInputStream(css));
+    }
+
+    @Override
+    public ImageResource getImageResource(String uri) {
+        String resolved = resolve(uri);
+        if (resolved == null) {
+            return delegate.getImageResource(uri);
+        }
+        ImageResource cached = (ImageResource) cache.get(IMAGE, resolved);
+        if (cached == null) {
+            ImageResource loaded = delegate.getImageResource(uri);
+            if (loaded == null || loaded.getImage() == null) {
+                return loaded;
+            }
+            cache.put(IMAGE, resolved, loaded, estimateSize(loaded.getImage()));
+            cached = loaded;
+        }
+        return new ImageResource(cached.getImageUri(), copyOf(cached.getImage()));
+    }
+
+    @Override
+    public byte[] getBinaryResource(String uri) {
+        String resolved = resolve(uri);
+        if (resolved == null) {
+            return delegate.getBinaryResource(uri);
+        }
+        byte[] bytes = (byte[]) cache.get(BINARY, resolved);
+        if (bytes == null) {
+            bytes = delegate.getBinaryResource(uri);
+            if (bytes != null) {
+                cache.put(BINARY, resolved, bytes, bytes.length);
+            }
+        }
+        return bytes;
+    }
+
+    @Override
+    public XMLResource getXMLResource(String uri) {
+        return delegate.getXMLResource(uri);
+    }
+
+    @Override
+    public boolean isVisited(String uri) {
+        return delegate.isVisited(uri);
+    }
+
+    @Override
+    public void setBaseURL(String url) {
+        delegate.setBaseURL(url);
+    }
+
+    @Override
+    public String getBaseURL() {
+        return delegate.getBaseURL();
+    }
+
+    @Override
+    public String resolveURI(String uri) {
+        return delegate.resolveURI(uri);
+    }
+
+    // -------------------------------------------------------------------------
+    // Internal helpers
+    // -------------------------------------------------------------------------
+
+    private String resolve(String uri) {
+        if (uri == null) {
+            return null;
+        }
+        return uri.startsWith("data:") ? uri : delegate.resolveURI(uri);
+    }
+
+    /** Images are scaled in place during layout, so every render gets its own copy. */
+    private static FSImage copyOf(FSImage image) {
+        if (image instanceof ITextFSImage) {
+            return (FSImage) ((ITextFSImage) image).clone();
+        }
+        return image;
+    }
+
+    private static long estimateSize(FSImage image) {
+        if (image instanceof ITextFSImage) {
+            byte[] raw = ((ITextFSImage) image).getImage().getRawData();
+            if (raw != null) {
+                return raw.length;
+            }
+        }
+        return Math.max(1L, (long) image.getWidth() * image.getHeight() * 4L);
+    }
+
+    private static byte[] readStylesheet(CSSResource resource) {
+        if (resource == null) {
+            return null;
+        }
+        InputSource source = resource.getResourceInputSource();
+        if (source == null) {
+            return null;
+        }
+        try {
+            if (source.getByteStream() != null) {
+                try (InputStream in = source.getByteStream()) {
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    byte[] buffer = new byte[8192];
+                    int n;
+                    while ((n = in.read(buffer)) != -1) {
+                        out.write(buffer, 0, n);
+                    }
+                    return out.toByteArray();
+                }
+            }
+            if (source.getCharacterStream() != null) {
+                try (Reader in = source.getCharacterStream()) {
+                    StringWriter out = new StringWriter();
+                    char[] buffer = new char[8192];
+                    int n;
+                    while ((n = in.read(buffer)) != -1) {
+                        out.write(buffer, 0, n);
+                    }
+                    return out.toString().getBytes(StandardCharsets.UTF_8);
+                }
+            }
+            return null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
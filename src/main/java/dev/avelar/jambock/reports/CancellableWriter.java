@@ -0,0 +1,57 @@
+package dev.avelar.jambock.reports;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+
+/**
+ * Writer used by the template engines that stops template evaluation once the report's
+ * {@link CancellationToken} is cancelled or expired. The token is checked on every
+ * {@value #CHECK_INTERVAL}th write, which keeps the cost of reading the clock negligible.
+ */
+final class CancellableWriter extends FilterWriter {
+
+    private static final int CHECK_INTERVAL = 32;
+
+    private final CancellationToken token;
+    private int writes;
+
+    private CancellableWriter(Writer out, CancellationToken token) {
+        super(out);
+        this.token = token;
+    }
+
+    /**
+     * Wraps {@code writer} if a report with a {@link CancellationToken} is running on the current
+     * thread, otherwise returns it unchanged.
+     */
+    static Writer wrap(Writer writer) {
+        CancellationToken token = CancellationToken.current();
+        return token != null ? new CancellableWriter(writer, token) : writer;
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        check();
+        out.write(c);
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        check();
+        out.write(cbuf, off, len);
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        check();
+        out.write(str, off, len);
+    }
+
+    private void check() throws InterruptedIOException {
+        if (++writes % CHECK_INTERVAL == 0 && token.isCancelled()) {
+            throw new InterruptedIOException(token.toException(null).getMessage());
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package dev.avelar.jambock.reports;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cancellation handle and optional deadline for a single report.
+ *
+ * <p>Pass a token to {@link ReportEngine#generateReport(String, java.util.Map, java.io.OutputStream,
+ * CancellationToken)} and call {@link #cancel()} from any thread to stop the report, or create it
+ * with {@link #withTimeout(long, TimeUnit)} so it stops by itself once the deadline passes.
+ * Cancellation is cooperative: the token is checked
+ * <ul>
+ *   <li>whenever the template writes output or pulls the next row of a {@link RowSource}, and at
+ *       every element a FreeMarker loop takes from Java data,</li>
+ *   <li>for every element of the HTML-to-DOCX traversal, and</li>
+ *   <li>before and after PDF layout, and around each segment of a segmented render.</li>
+ * </ul>
+ * A stopped report fails with a {@link ReportCancelledException}, or a
+ * {@link ReportTimeoutException} if the deadline passed, and releases its pooled resources.
+ *
+ * <pre>{@code
+ * CancellationToken token = CancellationToken.withTimeout(30, TimeUnit.SECONDS);
+ * engine.generateReport("statement.ftl", data, out, token);
+ * }</pre>
+ */
+public final class CancellationToken {
+
+    private static final ThreadLocal<CancellationToken> CURRENT = new ThreadLocal<>();
+
+    private final boolean hasDeadline;
+    private final long deadline;
+    private final long timeoutNanos;
+    private volatile boolean cancelled;
+
+    /**
+     * Creates a token without a deadline; it only stops a report when {@link #cancel()} is called.
+     */
+    public CancellationToken() {
+        this.hasDeadline = false;
+        this.deadline = 0;
+        this.timeoutNanos = 0;
+    }
+
+    private CancellationToken(long timeoutNanos) {
+        this.hasDeadline = true;
+        this.deadline = System.nanoTime() + timeoutNanos;
+        this.timeoutNanos = timeoutNanos;
+    }
+
+    /**
+     * Creates a token whose deadline is {@code timeout} from now.
+     *
+     * @param timeout the time the report may take
+     * @param unit    the unit of {@code timeout}
+     * @return a new token
+     */
+    public static CancellationToken withTimeout(long timeout, TimeUnit unit) {
+        return new CancellationToken(unit.toNanos(timeout));
+    }
+
+    /**
+     * Requests that the report stop at its next check. Calling this method more than once has no
+     * effect.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Returns {@code true} if {@link #cancel()} was called or the deadline has passed.
+     *
+     * @return whether the report should stop
+     */
+    public boolean isCancelled() {
+        return cancelled || isExpired();
+    }
+
+    /**
+     * Returns {@code true} if the token has a deadline and it has passed.
+     *
+     * @return whether the deadline has passed
+     */
+    public boolean isExpired() {
+        return hasDeadline && System.nanoTime() - deadline >= 0;
+    }
+
+    /**
+     * Returns the time left until the deadline.
+     *
+     * @param unit the unit of the result
+     * @return the remaining time, zero once expired, or {@link Long#MAX_VALUE} without a deadline
+     */
+    public long getRemaining(TimeUnit unit) {
+        if (!hasDeadline) {
+            return Long.MAX_VALUE;
+        }
+        return unit.convert(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Throws if the report should stop.
+     *
+     * @throws ReportCancelledException if {@link #cancel()} was called
+     * @throws ReportTimeoutException   if the deadline has passed
+     */
+    public void throwIfCancelled() throws ReportCancelledException {
+        if (isCancelled()) {
+            throw toException(null);
+        }
+    }
+
+    /** Returns the exception describing why the report stopped. */
+    ReportCancelledException toException(Throwable cause) {
+        if (cancelled) {
+            return new ReportCancelledException("Report generation was cancelled", cause);
+        }
+        return new ReportTimeoutException("Report generation exceeded its timeout of "
+                + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + " ms", cause);
+    }
+
+    // -------------------------------------------------------------------------
+    // Token of the report running on the current thread
+    // -------------------------------------------------------------------------
+
+    /**
+     * Makes {@code token} the token checked by template engines and row sources on this thread,
+     * which cannot receive it as a parameter. Returns the previous token for {@link #restore}.
+     */
+    static CancellationToken attach(CancellationToken token) {
+        CancellationToken previous = CURRENT.get();
+        CURRENT.set(token);
+        return previous;
+    }
+
+    /** Restores the token returned by {@link #attach}. */
+    static void restore(CancellationToken previous) {
+        if (previous != null) {
+            CURRENT.set(previous);
+        } else {
+            CURRENT.remove();
+        }
+    }
+
+    /** Returns the token of the report running on this thread, or {@code null}. */
+    static CancellationToken current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Throws an unchecked {@link CancellationException} if the report running on this thread should
+     * stop. Used where checked exceptions cannot be thrown, e.g. inside iterators; the engine turns
+     * it back into a {@link ReportCancelledException}.
+     */
+    static void checkCurrent() {
+        CancellationToken token = CURRENT.get();
+        if (token != null && token.isCancelled()) {
+            throw new CancellationException(token.toException(null).getMessage());
+        }
+    }
+}
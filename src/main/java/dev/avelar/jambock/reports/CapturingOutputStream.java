@@ -0,0 +1,163 @@
+package dev.avelar.jambock.reports;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Forwards everything to the wrapped stream while keeping a copy for the {@link ReportCache}. The
+ * copy stays in memory up to {@code memoryLimit} bytes; beyond that it moves to a temporary file in
+ * {@code directory} (the disk tier), so large reports are never duplicated in heap. The copy is
+ * dropped once it exceeds {@code fileLimit}, or as soon as it outgrows memory if there is no
+ * directory. The in-memory copy uses segments of a {@link BufferPool} when one is given; they are
+ * returned by {@link #discard()}. {@link #close()} does not close the wrapped stream.
+ */
+final class CapturingOutputStream extends FilterOutputStream {
+
+    private static final int FILE_BUFFER_SIZE = 64 * 1024;
+
+    private final long memoryLimit;
+    private final Path directory;
+    private final long fileLimit;
+    private OutputStream memory;
+    private Path file;
+    private OutputStream fileOut;
+    private long size;
+    private boolean dropped;
+
+    /**
+     * @param out         the stream the report is written to
+     * @param memoryLimit the largest copy kept in memory
+     * @param directory   the directory of the temporary file, or {@code null} to keep only in-memory copies
+     * @param fileLimit   the largest copy kept in a file
+     * @param pool        the pool backing the in-memory copy, or {@code null} to use a heap array
+     */
+    CapturingOutputStream(OutputStream out, long memoryLimit, Path directory, long fileLimit, BufferPool pool) {
+        super(out);
+        this.memoryLimit = memoryLimit;
+        this.directory = directory;
+        this.fileLimit = fileLimit;
+        this.memory = pool != null ? new PooledOutputStream(pool) : new ByteArrayOutputStream();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        out.write(b);
+        capture(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        capture(b, off, len);
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+
+    /**
+     * Returns the captured bytes, or {@code null} if the copy was moved to a file or dropped.
+     */
+    byte[] getCaptured() {
+        if (dropped || file != null) {
+            return null;
+        }
+        return memory instanceof PooledOutputStream
+                ? ((PooledOutputStream) memory).toByteArray()
+                : ((ByteArrayOutputStream) memory).toByteArray();
+    }
+
+    /**
+     * Closes and returns the temporary file holding the copy, or {@code null} if the copy is in
+     * memory or was dropped. The caller takes ownership of the file.
+     */
+    Path getCapturedFile() {
+        if (dropped || file == null) {
+            return null;
+        }
+        try {
+            fileOut.close();
+        } catch (IOException e) {
+            drop();
+            return null;
+        }
+        return file;
+    }
+
+    /** Returns the size of the captured copy. */
+    long size() {
+        return size;
+    }
+
+    /** Deletes the temporary file, if one is left, and returns the pooled segments. */
+    void discard() {
+        drop();
+    }
+
+    private void capture(byte[] b, int off, int len) {
+        if (dropped) {
+            return;
+        }
+        if (file == null && size + len <= memoryLimit) {
+            try {
+                memory.write(b, off, len);
+            } catch (IOException e) {
+                drop();
+                return;
+            }
+            size += len;
+            return;
+        }
+        if (directory == null || size + len > fileLimit) {
+            drop();
+            return;
+        }
+        try {
+            if (file == null) {
+                file = Files.createTempFile(directory, "entry", ".tmp");
+                fileOut = new BufferedOutputStream(Files.newOutputStream(file), FILE_BUFFER_SIZE);
+                if (memory instanceof PooledOutputStream) {
+                    ((PooledOutputStream) memory).writeTo(fileOut);
+                } else {
+                    ((ByteArrayOutputStream) memory).writeTo(fileOut);
+                }
+                releaseMemory();
+            }
+            fileOut.write(b, off, len);
+            size += len;
+        } catch (IOException e) {
+            // the report itself is unaffected, it just does not get cached
+            drop();
+        }
+    }
+
+    private void drop() {
+        dropped = true;
+        releaseMemory();
+        if (file != null) {
+            try {
+                fileOut.close();
+            } catch (IOException e) {
+                // the file is deleted below anyway
+            }
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                file.toFile().deleteOnExit();
+            }
+        }
+    }
+
+    private void releaseMemory() {
+        if (memory instanceof PooledOutputStream) {
+            ((PooledOutputStream) memory).release();
+        }
+        memory = null;
+    }
+}
@@ -1,19 +1,21 @@
 package dev.avelar.jambock.reports;
 
 import org.apache.poi.xwpf.usermodel.*;
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 
 /**
  * {@link OutputRenderer} implementation that converts HTML to a DOCX document using
  * <a href="https://poi.apache.org/">Apache POI</a> and
  * <a href="https://jsoup.org/">Jsoup</a> for HTML parsing.
  *
+ * <p>The HTML is parsed incrementally: each block, table row and list item is added to the document
+ * as soon as it has been parsed and is then discarded. For very large exports, where the in-memory
+ * POI document itself becomes the bottleneck, use {@link StreamingDocxOutputRenderer}.
+ *
  * <p>Supported HTML elements:
  * <ul>
  *   <li>{@code <h1>} – {@code <h6>}: headings (bold, decreasing font size)</li>
@@ -23,11 +25,14 @@ import java.io.IOException;
  *       {@code <th>} / {@code <td>} support</li>
  *   <li>{@code <br>}: line breaks inside paragraphs</li>
  * </ul>
+ *
+ * <p>Formatting is expressed through named styles ({@code Heading1} – {@code Heading6},
+ * {@code BodyText}, {@code ListItem}, {@code TableHeader}, {@code Strong}, ...) defined once in the
+ * document's styles part rather than repeated on every run, so the output can be restyled in Word by
+ * editing those styles.
  */
 public class DocxOutputRenderer implements OutputRenderer {
 
-    private static final int DEFAULT_FONT_SIZE_PT = 11;
-
     /**
      * Converts the supplied HTML string into a DOCX document.
      *
@@ -37,62 +42,52 @@ public class DocxOutputRenderer implements OutputRenderer {
      */
     @Override
     public byte[] render(String html) throws ReportGenerationException {
-        try (XWPFDocument document = new XWPFDocument()) {
-            Document jsoupDoc = Jsoup.parse(html);
-            processBody(document, jsoupDoc.body());
-
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
-            document.write(out);
-            return out.toByteArray();
-        } catch (IOException e) {
-            throw new ReportGenerationException("Failed to generate DOCX document: " + e.getMessage(), e);
-        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        render(html, out);
+        return out.toByteArray();
     }
 
-    // -------------------------------------------------------------------------
-    // Body traversal
-    // -------------------------------------------------------------------------
+    /**
+     * Converts the supplied HTML string into a DOCX document, writing it directly to {@code out}.
+     *
+     * @param html the fully-rendered HTML string produced by a {@link TemplateEngine}
+     * @param out  the destination for the DOCX document
+     * @throws ReportGenerationException if document creation or serialisation fails
+     */
+    @Override
+    public void render(String html, OutputStream out) throws ReportGenerationException {
+        render(html, out, new RenderContext(null));
+    }
 
-    private void processBody(XWPFDocument document, Element body) {
-        for (Element element : body.children()) {
-            processElement(document, element);
-        }
+    /**
+     * Converts the supplied HTML string into a DOCX document, writing it directly to {@code out}.
+     *
+     * @param html    the fully-rendered HTML string produced by a {@link TemplateEngine}
+     * @param out     the destination for the DOCX document
+     * @param context the per-request render context, checked for cancellation during the traversal
+     * @throws ReportGenerationException if document creation or serialisation fails
+     */
+    @Override
+    public void render(String html, OutputStream out, RenderContext context) throws ReportGenerationException {
+        render((CharSequence) html, out, context);
     }
 
-    private void processElement(XWPFDocument document, Element element) {
-        String tag = element.tagName().toLowerCase();
-        switch (tag) {
-            case "h1": case "h2": case "h3":
-            case "h4": case "h5": case "h6":
-                processHeading(document, element, tag);
-                break;
-            case "p":
-                processParagraph(document, element);
-                break;
-            case "ul":
-                processList(document, element, false);
-                break;
-            case "ol":
-                processList(document, element, true);
-                break;
-            case "table":
-                processTable(document, element);
-                break;
-            case "div": case "section": case "article": case "main":
-            case "header": case "footer":
-                // Recurse into block container elements
-                for (Element child : element.children()) {
-                    processElement(document, child);
-                }
-                break;
-            default:
-                String text = element.text().trim();
-                if (!text.isEmpty()) {
-                    XWPFParagraph para = document.createParagraph();
-                    XWPFRun run = para.createRun();
-                    run.setText(text);
-                    run.setFontSize(DEFAULT_FONT_SIZE_PT);
-                }
+    /**
+     * Converts the supplied HTML into a DOCX document, writing it directly to {@code out}.
+     *
+     * @param html    the fully-rendered HTML produced by a {@link TemplateEngine}
+     * @param out     the destination for the DOCX document
+     * @param context the per-request render context, checked for cancellation during the traversal
+     * @throws ReportGenerationException if document creation or serialisation fails
+     */
+    @Override
+    public void render(CharSequence html, OutputStream out, RenderContext context)
+            throws ReportGenerationException {
+        try (XWPFDocument document = DocxStyles.newDocument()) {
+            HtmlBlockStreamer.stream(HtmlBuffer.reader(html), new DocumentHandler(document), context);
+            document.write(new NonClosingOutputStream(out));
+        } catch (IOException e) {
+            throw new ReportGenerationException("Failed to generate DOCX document: " + e.getMessage(), e);
         }
     }
 
@@ -102,20 +97,8 @@ public class DocxOutputRenderer implements OutputRenderer {
 
     private void processHeading(XWPFDocument document, Element element, String tag) {
         XWPFParagraph para = document.createParagraph();
-        para.setSpacingAfter(120);
-
-        XWPFRun run = para.createRun();
-        run.setBold(true);
-        run.setText(element.text());
-
-        switch (tag) {
-            case "h1": run.setFontSize(24); break;
-            case "h2": run.setFontSize(20); break;
-            case "h3": run.setFontSize(16); break;
-            case "h4": run.setFontSize(14); break;
-            case "h5": run.setFontSize(12); break;
-            default:   run.setFontSize(11); break;
-        }
+        para.setStyle(DocxStyles.heading(tag));
+        para.createRun().setText(element.text());
     }
 
     // -------------------------------------------------------------------------
@@ -124,143 +107,133 @@ public class DocxOutputRenderer implements OutputRenderer {
 
     private void processParagraph(XWPFDocument document, Element element) {
         XWPFParagraph para = document.createParagraph();
-        para.setSpacingAfter(80);
+        para.setStyle(DocxStyles.BODY_TEXT);
         applyInlineContent(para, element);
     }
 
     /**
-     * Walks the child nodes of {@code element} and creates styled {@link XWPFRun}s for each
-     * text node and inline element ({@code <b>}, {@code <strong>}, {@code <i>}, {@code <em>},
-     * {@code <u>}, {@code <br>}, {@code <span>}).
+     * Walks the child nodes of {@code element} and creates {@link XWPFRun}s for each text node and
+     * inline element ({@code <b>}, {@code <strong>}, {@code <i>}, {@code <em>}, {@code <u>},
+     * {@code <br>}, {@code <span>}). Emphasis is applied through character styles.
      */
     private void applyInlineContent(XWPFParagraph para, Element element) {
         for (org.jsoup.nodes.Node node : element.childNodes()) {
             if (node instanceof org.jsoup.nodes.TextNode) {
                 String text = ((org.jsoup.nodes.TextNode) node).text();
                 if (!text.isEmpty()) {
-                    XWPFRun run = para.createRun();
-                    run.setText(text);
-                    run.setFontSize(DEFAULT_FONT_SIZE_PT);
+                    para.createRun().setText(text);
                 }
             } else if (node instanceof Element) {
                 Element child = (Element) node;
-                String childTag = child.tagName().toLowerCase();
-                switch (childTag) {
-                    case "b": case "strong": {
-                        XWPFRun run = para.createRun();
-                        run.setBold(true);
-                        run.setText(child.text());
-                        run.setFontSize(DEFAULT_FONT_SIZE_PT);
+                switch (child.normalName()) {
+                    case "b": case "strong":
+                        addStyledRun(para, child.text(), DocxStyles.STRONG);
                         break;
-                    }
-                    case "i": case "em": {
-                        XWPFRun run = para.createRun();
-                        run.setItalic(true);
-                        run.setText(child.text());
-                        run.setFontSize(DEFAULT_FONT_SIZE_PT);
+                    case "i": case "em":
+                        addStyledRun(para, child.text(), DocxStyles.EMPHASIS);
                         break;
-                    }
-                    case "u": {
-                        XWPFRun run = para.createRun();
-                        run.setUnderline(UnderlinePatterns.SINGLE);
-                        run.setText(child.text());
-                        run.setFontSize(DEFAULT_FONT_SIZE_PT);
+                    case "u":
+                        addStyledRun(para, child.text(), DocxStyles.UNDERLINE);
                         break;
-                    }
-                    case "br": {
-                        XWPFRun run = para.createRun();
-                        run.addBreak();
+                    case "br":
+                        para.createRun().addBreak();
                         break;
-                    }
-                    default: {
+                    default:
                         String text = child.text().trim();
                         if (!text.isEmpty()) {
-                            XWPFRun run = para.createRun();
-                            run.setText(text);
-                            run.setFontSize(DEFAULT_FONT_SIZE_PT);
+                            para.createRun().setText(text);
                         }
-                    }
                 }
             }
         }
     }
 
-    // -------------------------------------------------------------------------
-    // Lists
-    // -------------------------------------------------------------------------
-
-    private void processList(XWPFDocument document, Element listElement, boolean ordered) {
-        int index = 1;
-        for (Element li : listElement.select("> li")) {
-            XWPFParagraph para = document.createParagraph();
-            para.setIndentationLeft(720); // 0.5 inch
-            XWPFRun run = para.createRun();
-            String prefix = ordered ? (index++) + ". " : "\u2022 ";
-            run.setText(prefix + li.text());
-            run.setFontSize(DEFAULT_FONT_SIZE_PT);
-        }
+    private static void addStyledRun(XWPFParagraph para, String text, String characterStyleId) {
+        XWPFRun run = para.createRun();
+        run.setStyle(characterStyleId);
+        run.setText(text);
     }
 
     // -------------------------------------------------------------------------
-    // Tables
+    // Block handling
     // -------------------------------------------------------------------------
 
-    private void processTable(XWPFDocument document, Element tableElement) {
-        // Collect all rows from thead + tbody (or directly from table)
-        Elements rows = tableElement.select("thead tr, tbody tr");
-        if (rows.isEmpty()) {
-            rows = tableElement.select("tr");
+    /**
+     * Appends the blocks reported by {@link HtmlBlockStreamer} to the document. Table rows are
+     * added as they arrive, so only the current row of the HTML is in memory.
+     */
+    private final class DocumentHandler implements HtmlBlockStreamer.Handler {
+
+        private final XWPFDocument document;
+        private XWPFTable table;
+        private boolean firstRow;
+
+        private DocumentHandler(XWPFDocument document) {
+            this.document = document;
         }
-        if (rows.isEmpty()) return;
 
-        // Determine column count from the first row
-        int colCount = rows.first().select("th, td").size();
-        if (colCount == 0) return;
+        @Override
+        public void block(Element element) {
+            String tag = element.normalName();
+            switch (tag) {
+                case "h1": case "h2": case "h3":
+                case "h4": case "h5": case "h6":
+                    processHeading(document, element, tag);
+                    break;
+                case "p":
+                    processParagraph(document, element);
+                    break;
+                default:
+                    String text = element.text().trim();
+                    if (!text.isEmpty()) {
+                        document.createParagraph().createRun().setText(text);
+                    }
+            }
+        }
 
-        XWPFTable table = document.createTable(rows.size(), colCount);
-        table.setWidth("100%");
-        // Remove default 1-row that POI creates; we'll fill row by row
-        removeExtraRows(table, rows.size());
+        @Override
+        public void listItem(Element item, boolean ordered, int number) {
+            XWPFParagraph para = document.createParagraph();
+            para.setStyle(DocxStyles.LIST_ITEM);
+            String prefix = ordered ? number + ". " : "\u2022 ";
+            para.createRun().setText(prefix + item.text());
+        }
 
-        for (int rowIdx = 0; rowIdx < rows.size(); rowIdx++) {
-            Element row = rows.get(rowIdx);
-            Elements cells = row.select("th, td");
-            XWPFTableRow tableRow = table.getRow(rowIdx);
+        @Override
+        public void startTable(int columns) {
+            // POI creates the first row with the given number of cells; later rows copy its width
+            table = document.createTable(1, columns);
+            table.setWidth("100%");
+            table.setStyleID(DocxStyles.TABLE);
+            firstRow = true;
+        }
 
-            for (int colIdx = 0; colIdx < cells.size(); colIdx++) {
-                Element cell = cells.get(colIdx);
-                boolean isHeader = "th".equals(cell.tagName().toLowerCase());
+        @Override
+        public void tableRow(Element row, int columns) {
+            XWPFTableRow tableRow = firstRow ? table.getRow(0) : table.createRow();
+            firstRow = false;
 
-                XWPFTableCell tableCell = tableRow.getCell(colIdx);
+            int colIdx = 0;
+            for (Element cell : row.children()) {
+                if (!HtmlBlockStreamer.isCell(cell)) {
+                    continue;
+                }
+                XWPFTableCell tableCell = tableRow.getCell(colIdx++);
                 if (tableCell == null) {
                     tableCell = tableRow.addNewTableCell();
                 }
                 tableCell.removeParagraph(0);
                 XWPFParagraph cellPara = tableCell.addParagraph();
-                XWPFRun run = cellPara.createRun();
-                run.setText(cell.text());
-                run.setFontSize(DEFAULT_FONT_SIZE_PT);
-                if (isHeader) {
-                    run.setBold(true);
+                if ("th".equals(cell.normalName())) {
+                    cellPara.setStyle(DocxStyles.TABLE_HEADER);
                 }
+                cellPara.createRun().setText(cell.text());
             }
         }
-    }
 
-    /**
-     * Apache POI pre-creates rows when calling {@code createTable(rows, cols)}.
-     * This method removes any surplus rows so we start fresh.
-     */
-    private void removeExtraRows(XWPFTable table, int desiredRows) {
-        int current = table.getNumberOfRows();
-        for (int i = current - 1; i >= desiredRows; i--) {
-            table.removeRow(i);
-        }
-        // If POI created fewer rows than needed, add the missing ones
-        for (int i = current; i < desiredRows; i++) {
-            table.createRow();
+        @Override
+        public void endTable() {
+            table = null;
         }
     }
 }
-
-
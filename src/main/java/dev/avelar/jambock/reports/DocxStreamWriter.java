@@ -0,0 +1,197 @@
+package dev.avelar.jambock.reports;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes a minimal WordprocessingML package straight into a zip stream, emitting
+ * {@code word/document.xml} element by element. Nothing but the current write buffer is held in
+ * memory, so the cost is independent of document length.
+ *
+ * <p>The package includes the shared {@link DocxStyles}; paragraphs, runs and tables reference
+ * those styles by id, exactly like {@link DocxOutputRenderer}. Calls must follow the document order;
+ * {@link #finish()} completes the package without closing the underlying stream.
+ */
+final class DocxStreamWriter {
+
+    private static final String CONTENT_TYPES = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+            + "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">"
+            + "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>"
+            + "<Default Extension=\"xml\" ContentType=\"application/xml\"/>"
+            + "<Override PartName=\"/word/document.xml\" ContentType=\""
+            + "application/vnd.openxmlformats-officedocument.wordprocessingml.document.main+xml\"/>"
+            + "<Override PartName=\"/word/styles.xml\" ContentType=\""
+            + "application/vnd.openxmlformats-officedocument.wordprocessingml.styles+xml\"/>"
+            + "</Types>";
+
+    private static final String PACKAGE_RELATIONSHIPS = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+            + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+            + "<Relationship Id=\"rId1\" Type=\""
+            + "http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument\""
+            + " Target=\"word/document.xml\"/>"
+            + "</Relationships>";
+
+    private static final String DOCUMENT_RELATIONSHIPS = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+            + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+            + "<Relationship Id=\"rId1\" Type=\""
+            + "http://schemas.openxmlformats.org/officeDocument/2006/relationships/styles\""
+            + " Target=\"styles.xml\"/>"
+            + "</Relationships>";
+
+    private static final String DOCUMENT_START = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+            + "<w:document xmlns:w=\"http://schemas.openxmlformats.org/wordprocessingml/2006/main\"><w:body>";
+
+    private static final String DOCUMENT_END = "</w:body></w:document>";
+
+    /** Text width of an A4/Letter page with default margins, in twentieths of a point. */
+    private static final int TEXT_WIDTH_TWIPS = 9360;
+
+    private final ZipOutputStream zip;
+    private final Writer xml;
+    private boolean paragraphOpen;
+
+    DocxStreamWriter(OutputStream out) throws IOException {
+        this.zip = new ZipOutputStream(new NonClosingOutputStream(out));
+        writeEntry("[Content_Types].xml", CONTENT_TYPES);
+        writeEntry("_rels/.rels", PACKAGE_RELATIONSHIPS);
+        writeEntry("word/_rels/document.xml.rels", DOCUMENT_RELATIONSHIPS);
+        writeEntry("word/styles.xml", DocxStyles.STYLES_XML);
+        zip.putNextEntry(new ZipEntry("word/document.xml"));
+        this.xml = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8), 16 * 1024);
+        xml.write(DOCUMENT_START);
+    }
+
+    // -------------------------------------------------------------------------
+    // Paragraphs and runs
+    // -------------------------------------------------------------------------
+
+    /** Opens a paragraph with the given paragraph style, or the default style if {@code null}. */
+    void startParagraph(String styleId) throws IOException {
+        xml.write("<w:p>");
+        if (styleId != null) {
+            xml.write("<w:pPr><w:pStyle w:val=\"" + styleId + "\"/></w:pPr>");
+        }
+        paragraphOpen = true;
+    }
+
+    void endParagraph() throws IOException {
+        xml.write("</w:p>");
+        paragraphOpen = false;
+    }
+
+    /** Writes a run of text with the given character style, or none if {@code null}. */
+    void run(String text, String characterStyleId) throws IOException {
+        xml.write("<w:r>");
+        if (characterStyleId != null) {
+            xml.write("<w:rPr><w:rStyle w:val=\"" + characterStyleId + "\"/></w:rPr>");
+        }
+        xml.write("<w:t xml:space=\"preserve\">");
+        writeEscaped(text);
+        xml.write("</w:t></w:r>");
+    }
+
+    /** Writes a line break into the open paragraph. */
+    void lineBreak() throws IOException {
+        xml.write("<w:r><w:br/></w:r>");
+    }
+
+    /** Writes a complete paragraph holding a single unstyled run. */
+    void paragraph(String text, String styleId) throws IOException {
+        startParagraph(styleId);
+        run(text, null);
+        endParagraph();
+    }
+
+    // -------------------------------------------------------------------------
+    // Tables
+    // -------------------------------------------------------------------------
+
+    /** Opens a full-width table with {@code columns} grid columns. */
+    void startTable(int columns) throws IOException {
+        xml.write("<w:tbl><w:tblPr><w:tblStyle w:val=\"" + DocxStyles.TABLE + "\"/>");
+        xml.write("<w:tblW w:w=\"5000\" w:type=\"pct\"/></w:tblPr><w:tblGrid>");
+        int width = TEXT_WIDTH_TWIPS / columns;
+        for (int i = 0; i < columns; i++) {
+            xml.write("<w:gridCol w:w=\"" + width + "\"/>");
+        }
+        xml.write("</w:tblGrid>");
+    }
+
+    void startRow() throws IOException {
+        xml.write("<w:tr>");
+    }
+
+    /** Writes a cell holding a single paragraph with one run ({@code null} text for an empty cell). */
+    void cell(String text, boolean header) throws IOException {
+        xml.write("<w:tc><w:tcPr><w:tcW w:w=\"0\" w:type=\"auto\"/></w:tcPr>");
+        startParagraph(header ? DocxStyles.TABLE_HEADER : null);
+        if (text != null) {
+            run(text, null);
+        }
+        endParagraph();
+        xml.write("</w:tc>");
+    }
+
+    void endRow() throws IOException {
+        xml.write("</w:tr>");
+    }
+
+    void endTable() throws IOException {
+        xml.write("</w:tbl>");
+        // Word requires a paragraph between two consecutive tables and after a final table
+        xml.write("<w:p/>");
+    }
+
+    // -------------------------------------------------------------------------
+    // Package
+    // -------------------------------------------------------------------------
+
+    /**
+     * Closes {@code word/document.xml} and writes the zip directory. The underlying stream is
+     * flushed but not closed.
+     */
+    void finish() throws IOException {
+        if (paragraphOpen) {
+            endParagraph();
+        }
+        xml.write(DOCUMENT_END);
+        xml.flush();
+        zip.closeEntry();
+        zip.finish();
+        zip.flush();
+    }
+
+    private void writeEntry(String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(content.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+
+    /** Escapes XML markup characters and drops characters that XML 1.0 does not allow. */
+    private void writeEscaped(String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '<':
+                    xml.write("&lt;");
+                    break;
+                case '>':
+                    xml.write("&gt;");
+                    break;
+                case '&':
+                    xml.write("&amp;");
+                    break;
+                default:
+                    if (c >= 0x20 || c == '\t' || c == '\n' || c == '\r') {
+                        xml.write(c);
+                    }
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package dev.avelar.jambock.reports;
+
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.xmlbeans.XmlException;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.StylesDocument;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * The named styles shared by the DOCX renderers. Paragraphs and runs reference these styles
+ * instead of repeating direct formatting, which keeps {@code document.xml} small.
+ *
+ * <p>The document default is an 11pt font. Paragraph styles: {@code Heading1} – {@code Heading6},
+ * {@code BodyText}, {@code ListItem} and {@code TableHeader}; character styles: {@code Strong},
+ * {@code Emphasis} and {@code Underline}; table style: {@code ReportTable}.
+ */
+final class DocxStyles {
+
+    static final int DEFAULT_FONT_SIZE_PT = 11;
+
+    static final String BODY_TEXT = "BodyText";
+    static final String LIST_ITEM = "ListItem";
+    static final String TABLE_HEADER = "TableHeader";
+    static final String STRONG = "Strong";
+    static final String EMPHASIS = "Emphasis";
+    static final String UNDERLINE = "Underline";
+    static final String TABLE = "ReportTable";
+
+    private static final int[] HEADING_SIZES_PT = {24, 20, 16, 14, 12, 11};
+    private static final String BORDER = " w:val=\"single\" w:sz=\"4\" w:space=\"0\" w:color=\"auto\"/>";
+
+    /** The {@code word/styles.xml} part. */
+    static final String STYLES_XML = buildStylesXml();
+
+    private DocxStyles() {
+    }
+
+    /** Returns the paragraph style id of a heading tag ({@code h1} – {@code h6}). */
+    static String heading(String tag) {
+        return "Heading" + tag.charAt(1);
+    }
+
+    /**
+     * Returns an empty DOCX package that already contains the styles part. It is built once and
+     * opened by {@link DocxOutputRenderer} as the starting point of every document.
+     */
+    static byte[] baseDocument() {
+        return BaseDocumentHolder.BASE_DOCUMENT;
+    }
+
+    /** Opens a new, empty document that already contains the shared styles. */
+    static XWPFDocument newDocument() throws IOException {
+        return new XWPFDocument(new ByteArrayInputStream(baseDocument()));
+    }
+
+    private static String buildStylesXml() {
+        StringBuilder xml = new StringBuilder(4096);
+        xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>")
+                .append("<w:styles xmlns:w=\"http://schemas.openxmlformats.org/wordprocessingml/2006/main\">")
+                .append("<w:docDefaults><w:rPrDefault><w:rPr>")
+                .append("<w:sz w:val=\"").append(DEFAULT_FONT_SIZE_PT * 2).append("\"/>")
+                .append("<w:szCs w:val=\"").append(DEFAULT_FONT_SIZE_PT * 2).append("\"/>")
+                .append("</w:rPr></w:rPrDefault><w:pPrDefault/></w:docDefaults>")
+                .append("<w:style w:type=\"paragraph\" w:default=\"1\" w:styleId=\"Normal\">")
+                .append("<w:name w:val=\"Normal\"/><w:qFormat/></w:style>")
+                .append("<w:style w:type=\"character\" w:default=\"1\" w:styleId=\"DefaultParagraphFont\">")
+                .append("<w:name w:val=\"Default Paragraph Font\"/><w:uiPriority w:val=\"1\"/><w:semiHidden/></w:style>");
+        for (int level = 1; level <= HEADING_SIZES_PT.length; level++) {
+            xml.append("<w:style w:type=\"paragraph\" w:styleId=\"Heading").append(level).append("\">")
+                    .append("<w:name w:val=\"heading ").append(level).append("\"/>")
+                    .append("<w:basedOn w:val=\"Normal\"/><w:next w:val=\"").append(BODY_TEXT).append("\"/><w:qFormat/>")
+                    .append("<w:pPr><w:keepNext/><w:spacing w:after=\"120\"/>")
+                    .append("<w:outlineLvl w:val=\"").append(level - 1).append("\"/></w:pPr>")
+                    .append("<w:rPr><w:b/><w:sz w:val=\"").append(HEADING_SIZES_PT[level - 1] * 2).append("\"/></w:rPr>")
+                    .append("</w:style>");
+        }
+        paragraphStyle(xml, BODY_TEXT, "Body Text", "<w:pPr><w:spacing w:after=\"80\"/></w:pPr>");
+        paragraphStyle(xml, LIST_ITEM, "List Item", "<w:pPr><w:ind w:left=\"720\"/></w:pPr>");
+        paragraphStyle(xml, TABLE_HEADER, "Table Header", "<w:rPr><w:b/></w:rPr>");
+        characterStyle(xml, STRONG, "Strong", "<w:b/>");
+        characterStyle(xml, EMPHASIS, "Emphasis", "<w:i/>");
+        characterStyle(xml, UNDERLINE, "Underline", "<w:u w:val=\"single\"/>");
+        xml.append("<w:style w:type=\"table\" w:styleId=\"").append(TABLE).append("\">")
+                .append("<w:name w:val=\"Report Table\"/><w:tblPr><w:tblBorders>")
+                .append("<w:top").append(BORDER).append("<w:left").append(BORDER)
+                .append("<w:bottom").append(BORDER).append("<w:right").append(BORDER)
+                .append("<w:insideH").append(BORDER).append("<w:insideV").append(BORDER)
+                .append("</w:tblBorders></w:tblPr></w:style>")
+                .append("</w:styles>");
+        return xml.toString();
+    }
+
+    private static void paragraphStyle(StringBuilder xml, String id, String name, String properties) {
+        xml.append("<w:style w:type=\"paragraph\" w:styleId=\"").append(id).append("\">")
+                .append("<w:name w:val=\"").append(name).append("\"/><w:basedOn w:val=\"Normal\"/><w:qFormat/>")
+                .append(properties).append("</w:style>");
+    }
+
+    private static void characterStyle(StringBuilder xml, String id, String name, String runProperties) {
+        xml.append("<w:style w:type=\"character\" w:styleId=\"").append(id).append("\">")
+                .append("<w:name w:val=\"").append(name).append("\"/><w:basedOn w:val=\"DefaultParagraphFont\"/>")
+                .append("<w:qFormat/><w:rPr>").append(runProperties).append("</w:rPr></w:style>");
+    }
+
+    /** Lazily builds the base document on first use of {@link DocxOutputRenderer}. */
+    private static final class BaseDocumentHolder {
+        private static final byte[] BASE_DOCUMENT = build();
+
+        private static byte[] build() {
+            try (XWPFDocument document = new XWPFDocument()) {
+                document.createStyles().setStyles(StylesDocument.Factory.parse(STYLES_XML).getStyles());
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                document.write(out);
+                return out.toByteArray();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (XmlException e) {
+                throw new IllegalStateException("Invalid built-in DOCX styles", e);
+            }
+        }
+    }
+}
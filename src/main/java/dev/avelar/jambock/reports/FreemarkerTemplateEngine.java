@@ -7,6 +7,7 @@ import freemarker.template.TemplateExceptionHandler;
 
 import java.io.IOException;
 import java.io.StringWriter;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.util.Locale;
 import java.util.Map;
@@ -47,17 +48,46 @@ public class FreemarkerTemplateEngine implements TemplateEngine {
      */
     @Override
     public String processTemplate(String templateName, Map<String, Object> data) throws ReportGenerationException {
+        StringWriter writer = new StringWriter();
+        processTemplate(templateName, data, writer);
+        return writer.toString();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>FreeMarker writes its output to {@code writer} as the template executes.
+     *
+     * @throws ReportGenerationException wrapping any {@link IOException} or {@link TemplateException}
+     *                                   thrown during template processing
+     */
+    @Override
+    public void processTemplate(String templateName, Map<String, Object> data, Writer writer)
+            throws ReportGenerationException {
         try {
             Template template = freemarkerConfig.getTemplate(templateName);
-            StringWriter writer = new StringWriter();
-            template.process(data, writer);
-            return writer.toString();
+            template.process(IteratorRowSource.adaptModel(data), CancellableWriter.wrap(writer));
         } catch (IOException | TemplateException e) {
             throw new ReportGenerationException(
                     "FreeMarker failed to process template '" + templateName + "': " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Parses the template and stores it in FreeMarker's template cache.
+     *
+     * @throws ReportGenerationException if the template cannot be found or parsed
+     */
+    @Override
+    public void preloadTemplate(String templateName) throws ReportGenerationException {
+        try {
+            freemarkerConfig.getTemplate(templateName);
+        } catch (IOException e) {
+            throw new ReportGenerationException(
+                    "FreeMarker failed to load template '" + templateName + "': " + e.getMessage(), e);
+        }
+    }
+
     /**
      * Returns the underlying FreeMarker {@link Configuration}.
      *
@@ -80,6 +110,7 @@ public class FreemarkerTemplateEngine implements TemplateEngine {
         cfg.setWrapUncheckedExceptions(true);
         cfg.setFallbackOnNullLoopVariable(false);
         cfg.setLocale(Locale.US);
+        cfg.setObjectWrapper(new StreamingObjectWrapper(Configuration.VERSION_2_3_32));
         return cfg;
     }
 }
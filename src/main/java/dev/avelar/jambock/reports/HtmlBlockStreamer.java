@@ -0,0 +1,174 @@
+package dev.avelar.jambock.reports;
+
+import org.jsoup.nodes.Element;
+import org.jsoup.parser.Parser;
+import org.jsoup.parser.StreamParser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * Event-driven walk over the block structure of an HTML document, shared by the DOCX renderers.
+ *
+ * <p>The document is read with jsoup's {@link StreamParser}, which yields every element as soon as
+ * its end tag has been parsed. Top-level blocks — elements whose ancestors up to {@code <body>} are
+ * all containers ({@code div}, {@code section}, ...) — are handed to the {@link Handler} when they
+ * complete and then removed from the tree. Table rows and list items are handed over one by one as
+ * well, so a table with thousands of rows never exists in memory as a whole; memory use is bounded
+ * by the largest single block, row or list item.
+ */
+final class HtmlBlockStreamer {
+
+    /** Receives the blocks of the document in document order. */
+    interface Handler {
+
+        /** A completed heading, paragraph or other non-container block. */
+        void block(Element element) throws IOException;
+
+        /** A completed item of a top-level list; {@code number} counts from 1 within its list. */
+        void listItem(Element item, boolean ordered, int number) throws IOException;
+
+        /** The first row of a top-level table has completed; {@code columns} is its cell count. */
+        void startTable(int columns) throws IOException;
+
+        /** A completed row of the current table. */
+        void tableRow(Element row, int columns) throws IOException;
+
+        /** The current table has completed. */
+        void endTable() throws IOException;
+    }
+
+    private static final Set<String> CONTAINERS =
+            new HashSet<>(Arrays.asList("div", "section", "article", "main", "header", "footer"));
+
+    private final Handler handler;
+    private Element currentTable;
+    private int columns;
+    private Element currentList;
+    private int listNumber;
+
+    private HtmlBlockStreamer(Handler handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * Parses {@code html} incrementally and reports its blocks to {@code handler}, checking
+     * {@code context} for cancellation before every element.
+     *
+     * @throws IOException              if the handler fails
+     * @throws ReportCancelledException if the report was cancelled during the traversal
+     */
+    static void stream(Reader html, Handler handler, RenderContext context)
+            throws IOException, ReportCancelledException {
+        HtmlBlockStreamer streamer = new HtmlBlockStreamer(handler);
+        try (StreamParser parser = new StreamParser(Parser.htmlParser()).parse(html, "")) {
+            Iterator<Element> elements = parser.iterator();
+            while (elements.hasNext()) {
+                context.checkCancelled();
+                streamer.completed(elements.next());
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Internal helpers
+    // -------------------------------------------------------------------------
+
+    private void completed(Element element) throws IOException {
+        Element parent = element.parent();
+        if (parent == null) {
+            return;
+        }
+        switch (element.normalName()) {
+            case "tr":
+                Element table = "table".equals(parent.normalName()) ? parent : parent.parent();
+                if (table != null && "table".equals(table.normalName()) && isTopLevel(table)) {
+                    tableRow(table, element);
+                    element.remove();
+                }
+                return;
+            case "li":
+                String listTag = parent.normalName();
+                if (("ul".equals(listTag) || "ol".equals(listTag)) && isTopLevel(parent)) {
+                    if (parent != currentList) {
+                        currentList = parent;
+                        listNumber = 1;
+                    }
+                    handler.listItem(element, "ol".equals(listTag), listNumber++);
+                    element.remove();
+                    return;
+                }
+                break;
+            default:
+                break;
+        }
+        if (!isTopLevel(element)) {
+            return;
+        }
+        switch (element.normalName()) {
+            case "table":
+                if (element == currentTable && columns > 0) {
+                    handler.endTable();
+                }
+                currentTable = null;
+                break;
+            case "ul": case "ol":
+                currentList = null;
+                break;
+            default:
+                if (!CONTAINERS.contains(element.normalName())) {
+                    handler.block(element);
+                }
+        }
+        element.remove();
+    }
+
+    private void tableRow(Element table, Element row) throws IOException {
+        if (table != currentTable) {
+            currentTable = table;
+            columns = countCells(row);
+            if (columns > 0) {
+                handler.startTable(columns);
+            }
+        }
+        if (columns > 0) {
+            handler.tableRow(row, columns);
+        }
+    }
+
+    /** Returns {@code true} if every ancestor of {@code element} below {@code <body>} is a container. */
+    private static boolean isTopLevel(Element element) {
+        for (Element ancestor = element.parent(); ancestor != null; ancestor = ancestor.parent()) {
+            String tag = ancestor.normalName();
+            if ("body".equals(tag)) {
+                return true;
+            }
+            if (!CONTAINERS.contains(tag)) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    static boolean isCell(Element element) {
+        String tag = element.normalName();
+        return "td".equals(tag) || "th".equals(tag);
+    }
+
+    private static int countCells(Element row) {
+        int count = 0;
+        for (Element child : row.children()) {
+            if (isCell(child)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
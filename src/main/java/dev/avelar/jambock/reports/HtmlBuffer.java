@@ -0,0 +1,133 @@
+package dev.avelar.jambock.reports;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Growable buffer for the HTML produced by the template stage. Characters are kept in fixed-size
+ * chunks, so growing never copies what has already been written, and the built-in renderers read
+ * the document back through {@link #reader(CharSequence)} without turning it into a {@link String}.
+ * The chunks are {@link StringBuilder}s so that, like strings, ASCII output takes one byte per
+ * character on Java 9+.
+ *
+ * <p>Renderers that need a {@code String} call {@link #toString()}, which builds it once and shares
+ * it between callers. The buffer is written by one thread; once the template stage has finished it
+ * may be read by several renderers concurrently.
+ */
+final class HtmlBuffer extends Writer implements CharSequence {
+
+    private static final int CHUNK_SIZE = 16 * 1024;
+
+    private final List<StringBuilder> chunks = new ArrayList<>();
+    private int length;
+    private String string;
+
+    @Override
+    public void write(int c) {
+        chunk().append((char) c);
+        length++;
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) {
+        while (len > 0) {
+            StringBuilder chunk = chunk();
+            int n = Math.min(len, CHUNK_SIZE - chunk.length());
+            chunk.append(cbuf, off, n);
+            length += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) {
+        while (len > 0) {
+            StringBuilder chunk = chunk();
+            int n = Math.min(len, CHUNK_SIZE - chunk.length());
+            chunk.append(str, off, off + n);
+            length += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("index " + index + ", length " + length);
+        }
+        return chunks.get(index / CHUNK_SIZE).charAt(index % CHUNK_SIZE);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().substring(start, end);
+    }
+
+    /** Returns the document as a string, copying the chunks on the first call only. */
+    @Override
+    public synchronized String toString() {
+        if (string == null) {
+            StringBuilder builder = new StringBuilder(length);
+            for (StringBuilder chunk : chunks) {
+                builder.append(chunk);
+            }
+            string = builder.toString();
+        }
+        return string;
+    }
+
+    /**
+     * Returns a reader over {@code html} that does not copy an {@code HtmlBuffer}. Every call returns
+     * an independent reader.
+     */
+    static Reader reader(CharSequence html) {
+        return html instanceof HtmlBuffer ? ((HtmlBuffer) html).new ChunkReader() : new StringReader(html.toString());
+    }
+
+    /** Returns the chunk to append to, starting a new one when the last is full. */
+    private StringBuilder chunk() {
+        if (length % CHUNK_SIZE == 0) {
+            chunks.add(new StringBuilder(CHUNK_SIZE));
+        }
+        return chunks.get(chunks.size() - 1);
+    }
+
+    private final class ChunkReader extends Reader {
+
+        private int position;
+
+        @Override
+        public int read(char[] cbuf, int off, int len) {
+            if (position >= length) {
+                return -1;
+            }
+            int offset = position % CHUNK_SIZE;
+            int n = Math.min(len, Math.min(CHUNK_SIZE - offset, length - position));
+            chunks.get(position / CHUNK_SIZE).getChars(offset, offset + n, cbuf, off);
+            position += n;
+            return n;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package dev.avelar.jambock.reports;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.DataNode;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Entities;
+import org.jsoup.nodes.Node;
+import org.jsoup.nodes.TextNode;
+import org.jsoup.parser.Parser;
+import org.jsoup.select.Elements;
+import org.jsoup.select.Selector;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Splits a report into independently renderable segments for {@link PdfOutputRenderer}'s
+ * segmented mode.
+ *
+ * <p>Boundaries are the top-level {@code <body>} children that carry a {@code data-jambock-segment}
+ * attribute or an inline {@code page-break-before: always} / {@code break-before: page} style.
+ * Every segment receives a copy of the document head and of the running elements — top-level
+ * elements marked {@code data-jambock-running}, styled inline with {@code position: running(...)}
+ * or matched by a {@code <style>} rule that sets it — so page headers and footers appear on every
+ * page. Adjacent chunks are grouped so that at most {@code maxSegments} segments of similar size
+ * are produced. Documents whose running elements cannot be moved safely (nested, or selected by a
+ * rule jsoup cannot evaluate) are not segmented.
+ */
+final class HtmlSegmenter {
+
+    static final String SEGMENT_ATTRIBUTE = "data-jambock-segment";
+    static final String RUNNING_ATTRIBUTE = "data-jambock-running";
+
+    private static final Pattern PAGE_BREAK_BEFORE =
+            Pattern.compile("(?i)(page-break-before|break-before)\\s*:\\s*(always|page)");
+    private static final Pattern RUNNING_POSITION = Pattern.compile("(?i)position\\s*:\\s*running\\(");
+    private static final Pattern CSS_COMMENT = Pattern.compile("/\\*.*?\\*/", Pattern.DOTALL);
+    /** Innermost rule blocks, so rules nested in {@code @media} are found as well. */
+    private static final Pattern CSS_RULE = Pattern.compile("([^{}]+)\\{([^{}]*)}");
+    private static final String TOTAL_PAGES = "counter(pages)";
+
+    private HtmlSegmenter() {
+    }
+
+    /**
+     * Splits the XHTML document {@code html} into at most {@code maxSegments} documents. It is parsed
+     * as XML, like Flying Saucer does, so self-closing elements keep their meaning. Returns an empty
+     * list when the document has fewer than two top-level chunks, i.e. when segmenting would not
+     * help.
+     */
+    static List<Document> split(String html, int maxSegments) {
+        return split(Jsoup.parse(html, "", Parser.xmlParser()), maxSegments);
+    }
+
+    /**
+     * Splits an already parsed document. {@code document} is left untouched when an empty list is
+     * returned; otherwise its nodes are moved into the segments.
+     */
+    static List<Document> split(Document document, int maxSegments) {
+        document.outputSettings()
+                .syntax(Document.OutputSettings.Syntax.xml)
+                .escapeMode(Entities.EscapeMode.xhtml)
+                .prettyPrint(false);
+
+        Element body = document.body();
+        List<Element> styledRunning = new ArrayList<>();
+        for (String selector : runningSelectors(document)) {
+            Elements matches;
+            try {
+                matches = body.select(selector);
+            } catch (Selector.SelectorParseException e) {
+                return Collections.emptyList();
+            }
+            for (Element match : matches) {
+                if (match.parent() != body) {
+                    // only top-level elements can be copied into every segment
+                    return Collections.emptyList();
+                }
+                styledRunning.add(match);
+            }
+        }
+
+        List<Node> running = new ArrayList<>();
+        List<List<Node>> chunks = new ArrayList<>();
+        List<Node> current = new ArrayList<>();
+        for (Node node : new ArrayList<>(body.childNodes())) {
+            if (node instanceof Element && (isRunning((Element) node) || styledRunning.contains(node))) {
+                running.add(node);
+                continue;
+            }
+            if (node instanceof Element && isBoundary((Element) node) && hasContent(current)) {
+                chunks.add(current);
+                current = new ArrayList<>();
+            }
+            current.add(node);
+        }
+        if (hasContent(current)) {
+            chunks.add(current);
+        }
+        if (chunks.size() < 2 || maxSegments < 2) {
+            return Collections.emptyList();
+        }
+
+        body.empty();
+        List<Document> segments = new ArrayList<>();
+        for (List<Node> group : group(chunks, maxSegments)) {
+            Document segment = document.clone();
+            Element segmentBody = segment.body();
+            for (Node node : running) {
+                segmentBody.appendChild(node.clone());
+            }
+            for (Node node : group) {
+                segmentBody.appendChild(node);
+            }
+            segments.add(segment);
+        }
+        return segments;
+    }
+
+    /** Returns {@code true} if the segment's stylesheets refer to the total page count. */
+    static boolean usesTotalPages(Document segment) {
+        for (Element style : segment.select("style")) {
+            if (styleSheet(style).contains(TOTAL_PAGES)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Replaces {@code counter(pages)} in the segment's stylesheets with the page count of the whole
+     * merged document, which a single segment cannot know on its own.
+     */
+    static void resolveTotalPages(Document segment, int totalPages) {
+        for (Element style : segment.select("style")) {
+            for (DataNode data : style.dataNodes()) {
+                data.setWholeData(data.getWholeData().replace(TOTAL_PAGES, "\"" + totalPages + "\""));
+            }
+            // the XML parser keeps stylesheets as text
+            for (TextNode text : style.textNodes()) {
+                text.text(text.getWholeText().replace(TOTAL_PAGES, "\"" + totalPages + "\""));
+            }
+        }
+    }
+
+    /** Serialises a segment as XHTML, the input format of Flying Saucer. */
+    static String toXhtml(Document segment) {
+        return segment.outerHtml();
+    }
+
+    // -------------------------------------------------------------------------
+    // Internal helpers
+    // -------------------------------------------------------------------------
+
+    /** Groups consecutive chunks into at most {@code maxSegments} groups of similar HTML length. */
+    private static List<List<Node>> group(List<List<Node>> chunks, int maxSegments) {
+        long[] lengths = new long[chunks.size()];
+        long total = 0;
+        for (int i = 0; i < chunks.size(); i++) {
+            for (Node node : chunks.get(i)) {
+                lengths[i] += node.outerHtml().length();
+            }
+            total += lengths[i];
+        }
+        long target = Math.max(1, total / maxSegments);
+
+        List<List<Node>> groups = new ArrayList<>();
+        List<Node> group = new ArrayList<>();
+        long groupLength = 0;
+        for (int i = 0; i < chunks.size(); i++) {
+            group.addAll(chunks.get(i));
+            groupLength += lengths[i];
+            int remainingChunks = chunks.size() - i - 1;
+            int remainingSlots = maxSegments - groups.size() - 1;
+            if (remainingChunks > 0 && remainingSlots > 0 && groupLength >= target) {
+                groups.add(group);
+                group = new ArrayList<>();
+                groupLength = 0;
+            }
+        }
+        groups.add(group);
+        return groups;
+    }
+
+    /** Returns the selectors of the {@code <style>} rules that declare {@code position: running(...)}. */
+    private static List<String> runningSelectors(Document document) {
+        List<String> selectors = new ArrayList<>();
+        for (Element style : document.select("style")) {
+            String css = CSS_COMMENT.matcher(styleSheet(style)).replaceAll("");
+            Matcher rule = CSS_RULE.matcher(css);
+            while (rule.find()) {
+                if (RUNNING_POSITION.matcher(rule.group(2)).find()) {
+                    // drop statements such as @import that precede the rule
+                    String selectorText = rule.group(1).substring(rule.group(1).lastIndexOf(';') + 1);
+                    for (String selector : selectorText.split(",")) {
+                        if (!selector.trim().isEmpty()) {
+                            selectors.add(selector.trim());
+                        }
+                    }
+                }
+            }
+        }
+        return selectors;
+    }
+
+    /** Returns the content of a {@code <style>} element, which is data for HTML and text for XML. */
+    private static String styleSheet(Element style) {
+        return style.data() + style.ownText();
+    }
+
+    private static boolean isBoundary(Element element) {
+        return element.hasAttr(SEGMENT_ATTRIBUTE) || PAGE_BREAK_BEFORE.matcher(element.attr("style")).find();
+    }
+
+    private static boolean isRunning(Element element) {
+        return element.hasAttr(RUNNING_ATTRIBUTE) || RUNNING_POSITION.matcher(element.attr("style")).find();
+    }
+
+    private static boolean hasContent(List<Node> nodes) {
+        for (Node node : nodes) {
+            if (node instanceof Element || !node.outerHtml().trim().isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,38 @@
+package dev.avelar.jambock.reports;
+
+/**
+ * Transformation applied to the rendered HTML before an output renderer lays it out, e.g. to
+ * restructure markup that is expensive for the layout engine without changing how it looks.
+ *
+ * <p>Register transformers with {@link PdfOutputRenderer#withHtmlTransformer(HtmlTransformer)};
+ * they run in registration order. The built-in {@link TableSplitter} splits oversized tables.
+ * Implementations must be thread-safe. Their {@code toString()} is part of the renderer's
+ * {@linkplain OutputRenderer#cacheKey() cache key}, so transformers with settings should include
+ * them there.
+ */
+@FunctionalInterface
+public interface HtmlTransformer {
+
+    /**
+     * Transforms a complete HTML document.
+     *
+     * @param html the HTML produced by the template engine or by a previous transformer
+     * @return the transformed HTML, or {@code html} itself if nothing had to change
+     * @throws ReportGenerationException if the document cannot be transformed
+     */
+    String transform(String html) throws ReportGenerationException;
+
+    /**
+     * Transforms a complete document, knowing whether the renderer parses it as lenient HTML5 or as
+     * well-formed XHTML. Transformers that parse the markup should override this to choose the
+     * matching parser; the default ignores the flag.
+     *
+     * @param html  the HTML produced by the template engine or by a previous transformer
+     * @param html5 {@code true} if the renderer parses the document as HTML5
+     * @return the transformed HTML, or {@code html} itself if nothing had to change
+     * @throws ReportGenerationException if the document cannot be transformed
+     */
+    default String transform(String html, boolean html5) throws ReportGenerationException {
+        return transform(html);
+    }
+}
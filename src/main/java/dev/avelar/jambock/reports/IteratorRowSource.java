@@ -0,0 +1,82 @@
+package dev.avelar.jambock.reports;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * {@link RowSource} over an iterator, optionally closing an underlying resource such as a
+ * {@link java.util.stream.Stream}.
+ *
+ * <p>Every call to {@link #iterator()} returns a view of the same cursor, so template engines may
+ * look the source up several times; asking for a new iterator after rows have been read fails.
+ */
+final class IteratorRowSource<T> implements RowSource<T> {
+
+    private final Iterator<? extends T> rows;
+    private final AutoCloseable resource;
+    private volatile boolean started;
+
+    IteratorRowSource(Iterator<? extends T> rows, AutoCloseable resource) {
+        this.rows = Objects.requireNonNull(rows, "rows");
+        this.resource = resource;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        if (started) {
+            throw new IllegalStateException("RowSource has already been consumed; it can only be iterated once");
+        }
+        return new Iterator<T>() {
+            @Override
+            public boolean hasNext() {
+                CancellationToken.checkCurrent();
+                return rows.hasNext();
+            }
+
+            @Override
+            public T next() {
+                if (!rows.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                started = true;
+                return rows.next();
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        if (resource == null) {
+            return;
+        }
+        try {
+            resource.close();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to close row source: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns {@code data} with every top-level {@link Stream} replaced by a row source, so that a
+     * template may look the variable up more than once (a stream hands out a single iterator).
+     * Returns {@code data} itself when there is nothing to adapt.
+     */
+    static Map<String, Object> adaptModel(Map<String, Object> data) {
+        Map<String, Object> adapted = null;
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            if (entry.getValue() instanceof Stream) {
+                if (adapted == null) {
+                    adapted = new HashMap<>(data);
+                }
+                adapted.put(entry.getKey(), RowSource.of((Stream<?>) entry.getValue()));
+            }
+        }
+        return adapted != null ? adapted : data;
+    }
+}
@@ -0,0 +1,265 @@
+package dev.avelar.jambock.reports;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * {@link ReportMetricsListener} that aggregates metrics per template in lock-free histograms and
+ * exposes them as JMX MXBeans, without any metrics library on the classpath.
+ *
+ * <p>One {@link TemplateMetricsMXBean} is registered per template name, the first time a report for
+ * that template finishes, under
+ * {@code dev.avelar.jambock:type=ReportMetrics,template="<template name>"}.
+ *
+ * <pre>{@code
+ * JmxReportMetricsListener metrics = new JmxReportMetricsListener();
+ * engine.addMetricsListener(metrics);
+ * }</pre>
+ */
+public class JmxReportMetricsListener implements ReportMetricsListener, AutoCloseable {
+
+    /** JMX domain used by the no-argument constructor. */
+    public static final String DEFAULT_DOMAIN = "dev.avelar.jambock";
+
+    private static final Logger logger = Logger.getLogger(JmxReportMetricsListener.class.getName());
+    private static final String UNKNOWN_TEMPLATE = "(unknown)";
+
+    private final MBeanServer server;
+    private final String domain;
+    private final ConcurrentMap<String, TemplateMetrics> templates = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a listener that registers its MXBeans with the platform MBean server under
+     * {@link #DEFAULT_DOMAIN}.
+     */
+    public JmxReportMetricsListener() {
+        this(ManagementFactory.getPlatformMBeanServer(), DEFAULT_DOMAIN);
+    }
+
+    /**
+     * Creates a listener that registers its MXBeans with the given server and domain. Use distinct
+     * domains when several engines report into the same server.
+     *
+     * @param server the MBean server to register with
+     * @param domain the JMX domain of the registered MXBeans
+     */
+    public JmxReportMetricsListener(MBeanServer server, String domain) {
+        this.server = server;
+        this.domain = domain;
+    }
+
+    @Override
+    public void onReportGenerated(ReportMetrics metrics) {
+        metricsFor(metrics.getTemplateName()).record(metrics, false);
+    }
+
+    @Override
+    public void onReportFailed(ReportMetrics metrics, ReportGenerationException error) {
+        metricsFor(metrics.getTemplateName()).record(metrics, true);
+    }
+
+    /**
+     * Returns the metrics collected for a template.
+     *
+     * @param templateName the template name
+     * @return the template metrics, or {@code null} if no report for that template has finished yet
+     */
+    public TemplateMetricsMXBean getTemplateMetrics(String templateName) {
+        return templates.get(templateName != null ? templateName : UNKNOWN_TEMPLATE);
+    }
+
+    /**
+     * Unregisters every MXBean registered by this listener.
+     */
+    @Override
+    public void close() {
+        for (TemplateMetrics metrics : templates.values()) {
+            try {
+                if (server.isRegistered(metrics.objectName)) {
+                    server.unregisterMBean(metrics.objectName);
+                }
+            } catch (JMException e) {
+                logger.log(Level.WARNING, "Failed to unregister " + metrics.objectName, e);
+            }
+        }
+        templates.clear();
+    }
+
+    // -------------------------------------------------------------------------
+    // Internal helpers
+    // -------------------------------------------------------------------------
+
+    private TemplateMetrics metricsFor(String templateName) {
+        String name = templateName != null ? templateName : UNKNOWN_TEMPLATE;
+        TemplateMetrics metrics = templates.get(name);
+        if (metrics == null) {
+            TemplateMetrics created = new TemplateMetrics(name, objectNameFor(name));
+            metrics = templates.putIfAbsent(name, created);
+            if (metrics == null) {
+                metrics = created;
+                register(created);
+            }
+        }
+        return metrics;
+    }
+
+    private ObjectName objectNameFor(String templateName) {
+        try {
+            return new ObjectName(domain + ":type=ReportMetrics,template=" + ObjectName.quote(templateName));
+        } catch (MalformedObjectNameException e) {
+            throw new IllegalArgumentException("Invalid JMX domain '" + domain + "'", e);
+        }
+    }
+
+    private void register(TemplateMetrics metrics) {
+        try {
+            server.registerMBean(new StandardMBean(metrics, TemplateMetricsMXBean.class, true), metrics.objectName);
+        } catch (InstanceAlreadyExistsException e) {
+            logger.warning("JMX name already in use, metrics not exposed: " + metrics.objectName);
+        } catch (JMException e) {
+            logger.log(Level.WARNING, "Failed to register " + metrics.objectName, e);
+        }
+    }
+
+    private static double toMillis(long micros) {
+        return micros / 1000.0;
+    }
+
+    /**
+     * Aggregated metrics of one template. Durations are recorded in microseconds.
+     */
+    private static final class TemplateMetrics implements TemplateMetricsMXBean {
+        private final String templateName;
+        private final ObjectName objectName;
+
+        private final AtomicLong failures = new AtomicLong();
+        private final LatencyHistogram total = new LatencyHistogram();
+        private final LatencyHistogram template = new LatencyHistogram();
+        private final LatencyHistogram render = new LatencyHistogram();
+        private final LatencyHistogram write = new LatencyHistogram();
+        private final LatencyHistogram htmlLength = new LatencyHistogram();
+        private final LatencyHistogram outputBytes = new LatencyHistogram();
+        private final LatencyHistogram pageCount = new LatencyHistogram();
+
+        private TemplateMetrics(String templateName, ObjectName objectName) {
+            this.templateName = templateName;
+            this.objectName = objectName;
+        }
+
+        private void record(ReportMetrics metrics, boolean failed) {
+            if (failed) {
+                failures.incrementAndGet();
+                return;
+            }
+            total.record(metrics.getTotalNanos() / 1000);
+            template.record(metrics.getTemplateNanos() / 1000);
+            render.record(metrics.getRenderNanos() / 1000);
+            write.record(metrics.getWriteNanos() / 1000);
+            htmlLength.record(metrics.getHtmlLength());
+            outputBytes.record(metrics.getOutputBytes());
+            if (metrics.getPageCount() != RenderContext.UNKNOWN_PAGE_COUNT) {
+                pageCount.record(metrics.getPageCount());
+            }
+        }
+
+        @Override
+        public String getTemplateName() {
+            return templateName;
+        }
+
+        @Override
+        public long getCount() {
+            return total.getCount();
+        }
+
+        @Override
+        public long getFailureCount() {
+            return failures.get();
+        }
+
+        @Override
+        public double getTotalMeanMillis() {
+            return total.getMean() / 1000.0;
+        }
+
+        @Override
+        public double getTotalP50Millis() {
+            return toMillis(total.getPercentile(50));
+        }
+
+        @Override
+        public double getTotalP99Millis() {
+            return toMillis(total.getPercentile(99));
+        }
+
+        @Override
+        public double getTotalMaxMillis() {
+            return toMillis(total.getMax());
+        }
+
+        @Override
+        public double getTemplateP50Millis() {
+            return toMillis(template.getPercentile(50));
+        }
+
+        @Override
+        public double getTemplateP99Millis() {
+            return toMillis(template.getPercentile(99));
+        }
+
+        @Override
+        public double getRenderP50Millis() {
+            return toMillis(render.getPercentile(50));
+        }
+
+        @Override
+        public double getRenderP99Millis() {
+            return toMillis(render.getPercentile(99));
+        }
+
+        @Override
+        public double getWriteP50Millis() {
+            return toMillis(write.getPercentile(50));
+        }
+
+        @Override
+        public double getWriteP99Millis() {
+            return toMillis(write.getPercentile(99));
+        }
+
+        @Override
+        public double getMeanHtmlLength() {
+            return htmlLength.getMean();
+        }
+
+        @Override
+        public double getMeanOutputBytes() {
+            return outputBytes.getMean();
+        }
+
+        @Override
+        public long getMaxOutputBytes() {
+            return outputBytes.getMax();
+        }
+
+        @Override
+        public double getMeanPageCount() {
+            return pageCount.getMean();
+        }
+
+        @Override
+        public long getMaxPageCount() {
+            return pageCount.getMax();
+        }
+    }
+}
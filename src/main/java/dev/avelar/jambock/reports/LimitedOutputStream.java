@@ -0,0 +1,56 @@
+package dev.avelar.jambock.reports;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Stream that fails as soon as the renderer writes more than {@code maxBytes} bytes, before the
+ * excess reaches the wrapped stream. Renderers wrap the resulting {@link IOException} in their own
+ * exceptions, so the {@link ReportLimitExceededException} is kept here for the engine to rethrow.
+ * {@link #close()} does not close the wrapped stream.
+ */
+final class LimitedOutputStream extends FilterOutputStream {
+
+    private final long maxBytes;
+    private long bytes;
+    private ReportLimitExceededException exceeded;
+
+    LimitedOutputStream(OutputStream out, long maxBytes) {
+        super(out);
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        count(1);
+        out.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        count(len);
+        out.write(b, off, len);
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+
+    /** Returns the exception of the exceeded limit, or {@code null} if the output stayed within it. */
+    ReportLimitExceededException getExceeded() {
+        return exceeded;
+    }
+
+    private void count(int len) throws IOException {
+        bytes += len;
+        if (bytes > maxBytes) {
+            if (exceeded == null) {
+                exceeded = new ReportLimitExceededException("Document exceeded the limit of " + maxBytes
+                        + " bytes", ReportLimitExceededException.Limit.OUTPUT_BYTES, maxBytes);
+            }
+            throw new IOException(exceeded.getMessage(), exceeded);
+        }
+    }
+}
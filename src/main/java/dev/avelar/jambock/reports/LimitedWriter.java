@@ -0,0 +1,57 @@
+package dev.avelar.jambock.reports;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writer that fails as soon as more than {@code maxChars} characters have been written, so a
+ * runaway template stops at the limit instead of filling the heap. The template engines only let
+ * an {@link IOException} through, so the {@link ReportLimitExceededException} is kept here for the
+ * engine to rethrow.
+ */
+final class LimitedWriter extends FilterWriter {
+
+    private final long maxChars;
+    private long chars;
+    private ReportLimitExceededException exceeded;
+
+    LimitedWriter(Writer out, long maxChars) {
+        super(out);
+        this.maxChars = maxChars;
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        count(1);
+        out.write(c);
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        count(len);
+        out.write(cbuf, off, len);
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        count(len);
+        out.write(str, off, len);
+    }
+
+    /** Returns the exception of the exceeded limit, or {@code null} if the output stayed within it. */
+    ReportLimitExceededException getExceeded() {
+        return exceeded;
+    }
+
+    private void count(int len) throws IOException {
+        chars += len;
+        if (chars > maxChars) {
+            if (exceeded == null) {
+                exceeded = new ReportLimitExceededException("Template produced more than " + maxChars
+                        + " characters of HTML", ReportLimitExceededException.Limit.HTML_CHARS, maxChars);
+            }
+            throw new IOException(exceeded.getMessage(), exceeded);
+        }
+    }
+}
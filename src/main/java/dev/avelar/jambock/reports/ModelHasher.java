@@ -0,0 +1,159 @@
+package dev.avelar.jambock.reports;
+
+import java.lang.reflect.Array;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Computes a stable SHA-256 digest of a report data model, independent of map iteration order and
+ * of the JVM instance, so that it can be used as a persistent cache key.
+ *
+ * <p>Only plain data is supported: {@code null}, strings, numbers, booleans, characters, enums,
+ * dates and {@code java.time} values, maps, collections and arrays of those. Any other value (for
+ * example a lazy iterator or an arbitrary bean) makes the model uncacheable and
+ * {@link #hash(Object...)} returns {@code null}.
+ */
+final class ModelHasher {
+
+    private static final int MAX_DEPTH = 64;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final MessageDigest digest;
+
+    private ModelHasher() {
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Returns the hex-encoded digest of the given values, or {@code null} if any of them contains
+     * a value that cannot be hashed stably.
+     */
+    static String hash(Object... values) {
+        ModelHasher hasher = new ModelHasher();
+        try {
+            for (Object value : values) {
+                hasher.update(value, 0);
+            }
+        } catch (UnhashableValueException e) {
+            return null;
+        }
+        return toHex(hasher.digest.digest());
+    }
+
+    static String toHex(byte[] bytes) {
+        char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            hex[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(hex);
+    }
+
+    private void update(Object value, int depth) {
+        if (depth > MAX_DEPTH) {
+            throw new UnhashableValueException();
+        }
+        if (value == null) {
+            tag('N');
+        } else if (value instanceof CharSequence) {
+            tag('S');
+            string(value.toString());
+        } else if (value instanceof Number || value instanceof Boolean || value instanceof Character
+                || value instanceof TemporalAccessor) {
+            tag('V');
+            string(value.getClass().getName());
+            string(value.toString());
+        } else if (value instanceof Date) {
+            tag('D');
+            string(value.getClass().getName());
+            string(Long.toString(((Date) value).getTime()));
+        } else if (value instanceof Enum) {
+            tag('E');
+            string(((Enum<?>) value).getDeclaringClass().getName());
+            string(((Enum<?>) value).name());
+        } else if (value instanceof Map) {
+            updateMap((Map<?, ?>) value, depth);
+        } else if (value instanceof Set) {
+            updateSet((Set<?>) value, depth);
+        } else if (value instanceof Collection) {
+            Collection<?> collection = (Collection<?>) value;
+            tag('L');
+            string(Integer.toString(collection.size()));
+            for (Object element : collection) {
+                update(element, depth + 1);
+            }
+        } else if (value.getClass().isArray()) {
+            int length = Array.getLength(value);
+            tag('A');
+            string(Integer.toString(length));
+            for (int i = 0; i < length; i++) {
+                update(Array.get(value, i), depth + 1);
+            }
+        } else {
+            throw new UnhashableValueException();
+        }
+    }
+
+    /** Map entries are hashed in the order of their keys' own digests, so iteration order does not matter. */
+    private void updateMap(Map<?, ?> map, int depth) {
+        TreeMap<String, Object> sorted = new TreeMap<>();
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            String keyHash = hash(entry.getKey());
+            if (keyHash == null) {
+                throw new UnhashableValueException();
+            }
+            sorted.put(keyHash, entry.getValue());
+        }
+        tag('M');
+        string(Integer.toString(sorted.size()));
+        for (Map.Entry<String, Object> entry : sorted.entrySet()) {
+            string(entry.getKey());
+            update(entry.getValue(), depth + 1);
+        }
+    }
+
+    private void updateSet(Set<?> set, int depth) {
+        List<String> hashes = new ArrayList<>(set.size());
+        for (Object element : set) {
+            ModelHasher hasher = new ModelHasher();
+            hasher.update(element, depth + 1);
+            hashes.add(toHex(hasher.digest.digest()));
+        }
+        hashes.sort(null);
+        tag('T');
+        string(Integer.toString(hashes.size()));
+        for (String hash : hashes) {
+            string(hash);
+        }
+    }
+
+    private void tag(char tag) {
+        digest.update((byte) tag);
+    }
+
+    private void string(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int length = bytes.length;
+        digest.update(new byte[]{(byte) (length >>> 24), (byte) (length >>> 16), (byte) (length >>> 8), (byte) length});
+        digest.update(bytes);
+    }
+
+    private static final class UnhashableValueException extends RuntimeException {
+        UnhashableValueException() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package dev.avelar.jambock.reports;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Shields a caller-owned {@link OutputStream} from libraries that close the stream they are given
+ * (Apache POI closes its zip stream on {@code write}). {@link #close()} only flushes.
+ */
+final class NonClosingOutputStream extends FilterOutputStream {
+
+    NonClosingOutputStream(OutputStream out) {
+        super(out);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+}
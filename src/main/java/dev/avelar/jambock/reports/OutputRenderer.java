@@ -1,5 +1,8 @@
 package dev.avelar.jambock.reports;
 
+import java.io.IOException;
+import java.io.OutputStream;
+
 /**
  * Strategy interface for converting a rendered HTML string into a final output format
  * (e.g. PDF, DOCX, HTML).
@@ -20,6 +23,85 @@ public interface OutputRenderer {
      * @throws ReportGenerationException if rendering fails
      */
     byte[] render(String html) throws ReportGenerationException;
-}
 
+    /**
+     * Renders the given HTML string into the target output format, writing the document directly
+     * to {@code out} instead of returning it as an array.
+     *
+     * <p>The stream is not closed. The default implementation falls back to {@link #render(String)};
+     * the built-in renderers override it so the document is never buffered in full.
+     *
+     * @param html the fully-rendered HTML string produced by a {@link TemplateEngine}
+     * @param out  the destination for the output document
+     * @throws ReportGenerationException if rendering or writing to {@code out} fails
+     */
+    default void render(String html, OutputStream out) throws ReportGenerationException {
+        byte[] output = render(html);
+        try {
+            out.write(output);
+        } catch (IOException e) {
+            throw new ReportGenerationException("Failed to write rendered output: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Renders the given HTML string into the target output format as part of a report generated
+     * by {@link ReportEngine}. Renderers may record facts about the render, such as the page count,
+     * in {@code context}.
+     *
+     * <p>The default implementation ignores the context and delegates to
+     * {@link #render(String, OutputStream)}.
+     *
+     * @param html    the fully-rendered HTML string produced by a {@link TemplateEngine}
+     * @param out     the destination for the output document
+     * @param context the per-request render context
+     * @throws ReportGenerationException if rendering or writing to {@code out} fails
+     */
+    default void render(String html, OutputStream out, RenderContext context) throws ReportGenerationException {
+        render(html, out);
+    }
+
+    /**
+     * Renders HTML held in a {@link CharSequence}, such as the buffer {@link ReportEngine} collects
+     * the template output in. The built-in renderers override it to parse the characters in place;
+     * the default implementation converts them to a {@code String} once and delegates to
+     * {@link #render(String, OutputStream, RenderContext)}.
+     *
+     * @param html    the fully-rendered HTML produced by a {@link TemplateEngine}
+     * @param out     the destination for the output document
+     * @param context the per-request render context
+     * @throws ReportGenerationException if rendering or writing to {@code out} fails
+     */
+    default void render(CharSequence html, OutputStream out, RenderContext context)
+            throws ReportGenerationException {
+        render(html.toString(), out, context);
+    }
 
+    /**
+     * Returns a string that identifies everything about this renderer that affects its output. It is
+     * part of the {@link ReportCache} key, so two renderers may share cached reports only if their
+     * keys are equal.
+     *
+     * <p>The default implementation returns the class name, which is correct for renderers without
+     * settings. Configurable renderers must include their settings.
+     *
+     * @return the cache discriminator of this renderer
+     */
+    default String cacheKey() {
+        return getClass().getName();
+    }
+
+    /**
+     * Initialises the rendering pipeline ahead of the first real request: loads the classes of the
+     * underlying library, reads fonts and fills any pools.
+     *
+     * <p>The default implementation renders a tiny document and discards the result. Renderers that
+     * keep a pool override it to fill the pool as well.
+     *
+     * @throws ReportGenerationException if the pipeline cannot be initialised
+     */
+    default void warmUp() throws ReportGenerationException {
+        render("<html><head><title>warm-up</title></head><body><h1>Warm-up</h1><p>Warm-up</p>"
+                + "<table><tr><th>A</th></tr><tr><td>1</td></tr></table></body></html>");
+    }
+}
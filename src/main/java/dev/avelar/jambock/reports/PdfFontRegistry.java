@@ -0,0 +1,235 @@
+package dev.avelar.jambock.reports;
+
+import com.lowagie.text.pdf.BaseFont;
+import org.xhtmlrenderer.pdf.ITextFontResolver;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Registry of fonts made available to every PDF produced by a {@link PdfOutputRenderer}.
+ *
+ * <p>Fonts and font directories are registered once, typically at application startup. Each font
+ * file is parsed eagerly at registration, so a broken font fails fast. Every file, including those
+ * found in a directory, is registered with the {@code Identity-H} encoding. Flying Saucer still
+ * loads each file through OpenPDF's process-wide {@link BaseFont} cache, but the renderers lay out
+ * and write with font instances owned by the registry, so the subsetting policy of one registry
+ * never leaks into other registries or into renderers without a registry. A single registry can be
+ * shared by any number of renderers.
+ *
+ * <p>The registry is applied to a renderer's font resolver when the {@code ITextRenderer} is
+ * created. Combined with {@link PdfOutputRenderer#withRendererPool(int, long, java.util.concurrent.TimeUnit)}
+ * this means fonts are resolved once per pooled renderer rather than once per report.
+ *
+ * <pre>{@code
+ * PdfFontRegistry fonts = new PdfFontRegistry()
+ *         .registerFont("/opt/fonts/Inter-Regular.ttf")
+ *         .registerFontDirectory("/opt/fonts/noto")
+ *         .withSubsetting(true);
+ * PdfOutputRenderer pdf = new PdfOutputRenderer().withFontRegistry(fonts);
+ * }</pre>
+ */
+public final class PdfFontRegistry {
+
+    private final List<String> fontPaths = new CopyOnWriteArrayList<>();
+    private final List<String> fontDirectories = new CopyOnWriteArrayList<>();
+    private volatile boolean embedded = true;
+    private volatile boolean subset = true;
+    /** Font instances of this registry, one per file and policy; never modified once created. */
+    private final Map<String, BaseFont> fonts = new ConcurrentHashMap<>();
+
+    /**
+     * Registers a single TrueType / OpenType font file.
+     *
+     * @param path the path of the font file
+     * @return this registry for method chaining
+     * @throws ReportGenerationException if the font cannot be read or parsed
+     */
+    public PdfFontRegistry registerFont(String path) throws ReportGenerationException {
+        preload(path);
+        fontPaths.add(path);
+        return this;
+    }
+
+    /**
+     * Registers every TrueType / OpenType font found directly in the given directory.
+     *
+     * @param directory the path of the font directory
+     * @return this registry for method chaining
+     * @throws ReportGenerationException if the path is not a directory or one of its fonts cannot be parsed
+     */
+    public PdfFontRegistry registerFontDirectory(String directory) throws ReportGenerationException {
+        File dir = new File(directory);
+        File[] files = dir.listFiles();
+        if (files == null) {
+            throw new ReportGenerationException("Font directory does not exist or is not readable: " + directory);
+        }
+        for (File file : files) {
+            if (isFontFile(file)) {
+                preload(file.getAbsolutePath());
+            }
+        }
+        fontDirectories.add(directory);
+        return this;
+    }
+
+    /**
+     * Controls whether registered fonts are embedded in the generated PDFs (default {@code true}).
+     *
+     * @param embedded {@code true} to embed registered fonts
+     * @return this registry for method chaining
+     */
+    public PdfFontRegistry withEmbedding(boolean embedded) {
+        this.embedded = embedded;
+        return this;
+    }
+
+    /**
+     * Controls font subsetting (default {@code true}). Subsetting embeds only the glyphs a document
+     * actually uses, which keeps PDFs small at the cost of extra CPU while writing; disabling it
+     * embeds complete font programs, which is faster to write but produces larger files.
+     *
+     * @param subset {@code true} to subset embedded fonts
+     * @return this registry for method chaining
+     */
+    public PdfFontRegistry withSubsetting(boolean subset) {
+        this.subset = subset;
+        return this;
+    }
+
+    /**
+     * Returns the registered font files.
+     *
+     * @return a snapshot of the registered font paths
+     */
+    public List<String> getFontPaths() {
+        return new ArrayList<>(fontPaths);
+    }
+
+    /**
+     * Returns the registered font directories.
+     *
+     * @return a snapshot of the registered directory paths
+     */
+    public List<String> getFontDirectories() {
+        return new ArrayList<>(fontDirectories);
+    }
+
+    /**
+     * Returns whether registered fonts are embedded.
+     *
+     * @return {@code true} if fonts are embedded
+     */
+    public boolean isEmbedded() {
+        return embedded;
+    }
+
+    /**
+     * Returns whether embedded fonts are subset.
+     *
+     * @return {@code true} if fonts are subset
+     */
+    public boolean isSubset() {
+        return subset;
+    }
+
+    /**
+     * Registers all fonts with the given resolver and applies the embedding and subsetting policy.
+     *
+     * <p>Font files are added one at a time, and the descriptions each call creates are switched to
+     * this registry's instance of that file, which already carries the subsetting policy. Fonts the
+     * resolver knows from elsewhere are left untouched.
+     */
+    void applyTo(ITextFontResolver resolver) throws IOException {
+        boolean embedded = this.embedded;
+        boolean subset = this.subset;
+        List<String> files = new ArrayList<>(fontPaths);
+        for (String directory : fontDirectories) {
+            File[] entries = new File(directory).listFiles();
+            if (entries != null) {
+                for (File file : entries) {
+                    if (isFontFile(file)) {
+                        files.add(file.getAbsolutePath());
+                    }
+                }
+            }
+        }
+        for (String path : files) {
+            Set<ITextFontResolver.FontDescription> known = descriptionsOf(resolver);
+            resolver.addFont(path, BaseFont.IDENTITY_H, embedded);
+            BaseFont font = fontFor(path, embedded, subset);
+            for (ITextFontResolver.FontFamily family : resolver.getFonts().values()) {
+                ListIterator<ITextFontResolver.FontDescription> descriptions =
+                        family.getFontDescriptions().listIterator();
+                while (descriptions.hasNext()) {
+                    ITextFontResolver.FontDescription description = descriptions.next();
+                    if (!known.contains(description)) {
+                        // created by the call above, so it describes this path with Identity-H
+                        descriptions.set(copyWithFont(description, font));
+                    }
+                }
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Internal helpers
+    // -------------------------------------------------------------------------
+
+    private void preload(String path) throws ReportGenerationException {
+        try {
+            fontFor(path, embedded, subset);
+        } catch (IOException | RuntimeException e) {
+            throw new ReportGenerationException("Failed to load font '" + path + "': " + e.getMessage(), e);
+        }
+    }
+
+    /** Returns this registry's instance of the font at {@code path} for the given policy. */
+    private BaseFont fontFor(String path, boolean embedded, boolean subset) throws IOException {
+        String key = path + '|' + embedded + '|' + subset;
+        BaseFont font = fonts.get(key);
+        if (font == null) {
+            font = BaseFont.createFont(path, BaseFont.IDENTITY_H, embedded, false, null, null);
+            font.setSubset(subset);
+            BaseFont existing = fonts.putIfAbsent(key, font);
+            if (existing != null) {
+                font = existing;
+            }
+        }
+        return font;
+    }
+
+    private static Set<ITextFontResolver.FontDescription> descriptionsOf(ITextFontResolver resolver) {
+        Set<ITextFontResolver.FontDescription> descriptions = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (ITextFontResolver.FontFamily family : resolver.getFonts().values()) {
+            descriptions.addAll(family.getFontDescriptions());
+        }
+        return descriptions;
+    }
+
+    private static ITextFontResolver.FontDescription copyWithFont(ITextFontResolver.FontDescription description,
+                                                                  BaseFont font) {
+        ITextFontResolver.FontDescription copy =
+                new ITextFontResolver.FontDescription(font, description.getStyle(), description.getWeight());
+        copy.setUnderlinePosition(description.getUnderlinePosition());
+        copy.setUnderlineThickness(description.getUnderlineThickness());
+        copy.setYStrikeoutPosition(description.getYStrikeoutPosition());
+        copy.setYStrikeoutSize(description.getYStrikeoutSize());
+        return copy;
+    }
+
+    private static boolean isFontFile(File file) {
+        String name = file.getName().toLowerCase(Locale.ROOT);
+        return file.isFile() && (name.endsWith(".ttf") || name.endsWith(".otf"));
+    }
+}
@@ -1,18 +1,185 @@
 package dev.avelar.jambock.reports;
 
+import com.lowagie.text.Document;
+import com.lowagie.text.pdf.PdfCopy;
+import com.lowagie.text.pdf.PdfReader;
+import org.jsoup.Jsoup;
+import org.jsoup.helper.W3CDom;
+import org.jsoup.parser.Parser;
+import org.xhtmlrenderer.layout.SharedContext;
 import org.xhtmlrenderer.pdf.ITextRenderer;
+import org.xhtmlrenderer.resource.XMLResource;
+import org.xml.sax.InputSource;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * {@link OutputRenderer} implementation that converts HTML to PDF using
  * <a href="https://flyingsaucerproject.github.io/flyingsaucer/">Flying Saucer</a>.
  *
  * <p>This is the default renderer used by {@link ReportEngine}.
+ *
+ * <p>By default a new {@link ITextRenderer} is created for every report. Call
+ * {@link #withRendererPool(int, long, TimeUnit)} to reuse a bounded set of warmed renderers instead:
+ * <pre>{@code
+ * PdfOutputRenderer pdf = new PdfOutputRenderer().withRendererPool(8, 5, TimeUnit.MINUTES);
+ * ReportEngine engine = new ReportEngine(new FreemarkerTemplateEngine(), pdf);
+ * }</pre>
+ *
+ * <p>Very long documents can be laid out in parallel with
+ * {@link #withSegmentedRendering(Executor, int)}. Templates that emit HTML5 rather than
+ * well-formed XHTML are supported with {@link #withHtml5Parsing()}.
+ *
+ * <p>Configuration methods must be called before the renderer is first used; afterwards the
+ * renderer is safe to share across threads.
  */
 public class PdfOutputRenderer implements OutputRenderer {
 
+    /** W3C DOM converters, one per thread because the XML parser factory they hold is not thread-safe. */
+    private static final ThreadLocal<W3CDom> W3C_DOM = ThreadLocal.withInitial(W3CDom::new);
+
+    private PdfRendererPool rendererPool;
+    private PdfFontRegistry fontRegistry;
+    private PdfResourceCache resourceCache;
+    private final List<HtmlTransformer> htmlTransformers = new ArrayList<>();
+    private Executor segmentExecutor;
+    private int maxSegments;
+    private boolean html5Parsing;
+
+    /**
+     * Registers the fonts of the given registry with every {@link ITextRenderer} this renderer
+     * creates. When pooling is enabled the fonts are resolved once per pooled renderer.
+     *
+     * @param fontRegistry the font registry to apply
+     * @return this renderer for method chaining
+     */
+    public PdfOutputRenderer withFontRegistry(PdfFontRegistry fontRegistry) {
+        this.fontRegistry = fontRegistry;
+        return this;
+    }
+
+    /**
+     * Serves images, stylesheets and other resources referenced by templates from the given cache
+     * instead of fetching and decoding them again for every report. The cache can be shared by
+     * several renderers.
+     *
+     * @param resourceCache the resource cache to use
+     * @return this renderer for method chaining
+     */
+    public PdfOutputRenderer withResourceCache(PdfResourceCache resourceCache) {
+        this.resourceCache = resourceCache;
+        return this;
+    }
+
+    /**
+     * Returns the resource cache, or {@code null} if none is configured.
+     *
+     * @return the resource cache used by this renderer
+     */
+    public PdfResourceCache getResourceCache() {
+        return resourceCache;
+    }
+
+    /**
+     * Returns the font registry, or {@code null} if none is configured.
+     *
+     * @return the font registry used by this renderer
+     */
+    public PdfFontRegistry getFontRegistry() {
+        return fontRegistry;
+    }
+
+    /**
+     * Enables renderer pooling. At most {@code maxSize} {@link ITextRenderer}s are kept alive and
+     * reused across reports; renderers idle for longer than {@code maxIdle} are evicted.
+     * A non-positive {@code maxIdle} disables idle eviction.
+     *
+     * @param maxSize the maximum number of pooled renderers (and concurrent PDF renders)
+     * @param maxIdle the idle time after which a pooled renderer is dropped
+     * @param unit    the unit of {@code maxIdle}
+     * @return this renderer for method chaining
+     */
+    public PdfOutputRenderer withRendererPool(int maxSize, long maxIdle, TimeUnit unit) {
+        this.rendererPool = new PdfRendererPool(this::createRenderer, maxSize, maxIdle, unit);
+        return this;
+    }
+
+    /**
+     * Adds a transformation applied to the HTML before layout, e.g. a {@link TableSplitter}.
+     * Transformers run in the order they were added.
+     *
+     * @param transformer the transformer to add
+     * @return this renderer for method chaining
+     */
+    public PdfOutputRenderer withHtmlTransformer(HtmlTransformer transformer) {
+        htmlTransformers.add(transformer);
+        return this;
+    }
+
+    /**
+     * Enables segmented rendering for long documents. The HTML is split at top-level section
+     * boundaries — {@code <body>} children marked with a {@code data-jambock-segment} attribute or
+     * with an inline {@code page-break-before: always} style — into at most {@code maxSegments}
+     * segments that are laid out in parallel on {@code executor} and merged into one PDF.
+     *
+     * <p>Page numbers continue across segments, and {@code counter(pages)} in {@code <style>}
+     * elements resolves to the page count of the merged document (this costs a second layout of
+     * each segment). Running headers and footers must be top-level elements, marked with
+     * {@code data-jambock-running} or styled inline with {@code position: running(...)}, so they
+     * can be copied into every segment. Documents without boundaries are rendered as usual.
+     * Segment renderers are created per report and never taken from the renderer pool.
+     *
+     * @param executor    the executor that lays out segments, e.g. a pool sized to the CPU count
+     * @param maxSegments the maximum number of segments per document
+     * @return this renderer for method chaining
+     */
+    public PdfOutputRenderer withSegmentedRendering(Executor executor, int maxSegments) {
+        if (maxSegments < 2) {
+            throw new IllegalArgumentException("maxSegments must be at least 2, got " + maxSegments);
+        }
+        this.segmentExecutor = executor;
+        this.maxSegments = maxSegments;
+        return this;
+    }
+
+    /**
+     * Parses the HTML with jsoup's HTML5 parser and hands the resulting DOM straight to Flying
+     * Saucer, instead of letting Flying Saucer parse the HTML string as XML.
+     *
+     * <p>The document is parsed once, by a parser that accepts everything a browser would: unclosed
+     * tags, bare {@code &} characters, void elements such as {@code <br>} and HTML entities like
+     * {@code &nbsp;} no longer make the render fail. When segmented rendering is enabled the same
+     * parse is reused for splitting, so segments are not serialised and parsed again.
+     *
+     * @return this renderer for method chaining
+     */
+    public PdfOutputRenderer withHtml5Parsing() {
+        this.html5Parsing = true;
+        return this;
+    }
+
+    /**
+     * Returns the renderer pool, or {@code null} if pooling is not enabled.
+     *
+     * @return the renderer pool used by this renderer
+     */
+    public PdfRendererPool getRendererPool() {
+        return rendererPool;
+    }
+
     /**
      * Converts the supplied HTML string into a PDF document.
      *
@@ -22,17 +189,338 @@ public class PdfOutputRenderer implements OutputRenderer {
      */
     @Override
     public byte[] render(String html) throws ReportGenerationException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        render(html, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Returns the class name together with the fonts, HTML transformers, segmentation and parsing
+     * mode of this renderer. Pooling and resource caching do not change the output and are left out.
+     *
+     * @return the cache discriminator of this renderer
+     */
+    @Override
+    public String cacheKey() {
+        StringBuilder key = new StringBuilder(getClass().getName());
+        if (fontRegistry != null) {
+            key.append(";fonts=").append(fontRegistry.getFontPaths())
+                    .append(fontRegistry.getFontDirectories())
+                    .append(",embedded=").append(fontRegistry.isEmbedded())
+                    .append(",subset=").append(fontRegistry.isSubset());
+        }
+        for (HtmlTransformer transformer : htmlTransformers) {
+            key.append(";transformer=").append(transformer);
+        }
+        if (segmentExecutor != null) {
+            key.append(";segments=").append(maxSegments);
+        }
+        if (html5Parsing) {
+            key.append(";html5");
+        }
+        return key.toString();
+    }
+
+    /**
+     * Converts the supplied HTML string into a PDF document, writing it directly to {@code out}.
+     *
+     * @param html the fully-rendered XHTML string
+     * @param out  the destination for the PDF document
+     * @throws ReportGenerationException if the HTML-to-PDF conversion fails
+     */
+    @Override
+    public void render(String html, OutputStream out) throws ReportGenerationException {
+        render(html, out, new RenderContext(null));
+    }
+
+    /**
+     * Converts the supplied HTML string into a PDF document, writing it directly to {@code out} and
+     * recording the number of laid-out pages in {@code context}. The context is checked for
+     * cancellation before layout and, together with its page limit, again before the PDF is written;
+     * a stopped render returns its pooled renderer straight away.
+     *
+     * @param html    the fully-rendered XHTML string
+     * @param out     the destination for the PDF document
+     * @param context the per-request render context
+     * @throws ReportGenerationException if the HTML-to-PDF conversion fails
+     */
+    @Override
+    public void render(String html, OutputStream out, RenderContext context) throws ReportGenerationException {
+        for (HtmlTransformer transformer : htmlTransformers) {
+            html = transformer.transform(html, html5Parsing);
+        }
+        org.jsoup.nodes.Document parsed = html5Parsing ? Jsoup.parse(html) : null;
+        if (segmentExecutor != null) {
+            List<org.jsoup.nodes.Document> segments = parsed != null
+                    ? HtmlSegmenter.split(parsed, maxSegments) : HtmlSegmenter.split(html, maxSegments);
+            if (!segments.isEmpty()) {
+                renderSegmented(segments, out, context);
+                return;
+            }
+        }
+        context.checkCancelled();
+        renderDocument(parsed != null ? W3C_DOM.get().fromJsoup(parsed) : parseXhtml(new StringReader(html)),
+                out, context);
+    }
+
+    /**
+     * Converts HTML held in a {@link CharSequence} into a PDF document. Without HTML transformers
+     * and segmented rendering, which work on strings, the characters are parsed in place and never
+     * copied into a {@code String}.
+     *
+     * @param html    the fully-rendered XHTML
+     * @param out     the destination for the PDF document
+     * @param context the per-request render context
+     * @throws ReportGenerationException if the HTML-to-PDF conversion fails
+     */
+    @Override
+    public void render(CharSequence html, OutputStream out, RenderContext context) throws ReportGenerationException {
+        if (!htmlTransformers.isEmpty() || segmentExecutor != null) {
+            render(html.toString(), out, context);
+            return;
+        }
+        org.w3c.dom.Document document;
+        try {
+            document = html5Parsing
+                    ? W3C_DOM.get().fromJsoup(Parser.htmlParser().parseInput(HtmlBuffer.reader(html), ""))
+                    : parseXhtml(HtmlBuffer.reader(html));
+        } catch (UncheckedIOException e) {
+            throw new ReportGenerationException("Failed to parse HTML: " + e.getMessage(), e);
+        }
+        context.checkCancelled();
+        renderDocument(document, out, context);
+    }
+
+    /**
+     * Renders a tiny document to load Flying Saucer and OpenPDF and read the fonts. With a
+     * {@linkplain #withRendererPool renderer pool}, then creates renderers until the pool holds its
+     * maximum size, so the first concurrent reports do not pay for building one each.
+     *
+     * @throws ReportGenerationException if the pipeline cannot be initialised
+     */
+    @Override
+    public void warmUp() throws ReportGenerationException {
+        OutputRenderer.super.warmUp();
+        if (rendererPool != null) {
+            try {
+                rendererPool.fill();
+            } catch (UncheckedIOException e) {
+                throw new ReportGenerationException("Failed to register PDF fonts: " + e.getCause().getMessage(), e);
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Internal helpers
+    // -------------------------------------------------------------------------
+
+    /** Parses XHTML the way {@link ITextRenderer#setDocumentFromString(String)} does. */
+    private static org.w3c.dom.Document parseXhtml(Reader html) {
+        return XMLResource.load(new InputSource(html)).getDocument();
+    }
+
+    /** Lays out {@code document} on a (pooled) renderer and writes the PDF to {@code out}. */
+    private void renderDocument(org.w3c.dom.Document document, OutputStream out, RenderContext context)
+            throws ReportGenerationException {
+        ITextRenderer renderer = acquireRenderer();
+        boolean completed = false;
         try {
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
-            ITextRenderer renderer = new ITextRenderer();
-            renderer.setDocumentFromString(html);
+            renderer.setDocument(document, null);
             renderer.layout();
+            context.setPageCount(renderer.getRootBox().getLayer().getPages().size());
+            context.checkPageLimit();
+            context.checkCancelled();
             renderer.createPDF(out);
             out.flush();
-            return out.toByteArray();
+            completed = true;
+        } catch (ReportCancelledException | ReportLimitExceededException e) {
+            // stopped between layout and output: the renderer holds no half-written state
+            completed = true;
+            throw e;
         } catch (IOException e) {
             throw new ReportGenerationException("Failed to convert HTML to PDF: " + e.getMessage(), e);
+        } finally {
+            releaseRenderer(renderer, completed);
         }
     }
-}
 
+    private ITextRenderer createRenderer() {
+        ITextRenderer renderer = new ITextRenderer();
+        if (fontRegistry != null) {
+            try {
+                fontRegistry.applyTo(renderer.getFontResolver());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        if (resourceCache != null) {
+            SharedContext context = renderer.getSharedContext();
+            context.setUserAgentCallback(new CachingUserAgent(context.getUserAgentCallback(), resourceCache));
+        }
+        return renderer;
+    }
+
+    /**
+     * Lays out every segment in parallel, then renders each one with its page numbers offset by
+     * the pages of the preceding segments and merges the results. The page limit is checked as each
+     * segment's layout completes, so a runaway document stops laying out the segments that have not
+     * started yet instead of failing only after all of them. The rendered segments are
+     * buffered in the context's {@linkplain RenderContext#getBufferPool() buffer pool} when there
+     * is one.
+     */
+    private void renderSegmented(List<org.jsoup.nodes.Document> segments, OutputStream out, RenderContext context)
+            throws ReportGenerationException {
+        int count = segments.size();
+        ITextRenderer[] renderers = new ITextRenderer[count];
+        int[] pageCounts = new int[count];
+        int maxPages = context.getMaxPages();
+        AtomicInteger laidOut = new AtomicInteger();
+        runSegments(count, context, i -> {
+            renderers[i] = createRenderer();
+            setSegment(renderers[i], segments.get(i));
+            renderers[i].layout();
+            pageCounts[i] = renderers[i].getRootBox().getLayer().getPages().size();
+            int pages = laidOut.addAndGet(pageCounts[i]);
+            if (pages > maxPages) {
+                throw new ReportLimitExceededException("Report laid out at least " + pages
+                        + " pages, more than the limit of " + maxPages, ReportLimitExceededException.Limit.PAGES,
+                        maxPages);
+            }
+        });
+
+        int[] firstPages = new int[count];
+        int totalPages = 0;
+        for (int i = 0; i < count; i++) {
+            firstPages[i] = totalPages + 1;
+            totalPages += pageCounts[i];
+        }
+        context.setPageCount(totalPages);
+        context.checkPageLimit();
+        int resolvedTotal = totalPages;
+        boolean relayout = HtmlSegmenter.usesTotalPages(segments.get(0));
+
+        BufferPool pool = context.getBufferPool();
+        OutputStream[] pdfs = new OutputStream[count];
+        try {
+            runSegments(count, context, i -> {
+                if (relayout) {
+                    HtmlSegmenter.resolveTotalPages(segments.get(i), resolvedTotal);
+                    setSegment(renderers[i], segments.get(i));
+                    renderers[i].layout();
+                }
+                pdfs[i] = pool != null ? new PooledOutputStream(pool) : new ByteArrayOutputStream();
+                renderers[i].createPDF(pdfs[i], true, firstPages[i]);
+                renderers[i] = null;
+            });
+
+            context.checkCancelled();
+            mergePdfs(pdfs, out);
+        } finally {
+            for (OutputStream pdf : pdfs) {
+                if (pdf instanceof PooledOutputStream) {
+                    ((PooledOutputStream) pdf).release();
+                }
+            }
+        }
+    }
+
+    private void setSegment(ITextRenderer renderer, org.jsoup.nodes.Document segment) {
+        if (html5Parsing) {
+            renderer.setDocument(W3C_DOM.get().fromJsoup(segment), null);
+        } else {
+            renderer.setDocumentFromString(HtmlSegmenter.toXhtml(segment));
+        }
+    }
+
+    /**
+     * Runs {@code task} for every segment on the segment executor. Each task checks {@code context}
+     * before it starts, and is skipped once another task has failed, so a cancelled or failed render
+     * does not begin the remaining segments. Segments already running finish before this returns.
+     */
+    private void runSegments(int count, RenderContext context, SegmentTask task) throws ReportGenerationException {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[count];
+        AtomicBoolean failed = new AtomicBoolean();
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            futures[i] = CompletableFuture.runAsync(() -> {
+                if (failed.get()) {
+                    return;
+                }
+                try {
+                    context.checkCancelled();
+                    task.run(index);
+                } catch (Exception e) {
+                    failed.set(true);
+                    throw new CompletionException(e);
+                }
+            }, segmentExecutor);
+        }
+        try {
+            CompletableFuture.allOf(futures).join();
+        } catch (CompletionException e) {
+            Throwable cause = e;
+            while (cause instanceof CompletionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof ReportCancelledException) {
+                throw (ReportCancelledException) cause;
+            }
+            if (cause instanceof ReportLimitExceededException) {
+                throw (ReportLimitExceededException) cause;
+            }
+            throw new ReportGenerationException("Failed to render PDF segment: " + cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Appends the pages of the segment PDFs buffered in {@code pdfs} to one document. Each segment
+     * is copied into an array only while it is being read, and its buffer is dropped or returned to
+     * the pool right after.
+     */
+    private static void mergePdfs(OutputStream[] pdfs, OutputStream out) throws ReportGenerationException {
+        Document document = new Document();
+        try {
+            PdfCopy copy = new PdfCopy(document, new NonClosingOutputStream(out));
+            document.open();
+            for (int i = 0; i < pdfs.length; i++) {
+                byte[] pdf;
+                if (pdfs[i] instanceof PooledOutputStream) {
+                    pdf = ((PooledOutputStream) pdfs[i]).toByteArray();
+                    ((PooledOutputStream) pdfs[i]).release();
+                } else {
+                    pdf = ((ByteArrayOutputStream) pdfs[i]).toByteArray();
+                }
+                pdfs[i] = null;
+                PdfReader reader = new PdfReader(pdf);
+                for (int page = 1; page <= reader.getNumberOfPages(); page++) {
+                    copy.addPage(copy.getImportedPage(reader, page));
+                }
+                copy.freeReader(reader);
+                reader.close();
+            }
+            document.close();
+            out.flush();
+        } catch (Exception e) {
+            throw new ReportGenerationException("Failed to merge PDF segments: " + e.getMessage(), e);
+        }
+    }
+
+    private ITextRenderer acquireRenderer() throws ReportGenerationException {
+        try {
+            return rendererPool != null ? rendererPool.acquire() : createRenderer();
+        } catch (UncheckedIOException e) {
+            throw new ReportGenerationException("Failed to register PDF fonts: " + e.getCause().getMessage(), e);
+        }
+    }
+
+    private void releaseRenderer(ITextRenderer renderer, boolean reusable) {
+        if (rendererPool != null) {
+            rendererPool.release(renderer, reusable);
+        }
+    }
+
+    @FunctionalInterface
+    private interface SegmentTask {
+        void run(int index) throws Exception;
+    }
+}
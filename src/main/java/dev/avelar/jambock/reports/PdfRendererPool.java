@@ -0,0 +1,271 @@
+package dev.avelar.jambock.reports;
+
+import org.xhtmlrenderer.pdf.ITextRenderer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Bounded pool of warmed-up {@link ITextRenderer} instances used by {@link PdfOutputRenderer}.
+ *
+ * <p>Creating an {@code ITextRenderer} builds a new shared context, font resolver, text renderer and
+ * user agent. The pool keeps up to {@code maxSize} renderers alive and hands them out one thread at
+ * a time. When every renderer is checked out, callers block until one is released. Renderers that
+ * have been idle for longer than the configured timeout are evicted lazily on the next acquire or
+ * release.
+ *
+ * <p>Between renders each renderer is reset by loading an empty document. This flushes the
+ * per-document state (document, box tree, {@code @font-face} fonts, author stylesheets) so that an
+ * idle renderer does not pin the previous report in memory. A renderer whose render failed is
+ * discarded instead of being returned.
+ *
+ * <p>Instances are created through {@link PdfOutputRenderer#withRendererPool(int, long, TimeUnit)}
+ * and are safe for concurrent use.
+ */
+public final class PdfRendererPool {
+
+    private static final String EMPTY_DOCUMENT = "<html><head></head><body></body></html>";
+
+    private final Supplier<ITextRenderer> factory;
+    private final int maxSize;
+    private final long maxIdleNanos;
+    private final Semaphore permits;
+    private final Deque<IdleRenderer> idle = new ArrayDeque<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong waits = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong discards = new AtomicLong();
+
+    PdfRendererPool(Supplier<ITextRenderer> factory, int maxSize, long maxIdle, TimeUnit unit) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Renderer pool size must be at least 1, got " + maxSize);
+        }
+        this.factory = factory;
+        this.maxSize = maxSize;
+        this.maxIdleNanos = unit.toNanos(maxIdle);
+        this.permits = new Semaphore(maxSize, true);
+    }
+
+    /**
+     * Borrows a renderer, creating one if no idle renderer is available. Blocks while
+     * {@code maxSize} renderers are already in use.
+     */
+    ITextRenderer acquire() throws ReportGenerationException {
+        if (!permits.tryAcquire()) {
+            waits.incrementAndGet();
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ReportGenerationException("Interrupted while waiting for a pooled PDF renderer", e);
+            }
+        }
+
+        try {
+            IdleRenderer pooled;
+            synchronized (idle) {
+                evictExpired(System.nanoTime());
+                pooled = idle.pollFirst();
+            }
+            if (pooled != null) {
+                hits.incrementAndGet();
+                return pooled.renderer;
+            }
+            misses.incrementAndGet();
+            return factory.get();
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a borrowed renderer. When {@code reusable} is {@code false} (the render failed part-way)
+     * the renderer is dropped and a fresh one will be created on demand.
+     */
+    void release(ITextRenderer renderer, boolean reusable) {
+        try {
+            if (reusable) {
+                reusable = reset(renderer);
+            }
+            if (reusable) {
+                long now = System.nanoTime();
+                synchronized (idle) {
+                    idle.addFirst(new IdleRenderer(renderer, now));
+                    evictExpired(now);
+                }
+            } else {
+                discards.incrementAndGet();
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Creates renderers until the pool holds {@code maxSize} of them, counting those checked out by
+     * other threads, and leaves the new ones idle. Used by {@link PdfOutputRenderer#warmUp()}.
+     */
+    void fill() throws ReportGenerationException {
+        List<ITextRenderer> renderers = new ArrayList<>();
+        try {
+            while (renderers.size() < maxSize && permits.availablePermits() > 0) {
+                renderers.add(acquire());
+            }
+        } finally {
+            for (ITextRenderer renderer : renderers) {
+                release(renderer, true);
+            }
+        }
+    }
+
+    /**
+     * Drops every renderer that has been idle for longer than the configured timeout.
+     */
+    public void evictIdle() {
+        synchronized (idle) {
+            evictExpired(System.nanoTime());
+        }
+    }
+
+    /**
+     * Drops every idle renderer. Renderers currently in use are unaffected.
+     */
+    public void clear() {
+        synchronized (idle) {
+            evictions.addAndGet(idle.size());
+            idle.clear();
+        }
+    }
+
+    /**
+     * Returns the maximum number of renderers this pool keeps alive.
+     *
+     * @return the pool size
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Returns a snapshot of the pool counters.
+     *
+     * @return the current pool statistics
+     */
+    public Statistics getStatistics() {
+        int idleCount;
+        synchronized (idle) {
+            idleCount = idle.size();
+        }
+        return new Statistics(hits.get(), misses.get(), waits.get(), evictions.get(), discards.get(),
+                idleCount, maxSize - permits.availablePermits());
+    }
+
+    // -------------------------------------------------------------------------
+    // Internal helpers
+    // -------------------------------------------------------------------------
+
+    private boolean reset(ITextRenderer renderer) {
+        try {
+            renderer.setDocumentFromString(EMPTY_DOCUMENT);
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    /** Must be called while holding the {@code idle} lock. The oldest entries sit at the tail. */
+    private void evictExpired(long now) {
+        if (maxIdleNanos <= 0) {
+            return;
+        }
+        IdleRenderer oldest;
+        while ((oldest = idle.peekLast()) != null && now - oldest.idleSince > maxIdleNanos) {
+            idle.pollLast();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private static final class IdleRenderer {
+        private final ITextRenderer renderer;
+        private final long idleSince;
+
+        private IdleRenderer(ITextRenderer renderer, long idleSince) {
+            this.renderer = renderer;
+            this.idleSince = idleSince;
+        }
+    }
+
+    /**
+     * Point-in-time counters of a {@link PdfRendererPool}.
+     */
+    public static final class Statistics {
+        private final long hits;
+        private final long misses;
+        private final long waits;
+        private final long evictions;
+        private final long discards;
+        private final int idle;
+        private final int inUse;
+
+        Statistics(long hits, long misses, long waits, long evictions, long discards, int idle, int inUse) {
+            this.hits = hits;
+            this.misses = misses;
+            this.waits = waits;
+            this.evictions = evictions;
+            this.discards = discards;
+            this.idle = idle;
+            this.inUse = inUse;
+        }
+
+        /** @return number of acquisitions served by an idle, already warmed renderer */
+        public long getHits() {
+            return hits;
+        }
+
+        /** @return number of acquisitions that had to create a new renderer */
+        public long getMisses() {
+            return misses;
+        }
+
+        /** @return number of acquisitions that blocked because the pool was exhausted */
+        public long getWaits() {
+            return waits;
+        }
+
+        /** @return number of renderers dropped after exceeding the idle timeout (or by {@link PdfRendererPool#clear()}) */
+        public long getEvictions() {
+            return evictions;
+        }
+
+        /** @return number of renderers dropped because their render failed */
+        public long getDiscards() {
+            return discards;
+        }
+
+        /** @return number of renderers currently idle in the pool */
+        public int getIdle() {
+            return idle;
+        }
+
+        /** @return number of renderers currently checked out */
+        public int getInUse() {
+            return inUse;
+        }
+
+        @Override
+        public String toString() {
+            return "PdfRendererPool.Statistics{hits=" + hits + ", misses=" + misses + ", waits=" + waits
+                    + ", evictions=" + evictions + ", discards=" + discards + ", idle=" + idle
+                    + ", inUse=" + inUse + "}";
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package dev.avelar.jambock.reports;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, process-wide LRU cache for the external resources referenced by PDF templates: images,
+ * stylesheets and other binary resources (e.g. {@code @font-face} files).
+ *
+ * <p>The cache is installed on a {@link PdfOutputRenderer} via
+ * {@link PdfOutputRenderer#withResourceCache(PdfResourceCache)} and is consulted by Flying Saucer
+ * each time a document references a resource. Images are stored decoded and copied per render;
+ * stylesheets and binary resources are stored as raw bytes. Resources are keyed by their resolved
+ * URI, except for {@code data:} URIs which are keyed by a SHA-256 hash of their content so that
+ * large inline images do not have to be kept around as keys.
+ *
+ * <p>The total size of the cache is bounded in bytes. Image sizes are estimates based on the
+ * encoded image data (or the pixel dimensions when no encoded data is available). A single
+ * resource larger than the limit is never cached.
+ *
+ * <p>Instances are safe for concurrent use and can be shared by several renderers.
+ */
+public final class PdfResourceCache {
+
+    private final long maxBytes;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long currentBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Creates a new cache holding at most {@code maxBytes} bytes of resources.
+     *
+     * @param maxBytes the maximum total (estimated) size of cached resources
+     */
+    public PdfResourceCache(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("Resource cache size must be positive, got " + maxBytes);
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Removes every cached resource, e.g. after stylesheets or images have been redeployed.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        currentBytes = 0;
+    }
+
+    /**
+     * Removes a single resource from the cache.
+     *
+     * @param uri the resolved URI of the resource
+     */
+    public void invalidate(String uri) {
+        String key = keyFor(uri);
+        synchronized (this) {
+            for (String kind : new String[]{"css:", "img:", "bin:"}) {
+                Entry removed = entries.remove(kind + key);
+                if (removed != null) {
+                    currentBytes -= removed.weight;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a snapshot of the cache counters.
+     *
+     * @return the current cache statistics
+     */
+    public synchronized Statistics getStatistics() {
+        return new Statistics(hits.get(), misses.get(), evictions.get(), entries.size(), currentBytes, maxBytes);
+    }
+
+    // -------------------------------------------------------------------------
+    // Package-private access used by CachingUserAgent
+    // -------------------------------------------------------------------------
+
+    Object get(String kind, String uri) {
+        String key = kind + keyFor(uri);
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+        }
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.value;
+    }
+
+    void put(String kind, String uri, Object value, long weight) {
+        if (weight > maxBytes) {
+            return;
+        }
+        String key = kind + keyFor(uri);
+        synchronized (this) {
+            Entry previous = entries.put(key, new Entry(value, weight));
+            if (previous != null) {
+                currentBytes -= previous.weight;
+            }
+            currentBytes += weight;
+
+            Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+            while (currentBytes > maxBytes && it.hasNext()) {
+                Entry eldest = it.next().getValue();
+                it.remove();
+                currentBytes -= eldest.weight;
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    static String keyFor(String uri) {
+        return uri.startsWith("data:") ? "data:sha256:" + ModelHasher.hash(uri) : uri;
+    }
+
+    private static final class Entry {
+        private final Object value;
+        private final long weight;
+
+        private Entry(Object value, long weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Point-in-time counters of a {@link PdfResourceCache}.
+     */
+    public static final class Statistics {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final int entryCount;
+        private final long sizeBytes;
+        private final long maxBytes;
+
+        Statistics(long hits, long misses, long evictions, int entryCount, long sizeBytes, long maxBytes) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.entryCount = entryCount;
+            this.sizeBytes = sizeBytes;
+            this.maxBytes = maxBytes;
+        }
+
+        /** @return number of lookups answered from the cache */
+        public long getHits() {
+            return hits;
+        }
+
+        /** @return number of lookups that had to load the resource */
+        public long getMisses() {
+            return misses;
+        }
+
+        /** @return number of resources evicted to stay within the size limit */
+        public long getEvictions() {
+            return evictions;
+        }
+
+        /** @return number of resources currently cached */
+        public int getEntryCount() {
+            return entryCount;
+        }
+
+        /** @return estimated size of the cached resources in bytes */
+        public long getSizeBytes() {
+            return sizeBytes;
+        }
+
+        /** @return configured size limit in bytes */
+        public long getMaxBytes() {
+            return maxBytes;
+        }
+
+        @Override
+        public String toString() {
+            return "PdfResourceCache.Statistics{hits=" + hits + ", misses=" + misses + ", evictions=" + evictions
+                    + ", entryCount=" + entryCount + ", sizeBytes=" + sizeBytes + ", maxBytes=" + maxBytes + "}";
+        }
+    }
+}
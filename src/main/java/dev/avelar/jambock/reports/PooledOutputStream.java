@@ -0,0 +1,131 @@
+package dev.avelar.jambock.reports;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * In-memory output buffer made of segments taken from a {@link BufferPool}. The buffer grows one
+ * segment at a time, so its content is never copied while writing. {@link #release()} hands the
+ * segments back to the pool; the content must not be read afterwards.
+ */
+final class PooledOutputStream extends OutputStream {
+
+    private final BufferPool pool;
+    private final List<ByteBuffer> segments = new ArrayList<>();
+    private ByteBuffer current;
+    private long size;
+    private boolean released;
+
+    PooledOutputStream(BufferPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        writable().put((byte) b);
+        size++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            ByteBuffer segment = writable();
+            int n = Math.min(len, segment.remaining());
+            segment.put(b, off, n);
+            off += n;
+            len -= n;
+            size += n;
+        }
+    }
+
+    /** Returns the number of bytes written. */
+    long size() {
+        return size;
+    }
+
+    /** Writes the content to {@code out}. */
+    void writeTo(OutputStream out) throws IOException {
+        checkNotReleased();
+        byte[] chunk = null;
+        for (ByteBuffer segment : segments) {
+            if (segment.hasArray()) {
+                out.write(segment.array(), segment.arrayOffset(), segment.position());
+                continue;
+            }
+            if (chunk == null) {
+                chunk = new byte[Math.min(pool.getSegmentSize(), 8192)];
+            }
+            ByteBuffer view = segment.duplicate();
+            ((Buffer) view).flip();
+            while (view.hasRemaining()) {
+                int n = Math.min(chunk.length, view.remaining());
+                view.get(chunk, 0, n);
+                out.write(chunk, 0, n);
+            }
+        }
+    }
+
+    /** Copies the content into an array of exactly {@link #size()} bytes. */
+    byte[] toByteArray() {
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Output of " + size + " bytes does not fit in an array");
+        }
+        byte[] content = new byte[(int) size];
+        int position = 0;
+        for (ByteBuffer buffer : getBuffers()) {
+            int n = buffer.remaining();
+            buffer.get(content, position, n);
+            position += n;
+        }
+        return content;
+    }
+
+    /**
+     * Returns read-only views of the written segments, each positioned at its first byte and
+     * limited to its last written byte. The views share the segments' memory.
+     */
+    ByteBuffer[] getBuffers() {
+        checkNotReleased();
+        ByteBuffer[] buffers = new ByteBuffer[segments.size()];
+        for (int i = 0; i < buffers.length; i++) {
+            ByteBuffer view = segments.get(i).duplicate();
+            ((Buffer) view).flip();
+            buffers[i] = view.asReadOnlyBuffer();
+        }
+        return buffers;
+    }
+
+    /** Returns the segments to the pool. Calling this method more than once has no effect. */
+    void release() {
+        if (released) {
+            return;
+        }
+        released = true;
+        for (ByteBuffer segment : segments) {
+            pool.release(segment);
+        }
+        segments.clear();
+        current = null;
+    }
+
+    private ByteBuffer writable() throws IOException {
+        if (released) {
+            throw new IOException("Buffer has been released");
+        }
+        if (current == null || !current.hasRemaining()) {
+            current = pool.acquire();
+            segments.add(current);
+        }
+        return current;
+    }
+
+    private void checkNotReleased() {
+        if (released) {
+            throw new IllegalStateException("Buffer has been released");
+        }
+    }
+}
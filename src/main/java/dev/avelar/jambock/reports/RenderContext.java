@@ -0,0 +1,141 @@
+package dev.avelar.jambock.reports;
+
+/**
+ * Per-request state shared between {@link ReportEngine} and an {@link OutputRenderer} while a
+ * single report is being rendered.
+ *
+ * <p>Renderers use it to report facts that are only known during rendering (such as the number of
+ * laid-out pages) back to the engine, and to check whether the report has been cancelled. A context
+ * belongs to exactly one render and is not thread-safe.
+ */
+public final class RenderContext {
+
+    /** Value of {@link #getPageCount()} when the renderer does not paginate. */
+    public static final int UNKNOWN_PAGE_COUNT = -1;
+
+    private final String templateName;
+    private final CancellationToken cancellationToken;
+    private int pageCount = UNKNOWN_PAGE_COUNT;
+    private int maxPages = Integer.MAX_VALUE;
+    private BufferPool bufferPool;
+
+    /**
+     * Creates a new context for a render of the given template.
+     *
+     * @param templateName the template being rendered, or {@code null} if not known
+     */
+    public RenderContext(String templateName) {
+        this(templateName, null);
+    }
+
+    /**
+     * Creates a new context for a render of the given template that can be cancelled through
+     * {@code cancellationToken}.
+     *
+     * @param templateName      the template being rendered, or {@code null} if not known
+     * @param cancellationToken the token of the report, or {@code null} if it cannot be cancelled
+     */
+    public RenderContext(String templateName, CancellationToken cancellationToken) {
+        this.templateName = templateName;
+        this.cancellationToken = cancellationToken;
+    }
+
+    /**
+     * Returns the name of the template being rendered.
+     *
+     * @return the template name, or {@code null} if not known
+     */
+    public String getTemplateName() {
+        return templateName;
+    }
+
+    /**
+     * Returns the cancellation token of the report.
+     *
+     * @return the token, or {@code null} if the report cannot be cancelled
+     */
+    public CancellationToken getCancellationToken() {
+        return cancellationToken;
+    }
+
+    /**
+     * Throws if the report has been cancelled or its deadline has passed. Renderers call this
+     * between expensive steps; it does nothing when the report has no token.
+     *
+     * @throws ReportCancelledException if the report should stop
+     */
+    public void checkCancelled() throws ReportCancelledException {
+        if (cancellationToken != null) {
+            cancellationToken.throwIfCancelled();
+        }
+    }
+
+    /**
+     * Returns the number of pages laid out by the renderer.
+     *
+     * @return the page count, or {@link #UNKNOWN_PAGE_COUNT} if the renderer did not report one
+     */
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    /**
+     * Records the number of pages laid out by the renderer.
+     *
+     * @param pageCount the page count
+     */
+    public void setPageCount(int pageCount) {
+        this.pageCount = pageCount;
+    }
+
+    /**
+     * Returns the largest number of pages the report may have.
+     *
+     * @return the page limit, or {@link Integer#MAX_VALUE} if unlimited
+     */
+    public int getMaxPages() {
+        return maxPages;
+    }
+
+    /**
+     * Sets the largest number of pages the report may have, checked by {@link #checkPageLimit()}.
+     *
+     * @param maxPages the page limit
+     */
+    public void setMaxPages(int maxPages) {
+        this.maxPages = maxPages;
+    }
+
+    /**
+     * Throws if the page count recorded with {@link #setPageCount(int)} exceeds the page limit.
+     * Paginating renderers call this right after layout, before producing any output.
+     *
+     * @throws ReportLimitExceededException if the report has too many pages
+     */
+    public void checkPageLimit() throws ReportLimitExceededException {
+        if (pageCount > maxPages) {
+            throw new ReportLimitExceededException("Report laid out " + pageCount + " pages, more than the limit of "
+                    + maxPages, ReportLimitExceededException.Limit.PAGES, maxPages);
+        }
+    }
+
+    /**
+     * Returns the pool that intermediate output of the render, such as separately rendered parts
+     * of a document, should be buffered in.
+     *
+     * @return the engine's {@linkplain ReportEngine#setBufferPool buffer pool}, or {@code null} if
+     *         pooling is disabled
+     */
+    public BufferPool getBufferPool() {
+        return bufferPool;
+    }
+
+    /**
+     * Sets the pool returned by {@link #getBufferPool()}.
+     *
+     * @param bufferPool the pool, or {@code null} to buffer in heap arrays
+     */
+    public void setBufferPool(BufferPool bufferPool) {
+        this.bufferPool = bufferPool;
+    }
+}
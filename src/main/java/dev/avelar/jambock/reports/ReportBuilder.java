@@ -4,6 +4,9 @@ import java.io.File;
 import java.io.OutputStream;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Builder for creating and generating reports.
@@ -18,6 +21,8 @@ public class ReportBuilder {
     private PageOrientation orientation = PageOrientation.PORTRAIT;
     private PageSize pageSize = PageSize.A4;
     private OutputRenderer outputRenderer;
+    private CancellationToken cancellationToken;
+    private Long timeoutNanos;
 
     /**
      * Creates a new ReportBuilder with the given engine.
@@ -128,6 +133,34 @@ public class ReportBuilder {
         return this;
     }
 
+    /**
+     * Stops each report if it is not finished within {@code timeout}, counted from the call of the
+     * {@code generate} method, so a reused builder gives every report the full timeout. Replaces any
+     * token set with {@link #withCancellationToken}.
+     *
+     * @param timeout the time the report may take
+     * @param unit    the unit of {@code timeout}
+     * @return this builder for method chaining
+     */
+    public ReportBuilder withTimeout(long timeout, TimeUnit unit) {
+        this.timeoutNanos = unit.toNanos(timeout);
+        this.cancellationToken = null;
+        return this;
+    }
+
+    /**
+     * Sets the token through which the report can be cancelled from another thread. Replaces any
+     * timeout set with {@link #withTimeout}.
+     *
+     * @param cancellationToken the cancellation token, or {@code null} to remove it
+     * @return this builder for method chaining
+     */
+    public ReportBuilder withCancellationToken(CancellationToken cancellationToken) {
+        this.cancellationToken = cancellationToken;
+        this.timeoutNanos = null;
+        return this;
+    }
+
     /**
      * Generates the report and writes it to the specified output stream.
      *
@@ -136,7 +169,7 @@ public class ReportBuilder {
      */
     public void generateTo(OutputStream outputStream) throws ReportGenerationException {
         validateState();
-        resolvedEngine().generateReport(templateName, data, outputStream);
+        resolvedEngine().generateReport(templateName, data, outputStream, reportToken());
     }
 
     /**
@@ -147,7 +180,7 @@ public class ReportBuilder {
      */
     public void generateTo(File outputFile) throws ReportGenerationException {
         validateState();
-        resolvedEngine().generateReport(templateName, data, outputFile);
+        resolvedEngine().generateReport(templateName, data, outputFile, reportToken());
     }
 
     /**
@@ -158,7 +191,49 @@ public class ReportBuilder {
      */
     public byte[] generateAsBytes() throws ReportGenerationException {
         validateState();
-        return resolvedEngine().generateReportAsBytes(templateName, data);
+        return resolvedEngine().generateReportAsBytes(templateName, data, reportToken());
+    }
+
+    /**
+     * Generates the report into a buffer that moves to a temporary file once the document grows
+     * beyond {@code spillThreshold} bytes.
+     *
+     * @param spillThreshold the largest document kept in memory, in bytes
+     * @return a handle to the document; close it to delete the temporary file
+     * @throws ReportGenerationException if there's an error generating the report
+     * @see ReportEngine#generateReportToBuffer(String, Map, long, java.nio.file.Path)
+     */
+    public ReportOutput generateToBuffer(long spillThreshold) throws ReportGenerationException {
+        validateState();
+        return resolvedEngine().generateReportToBuffer(templateName, data, spillThreshold, null, reportToken());
+    }
+
+    /**
+     * Asynchronously generates the report and returns it as a byte array, using the engine's
+     * default report executor (virtual threads on Java 21+).
+     *
+     * <p>The builder state is validated and the data model is copied before this method returns,
+     * so the builder may be modified or reused while the report is being generated.
+     *
+     * @return a future completed with the document content
+     * @throws IllegalStateException if the template name has not been set
+     */
+    public CompletableFuture<byte[]> generateAsync() {
+        validateState();
+        return generateAsync(ReportExecutors.defaultExecutor());
+    }
+
+    /**
+     * Asynchronously generates the report on the given executor and returns it as a byte array.
+     *
+     * @param executor the executor that runs the template and render stages
+     * @return a future completed with the document content
+     * @throws IllegalStateException if the template name has not been set
+     * @see #generateAsync()
+     */
+    public CompletableFuture<byte[]> generateAsync(Executor executor) {
+        validateState();
+        return resolvedEngine().generateReportAsync(templateName, new HashMap<>(data), executor, reportToken());
     }
 
     /**
@@ -172,6 +247,36 @@ public class ReportBuilder {
         return withOutputRenderer(new DocxOutputRenderer()).generateAsBytes();
     }
 
+    /**
+     * Generates the report in several formats at once. The template is processed a single time
+     * and the HTML is rendered by every renderer in parallel; the renderer configured on the
+     * engine or builder is not used.
+     *
+     * <pre>{@code
+     * Map<String, OutputRenderer> formats = new LinkedHashMap<>();
+     * formats.put("pdf", new PdfOutputRenderer());
+     * formats.put("docx", new DocxOutputRenderer());
+     * Map<String, byte[]> documents = builder.generateAsFormats(formats);
+     * }</pre>
+     *
+     * @param renderers the renderers to use, keyed by a format name
+     * @return the document content per format, in the iteration order of {@code renderers}
+     * @throws ReportGenerationException if there's an error generating any of the formats
+     */
+    public Map<String, byte[]> generateAsFormats(Map<String, ? extends OutputRenderer> renderers)
+            throws ReportGenerationException {
+        validateState();
+        return engine.generateReports(templateName, data, renderers, reportToken());
+    }
+
+    /** Returns the token of a report starting now: a fresh one if a timeout is set. */
+    private CancellationToken reportToken() {
+        if (timeoutNanos != null) {
+            return CancellationToken.withTimeout(timeoutNanos, TimeUnit.NANOSECONDS);
+        }
+        return cancellationToken;
+    }
+
     /**
      * Validates that the builder is in a valid state for report generation.
      *
@@ -184,12 +289,12 @@ public class ReportBuilder {
     }
 
     /**
-     * Returns either a one-shot engine with the overridden renderer, or the original engine
-     * if no renderer override has been specified.
+     * Returns either a view of the engine with the overridden renderer (sharing its listeners and
+     * settings), or the original engine if no renderer override has been specified.
      */
     private ReportEngine resolvedEngine() {
         if (outputRenderer != null) {
-            return new ReportEngine(engine.getTemplateEngine(), outputRenderer);
+            return engine.withOutputRenderer(outputRenderer);
         }
         return engine;
     }
@@ -0,0 +1,490 @@
+package dev.avelar.jambock.reports;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Content-addressed cache of rendered reports, consulted by {@link ReportEngine} before running the
+ * template and render stages.
+ *
+ * <p>Entries are keyed by a SHA-256 digest of the template name, the template version, the
+ * {@linkplain OutputRenderer#cacheKey() configuration of the output renderer} and a stable hash of
+ * the data model. Data models containing values that cannot be
+ * hashed stably (lazy iterators, arbitrary beans, ...) bypass the cache. On a hit the stored bytes
+ * are streamed to the caller without touching the template engine or the renderer.
+ *
+ * <p>The cache has a size-bounded in-memory LRU tier and an optional on-disk tier
+ * ({@link #withDiskTier(Path, long)}) that survives restarts. Both tiers are bounded in bytes and
+ * entries expire after a maximum age. When a template changes, call
+ * {@link #invalidateTemplate(String)} or bump its version with
+ * {@link #setTemplateVersion(String, String)}.
+ *
+ * <pre>{@code
+ * ReportCache cache = new ReportCache(64 * 1024 * 1024, 1, TimeUnit.HOURS)
+ *         .withDiskTier(Paths.get("/var/cache/reports"), 2L * 1024 * 1024 * 1024);
+ * engine.setReportCache(cache);
+ * }</pre>
+ *
+ * <p>Instances are safe for concurrent use.
+ */
+public final class ReportCache {
+
+    private static final Logger logger = Logger.getLogger(ReportCache.class.getName());
+    private static final String FILE_SUFFIX = ".report";
+    private static final int TEMPLATE_PREFIX_LENGTH = 16;
+
+    private final long maxMemoryBytes;
+    private final long maxAgeMillis;
+    private final LinkedHashMap<String, MemoryEntry> memory = new LinkedHashMap<>(64, 0.75f, true);
+    private long memoryBytes;
+
+    private volatile Path diskDirectory;
+    private volatile long maxDiskBytes;
+    private final AtomicLong diskBytes = new AtomicLong();
+
+    private final ConcurrentMap<String, String> templateVersions = new ConcurrentHashMap<>();
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong uncacheable = new AtomicLong();
+    private final AtomicLong stores = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Creates a memory-only cache.
+     *
+     * @param maxMemoryBytes the maximum total size of reports kept in memory
+     * @param maxAge         the age after which an entry is no longer served
+     * @param unit           the unit of {@code maxAge}
+     */
+    public ReportCache(long maxMemoryBytes, long maxAge, TimeUnit unit) {
+        if (maxMemoryBytes < 0) {
+            throw new IllegalArgumentException("maxMemoryBytes must not be negative, got " + maxMemoryBytes);
+        }
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.maxAgeMillis = unit.toMillis(maxAge);
+    }
+
+    /**
+     * Adds an on-disk tier in the given directory. Entries already present in the directory (from a
+     * previous run) are served as long as they have not expired.
+     *
+     * @param directory    the directory that holds cached reports; created if missing
+     * @param maxDiskBytes the maximum total size of the files in the directory
+     * @return this cache for method chaining
+     * @throws ReportGenerationException if the directory cannot be created or read
+     */
+    public ReportCache withDiskTier(Path directory, long maxDiskBytes) throws ReportGenerationException {
+        try {
+            Files.createDirectories(directory);
+            long total = 0;
+            for (Path file : listEntries(directory)) {
+                total += Files.size(file);
+            }
+            this.diskBytes.set(total);
+        } catch (IOException e) {
+            throw new ReportGenerationException("Failed to open report cache directory '" + directory + "': "
+                    + e.getMessage(), e);
+        }
+        this.maxDiskBytes = maxDiskBytes;
+        this.diskDirectory = directory;
+        evictDisk();
+        return this;
+    }
+
+    /**
+     * Sets the version of a template, e.g. a build number or a hash of its source. The version is
+     * part of the cache key, so changing it makes every entry rendered from the old version
+     * unreachable.
+     *
+     * @param templateName the template name
+     * @param version      the current version of the template
+     */
+    public void setTemplateVersion(String templateName, String version) {
+        templateVersions.put(templateName, version);
+    }
+
+    /**
+     * Removes every cached report rendered from the given template, from both tiers.
+     *
+     * @param templateName the template name
+     */
+    public void invalidateTemplate(String templateName) {
+        String prefix = templatePrefix(templateName);
+        synchronized (memory) {
+            Iterator<Map.Entry<String, MemoryEntry>> it = memory.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, MemoryEntry> entry = it.next();
+                if (entry.getKey().startsWith(prefix)) {
+                    memoryBytes -= entry.getValue().content.length;
+                    it.remove();
+                }
+            }
+        }
+        Path directory = diskDirectory;
+        if (directory != null) {
+            try {
+                for (Path file : listEntries(directory)) {
+                    if (file.getFileName().toString().startsWith(prefix)) {
+                        deleteEntry(file);
+                    }
+                }
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Failed to invalidate cached reports of " + templateName, e);
+            }
+        }
+    }
+
+    /**
+     * Removes every cached report from both tiers.
+     */
+    public void clear() {
+        synchronized (memory) {
+            memory.clear();
+            memoryBytes = 0;
+        }
+        Path directory = diskDirectory;
+        if (directory != null) {
+            try {
+                for (Path file : listEntries(directory)) {
+                    deleteEntry(file);
+                }
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Failed to clear report cache directory " + directory, e);
+            }
+        }
+    }
+
+    /**
+     * Returns a snapshot of the cache counters.
+     *
+     * @return the current cache statistics
+     */
+    public Statistics getStatistics() {
+        int entries;
+        long bytes;
+        synchronized (memory) {
+            entries = memory.size();
+            bytes = memoryBytes;
+        }
+        return new Statistics(memoryHits.get(), diskHits.get(), misses.get(), uncacheable.get(), stores.get(),
+                evictions.get(), entries, bytes, diskBytes.get());
+    }
+
+    // -------------------------------------------------------------------------
+    // Package-private access used by ReportEngine
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns the cache key of a report, or {@code null} if the data model cannot be hashed.
+     */
+    String keyFor(String templateName, OutputRenderer renderer, Map<String, Object> data) {
+        String hash = ModelHasher.hash(templateName, templateVersions.get(templateName),
+                renderer.cacheKey(), data);
+        if (hash == null) {
+            uncacheable.incrementAndGet();
+            return null;
+        }
+        return templatePrefix(templateName) + "-" + hash;
+    }
+
+    /**
+     * Wraps {@code out} in a stream that keeps a copy of the report for {@link #put(String,
+     * CapturingOutputStream)}: in memory while it fits the memory tier, in a file of the disk tier
+     * beyond that. The in-memory copy uses segments of {@code pool} when it is not {@code null}.
+     */
+    CapturingOutputStream capture(OutputStream out, BufferPool pool) {
+        Path directory = diskDirectory;
+        return new CapturingOutputStream(out, maxMemoryBytes, directory, directory != null ? maxDiskBytes : 0, pool);
+    }
+
+    /**
+     * Writes the cached report to {@code out} and returns {@code true}, or returns {@code false}
+     * without writing anything on a miss.
+     */
+    boolean writeTo(String key, OutputStream out) throws IOException {
+        long now = System.currentTimeMillis();
+        MemoryEntry entry;
+        synchronized (memory) {
+            entry = memory.get(key);
+            if (entry != null && isExpired(entry.createdAt, now)) {
+                memory.remove(key);
+                memoryBytes -= entry.content.length;
+                entry = null;
+            }
+        }
+        if (entry != null) {
+            memoryHits.incrementAndGet();
+            out.write(entry.content);
+            return true;
+        }
+
+        Path directory = diskDirectory;
+        if (directory != null) {
+            Path file = directory.resolve(key + FILE_SUFFIX);
+            try {
+                long modified = Files.getLastModifiedTime(file).toMillis();
+                if (isExpired(modified, now)) {
+                    deleteEntry(file);
+                } else if (Files.size(file) <= maxMemoryBytes) {
+                    byte[] content = Files.readAllBytes(file);
+                    putInMemory(key, content, modified);
+                    diskHits.incrementAndGet();
+                    out.write(content);
+                    return true;
+                } else {
+                    diskHits.incrementAndGet();
+                    Files.copy(file, out);
+                    return true;
+                }
+            } catch (NoSuchFileException e) {
+                // not cached on disk
+            }
+        }
+        misses.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Stores the report copied by {@code capture}, if it was small enough to be kept.
+     */
+    void put(String key, CapturingOutputStream capture) {
+        byte[] content = capture.getCaptured();
+        if (content != null) {
+            put(key, content);
+            return;
+        }
+        Path temp = capture.getCapturedFile();
+        Path directory = diskDirectory;
+        if (temp != null && directory != null) {
+            stores.incrementAndGet();
+            storeOnDisk(directory, key, temp, capture.size());
+        }
+    }
+
+    /**
+     * Stores a freshly rendered report in both tiers.
+     */
+    void put(String key, byte[] content) {
+        stores.incrementAndGet();
+        long now = System.currentTimeMillis();
+        putInMemory(key, content, now);
+
+        Path directory = diskDirectory;
+        if (directory != null && content.length <= maxDiskBytes) {
+            try {
+                Path temp = Files.createTempFile(directory, "entry", ".tmp");
+                Files.write(temp, content);
+                storeOnDisk(directory, key, temp, content.length);
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Failed to write cached report " + key, e);
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Internal helpers
+    // -------------------------------------------------------------------------
+
+    /** Moves a complete temporary file into place as the disk entry of {@code key}. */
+    private void storeOnDisk(Path directory, String key, Path temp, long size) {
+        Path file = directory.resolve(key + FILE_SUFFIX);
+        try {
+            long previous = Files.exists(file) ? Files.size(file) : 0;
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            diskBytes.addAndGet(size - previous);
+            evictDisk();
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Failed to write cached report " + file, e);
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException suppressed) {
+                temp.toFile().deleteOnExit();
+            }
+        }
+    }
+
+    private void putInMemory(String key, byte[] content, long createdAt) {
+        if (content.length > maxMemoryBytes) {
+            return;
+        }
+        synchronized (memory) {
+            MemoryEntry previous = memory.put(key, new MemoryEntry(content, createdAt));
+            if (previous != null) {
+                memoryBytes -= previous.content.length;
+            }
+            memoryBytes += content.length;
+
+            Iterator<MemoryEntry> it = memory.values().iterator();
+            while (memoryBytes > maxMemoryBytes && it.hasNext()) {
+                memoryBytes -= it.next().content.length;
+                it.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /** Deletes the oldest files until the disk tier is within its size limit. */
+    private void evictDisk() {
+        Path directory = diskDirectory;
+        if (directory == null || diskBytes.get() <= maxDiskBytes) {
+            return;
+        }
+        synchronized (diskBytes) {
+            try {
+                List<Path> files = listEntries(directory);
+                List<long[]> ages = new ArrayList<>(files.size());
+                for (int i = 0; i < files.size(); i++) {
+                    ages.add(new long[]{Files.getLastModifiedTime(files.get(i)).toMillis(), i});
+                }
+                ages.sort((a, b) -> Long.compare(a[0], b[0]));
+                for (long[] age : ages) {
+                    if (diskBytes.get() <= maxDiskBytes) {
+                        break;
+                    }
+                    deleteEntry(files.get((int) age[1]));
+                    evictions.incrementAndGet();
+                }
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Failed to evict cached reports from " + directory, e);
+            }
+        }
+    }
+
+    private void deleteEntry(Path file) throws IOException {
+        try {
+            long size = Files.size(file);
+            if (Files.deleteIfExists(file)) {
+                diskBytes.addAndGet(-size);
+            }
+        } catch (NoSuchFileException e) {
+            // already removed by another thread
+        }
+    }
+
+    private boolean isExpired(long createdAt, long now) {
+        return maxAgeMillis > 0 && now - createdAt > maxAgeMillis;
+    }
+
+    private static List<Path> listEntries(Path directory) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + FILE_SUFFIX)) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        return files;
+    }
+
+    private static String templatePrefix(String templateName) {
+        return ModelHasher.hash(templateName).substring(0, TEMPLATE_PREFIX_LENGTH);
+    }
+
+    private static final class MemoryEntry {
+        private final byte[] content;
+        private final long createdAt;
+
+        private MemoryEntry(byte[] content, long createdAt) {
+            this.content = content;
+            this.createdAt = createdAt;
+        }
+    }
+
+    /**
+     * Point-in-time counters of a {@link ReportCache}.
+     */
+    public static final class Statistics {
+        private final long memoryHits;
+        private final long diskHits;
+        private final long misses;
+        private final long uncacheable;
+        private final long stores;
+        private final long evictions;
+        private final int memoryEntries;
+        private final long memoryBytes;
+        private final long diskBytes;
+
+        Statistics(long memoryHits, long diskHits, long misses, long uncacheable, long stores, long evictions,
+                   int memoryEntries, long memoryBytes, long diskBytes) {
+            this.memoryHits = memoryHits;
+            this.diskHits = diskHits;
+            this.misses = misses;
+            this.uncacheable = uncacheable;
+            this.stores = stores;
+            this.evictions = evictions;
+            this.memoryEntries = memoryEntries;
+            this.memoryBytes = memoryBytes;
+            this.diskBytes = diskBytes;
+        }
+
+        /** @return number of reports served from the memory tier */
+        public long getMemoryHits() {
+            return memoryHits;
+        }
+
+        /** @return number of reports served from the disk tier */
+        public long getDiskHits() {
+            return diskHits;
+        }
+
+        /** @return number of cacheable reports that had to be rendered */
+        public long getMisses() {
+            return misses;
+        }
+
+        /** @return number of reports whose data model could not be hashed and bypassed the cache */
+        public long getUncacheable() {
+            return uncacheable;
+        }
+
+        /** @return number of rendered reports stored in the cache */
+        public long getStores() {
+            return stores;
+        }
+
+        /** @return number of entries evicted from either tier to stay within its size limit */
+        public long getEvictions() {
+            return evictions;
+        }
+
+        /** @return number of reports held in memory */
+        public int getMemoryEntries() {
+            return memoryEntries;
+        }
+
+        /** @return total size of the reports held in memory */
+        public long getMemoryBytes() {
+            return memoryBytes;
+        }
+
+        /** @return total size of the reports stored on disk */
+        public long getDiskBytes() {
+            return diskBytes;
+        }
+
+        @Override
+        public String toString() {
+            return "ReportCache.Statistics{memoryHits=" + memoryHits + ", diskHits=" + diskHits
+                    + ", misses=" + misses + ", uncacheable=" + uncacheable + ", stores=" + stores
+                    + ", evictions=" + evictions + ", memoryEntries=" + memoryEntries
+                    + ", memoryBytes=" + memoryBytes + ", diskBytes=" + diskBytes + "}";
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package dev.avelar.jambock.reports;
+
+/**
+ * Thrown when a report is stopped through its {@link CancellationToken} before it completed.
+ * Resources held by the render, such as pooled PDF renderers and buffer segments, have been
+ * released by the time this exception reaches the caller.
+ */
+public class ReportCancelledException extends ReportGenerationException {
+
+    /**
+     * Creates a new ReportCancelledException with the specified message.
+     *
+     * @param message the error message
+     */
+    public ReportCancelledException(String message) {
+        super(message);
+    }
+
+    /**
+     * Creates a new ReportCancelledException with the specified message and cause.
+     *
+     * @param message the error message
+     * @param cause the underlying cause
+     */
+    public ReportCancelledException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
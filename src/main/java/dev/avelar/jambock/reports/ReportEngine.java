@@ -1,7 +1,26 @@
 package dev.avelar.jambock.reports;
 
 import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -31,6 +50,10 @@ public class ReportEngine {
 
     private final TemplateEngine templateEngine;
     private final OutputRenderer outputRenderer;
+    private final List<ReportMetricsListener> metricsListeners;
+    private final AtomicReference<ReportCache> reportCache;
+    private final AtomicReference<BufferPool> bufferPool;
+    private final AtomicReference<ReportLimits> reportLimits;
 
     /**
      * Creates a new {@code ReportEngine} with the default {@link FreemarkerTemplateEngine}
@@ -70,6 +93,115 @@ public class ReportEngine {
     public ReportEngine(TemplateEngine templateEngine, OutputRenderer outputRenderer) {
         this.templateEngine = templateEngine;
         this.outputRenderer = outputRenderer;
+        this.metricsListeners = new CopyOnWriteArrayList<>();
+        this.reportCache = new AtomicReference<>();
+        this.bufferPool = new AtomicReference<>();
+        this.reportLimits = new AtomicReference<>(ReportLimits.UNLIMITED);
+    }
+
+    /**
+     * Creates an engine that shares all configuration of {@code source} but renders with a
+     * different {@link OutputRenderer}.
+     */
+    private ReportEngine(ReportEngine source, OutputRenderer outputRenderer) {
+        this.templateEngine = source.templateEngine;
+        this.outputRenderer = outputRenderer;
+        this.metricsListeners = source.metricsListeners;
+        this.reportCache = source.reportCache;
+        this.bufferPool = source.bufferPool;
+        this.reportLimits = source.reportLimits;
+    }
+
+    /**
+     * Returns a view of this engine that uses {@code renderer} instead of the configured
+     * {@link OutputRenderer}, keeping listeners and every other setting.
+     */
+    ReportEngine withOutputRenderer(OutputRenderer renderer) {
+        return renderer == outputRenderer ? this : new ReportEngine(this, renderer);
+    }
+
+    /**
+     * Registers a listener that is notified with per-stage timings and sizes of every report
+     * generated by this engine.
+     *
+     * @param listener the listener to add
+     */
+    public void addMetricsListener(ReportMetricsListener listener) {
+        metricsListeners.add(listener);
+    }
+
+    /**
+     * Removes a previously registered metrics listener.
+     *
+     * @param listener the listener to remove
+     */
+    public void removeMetricsListener(ReportMetricsListener listener) {
+        metricsListeners.remove(listener);
+    }
+
+    /**
+     * Sets the cache consulted before rendering a report. Reports whose data model can be hashed
+     * are served from the cache when an identical report was rendered before; served reports skip
+     * the template and render stages and are not reported to metrics listeners.
+     *
+     * @param cache the cache to use, or {@code null} to disable caching
+     */
+    public void setReportCache(ReportCache cache) {
+        reportCache.set(cache);
+    }
+
+    /**
+     * Returns the cache consulted before rendering a report.
+     *
+     * @return the configured cache, or {@code null} if caching is disabled
+     */
+    public ReportCache getReportCache() {
+        return reportCache.get();
+    }
+
+    /**
+     * Sets the pool of buffer segments that in-memory report output is written into. Without a
+     * pool, {@link #generateReportAsBytes(String, Map)} and
+     * {@link #generateReportToBuffer(String, Map, long)} grow a heap array by repeated copying;
+     * with one they fill recycled segments, and {@code generateReportToBuffer} hands them out
+     * without copying until the returned {@link ReportOutput} is closed. The pool also backs the
+     * per-format buffers of {@link #generateReports(String, Map, Map)}, the copy kept for the
+     * {@linkplain #setReportCache report cache} and the intermediate output of renderers that
+     * read {@link RenderContext#getBufferPool()}.
+     *
+     * @param pool the pool to use, or {@code null} to disable pooling
+     */
+    public void setBufferPool(BufferPool pool) {
+        bufferPool.set(pool);
+    }
+
+    /**
+     * Returns the pool of buffer segments used for in-memory report output.
+     *
+     * @return the configured pool, or {@code null} if pooling is disabled
+     */
+    public BufferPool getBufferPool() {
+        return bufferPool.get();
+    }
+
+    /**
+     * Sets upper bounds on the HTML, page count and document size of every report. A report that
+     * exceeds one fails with a {@link ReportLimitExceededException} as soon as the limit is crossed,
+     * so a runaway template costs a bounded amount of CPU and memory.
+     *
+     * @param limits the limits to enforce, or {@code null} to remove all limits
+     */
+    public void setReportLimits(ReportLimits limits) {
+        reportLimits.set(limits != null ? limits : ReportLimits.UNLIMITED);
+    }
+
+    /**
+     * Returns the limits enforced on every report.
+     *
+     * @return the configured limits, {@link ReportLimits#UNLIMITED} by default
+     */
+    public ReportLimits getReportLimits() {
+        return reportLimits.get();
     }
 
     /**
@@ -83,25 +215,151 @@ public class ReportEngine {
      */
     public void generateReport(String templateName, Map<String, Object> data, OutputStream outputStream)
             throws ReportGenerationException {
+        generateReport(templateName, data, outputStream, (CancellationToken) null);
+    }
+
+    /**
+     * Generates a report from a template and writes it to the given output stream, stopping early
+     * if {@code token} is cancelled or its deadline passes. See {@link CancellationToken} for where
+     * the token is checked.
+     *
+     * @param templateName the name of the template file (relative to the template directory)
+     * @param data         the data model to be used in the template
+     * @param outputStream the output stream where the document will be written
+     * @param token        the cancellation token of the report, or {@code null}
+     * @throws ReportCancelledException  if the report was cancelled, or {@link ReportTimeoutException}
+     *                                   if it ran past its deadline
+     * @throws ReportGenerationException if there is an error generating the report
+     */
+    public void generateReport(String templateName, Map<String, Object> data, OutputStream outputStream,
+                               CancellationToken token) throws ReportGenerationException {
+        ReportCache cache = reportCache.get();
+        String cacheKey = cache != null ? cache.keyFor(templateName, outputRenderer, data) : null;
+        if (cacheKey != null && writeCached(cache, cacheKey, outputStream)) {
+            logger.info("Report served from cache for template: " + templateName);
+            return;
+        }
+        render(outputRenderer, templateName, data, null, 0, cache, cacheKey, outputStream, token);
+    }
+
+    /**
+     * Runs the template stage (unless {@code html} was already produced) and the render stage of
+     * one report, storing the output in {@code cache} under {@code cacheKey} when one is given.
+     * {@code token} is attached to the current thread while the report runs so the template
+     * engines and row sources can check it.
+     */
+    private void render(OutputRenderer renderer, String templateName, Map<String, Object> data, CharSequence html,
+                        long templateNanos, ReportCache cache, String cacheKey, OutputStream outputStream,
+                        CancellationToken token) throws ReportGenerationException {
+        BufferPool pool = bufferPool.get();
+        CapturingOutputStream capture = cacheKey != null ? cache.capture(outputStream, pool) : null;
+        OutputStream target = capture != null ? capture : outputStream;
+
+        ReportLimits limits = reportLimits.get();
+        RenderContext context = new RenderContext(templateName, token);
+        context.setMaxPages(limits.getMaxPages());
+        context.setBufferPool(pool);
+        MeteredOutputStream metered = metricsListeners.isEmpty() ? null : new MeteredOutputStream(target);
+        OutputStream out = metered != null ? metered : target;
+        LimitedOutputStream limited = limits.getMaxOutputBytes() != Long.MAX_VALUE
+                ? new LimitedOutputStream(out, limits.getMaxOutputBytes()) : null;
+        if (limited != null) {
+            out = limited;
+        }
+        long renderNanos = 0;
+        long htmlLength = 0;
+        CancellationToken previous = CancellationToken.attach(token);
         try {
-            logger.info("Generating report using template: " + templateName);
+            context.checkCancelled();
+            if (html == null) {
+                logger.info("Generating report using template: " + templateName);
 
-            String html = templateEngine.processTemplate(templateName, data);
-            logger.fine("HTML generated, converting to output format...");
+                long start = System.nanoTime();
+                html = processTemplate(templateName, data, limits);
+                templateNanos = System.nanoTime() - start;
+                logger.fine("HTML generated, converting to output format...");
+            }
+            htmlLength = html.length();
 
-            byte[] output = outputRenderer.render(html);
-            outputStream.write(output);
-            outputStream.flush();
+            long start = System.nanoTime();
+            renderer.render(html, out, context);
+            out.flush();
+            renderNanos = System.nanoTime() - start - (metered != null ? metered.getNanos() : 0);
 
             logger.info("Report generated successfully");
+            if (capture != null) {
+                cache.put(cacheKey, capture);
+            }
+            fireReportGenerated(metricsOf(renderer, context, metered, templateNanos, renderNanos, htmlLength));
         } catch (ReportGenerationException e) {
-            throw e;
+            ReportGenerationException aborted = abortReasonOf(token, limited, e);
+            ReportGenerationException failure = aborted != null ? aborted : e;
+            fireReportFailed(metricsOf(renderer, context, metered, templateNanos, renderNanos, htmlLength), failure);
+            throw failure;
         } catch (Exception e) {
-            logger.log(Level.SEVERE, "Error generating report", e);
-            throw new ReportGenerationException("Failed to generate report: " + e.getMessage(), e);
+            ReportGenerationException failure = abortReasonOf(token, limited, e);
+            if (failure == null) {
+                logger.log(Level.SEVERE, "Error generating report", e);
+                failure = new ReportGenerationException("Failed to generate report: " + e.getMessage(), e);
+            }
+            fireReportFailed(metricsOf(renderer, context, metered, templateNanos, renderNanos, htmlLength), failure);
+            throw failure;
+        } finally {
+            CancellationToken.restore(previous);
+            if (capture != null) {
+                capture.discard();
+            }
         }
     }
 
+    /**
+     * Returns the exception to report when {@code failure} was caused by the report being stopped on
+     * purpose, by {@code token} or by exceeding a limit counted in {@code limited} (template engines
+     * and renderers surface both as I/O or unchecked exceptions), or {@code null} if the report
+     * failed on its own.
+     */
+    private static ReportGenerationException abortReasonOf(CancellationToken token, LimitedOutputStream limited,
+                                                           Exception failure) {
+        if (failure instanceof ReportCancelledException || failure instanceof ReportLimitExceededException) {
+            logger.warning("Report generation aborted: " + failure.getMessage());
+            return (ReportGenerationException) failure;
+        }
+        ReportGenerationException aborted = null;
+        if (limited != null && limited.getExceeded() != null) {
+            aborted = limited.getExceeded();
+        } else if (token != null && token.isCancelled()) {
+            aborted = token.toException(failure);
+        }
+        if (aborted != null) {
+            logger.warning("Report generation aborted: " + aborted.getMessage());
+        }
+        return aborted;
+    }
+
+    /**
+     * Runs the template stage into an {@link HtmlBuffer}, failing as soon as its output exceeds the
+     * HTML limit of {@code limits}. The buffer is handed to the renderers as it is; only renderers
+     * that need a {@code String} copy it.
+     */
+    private HtmlBuffer processTemplate(String templateName, Map<String, Object> data, ReportLimits limits)
+            throws ReportGenerationException {
+        HtmlBuffer html = new HtmlBuffer();
+        if (limits.getMaxHtmlChars() == Long.MAX_VALUE) {
+            templateEngine.processTemplate(templateName, data, html);
+            return html;
+        }
+        LimitedWriter writer = new LimitedWriter(html, limits.getMaxHtmlChars());
+        try {
+            templateEngine.processTemplate(templateName, data, writer);
+        } catch (ReportGenerationException | RuntimeException e) {
+            if (writer.getExceeded() != null) {
+                throw writer.getExceeded();
+            }
+            throw e;
+        }
+        return html;
+    }
+
     /**
      * Generates a report and saves it to a file.
      * The output format is determined by the configured {@link OutputRenderer}.
@@ -113,8 +371,24 @@ public class ReportEngine {
      */
     public void generateReport(String templateName, Map<String, Object> data, File outputFile)
             throws ReportGenerationException {
-        try (FileOutputStream fos = new FileOutputStream(outputFile)) {
-            generateReport(templateName, data, fos);
+        generateReport(templateName, data, outputFile, null);
+    }
+
+    /**
+     * Generates a report and saves it to a file, stopping early if {@code token} is cancelled or
+     * its deadline passes. The partially written file is left in place.
+     *
+     * @param templateName the name of the template file
+     * @param data         the data model to be used in the template
+     * @param outputFile   the output file where the document will be saved
+     * @param token        the cancellation token of the report, or {@code null}
+     * @throws ReportCancelledException  if the report was cancelled or ran past its deadline
+     * @throws ReportGenerationException if there is an error generating the report
+     */
+    public void generateReport(String templateName, Map<String, Object> data, File outputFile,
+                               CancellationToken token) throws ReportGenerationException {
+        try (OutputStream fos = new BufferedOutputStream(new FileOutputStream(outputFile))) {
+            generateReport(templateName, data, fos, token);
         } catch (IOException e) {
             throw new ReportGenerationException("Failed to write report to file: " + e.getMessage(), e);
         }
@@ -122,7 +396,9 @@ public class ReportEngine {
 
     /**
      * Generates a report and returns it as a byte array.
-     * The output format is determined by the configured {@link OutputRenderer}.
+     * The output format is determined by the configured {@link OutputRenderer}, which writes
+     * straight into the buffer backing the returned array, or into segments of the
+     * {@linkplain #setBufferPool buffer pool} that are copied into an array of the exact size.
      *
      * @param templateName the name of the template file
      * @param data         the data model to be used in the template
@@ -131,9 +407,645 @@ public class ReportEngine {
      */
     public byte[] generateReportAsBytes(String templateName, Map<String, Object> data)
             throws ReportGenerationException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        generateReport(templateName, data, baos);
-        return baos.toByteArray();
+        return generateReportAsBytes(templateName, data, null);
+    }
+
+    /**
+     * Generates a report and returns it as a byte array, stopping early if {@code token} is
+     * cancelled or its deadline passes. Pooled segments of a stopped report are returned to the
+     * pool before the exception is thrown.
+     *
+     * @param templateName the name of the template file
+     * @param data         the data model to be used in the template
+     * @param token        the cancellation token of the report, or {@code null}
+     * @return the document content as a byte array
+     * @throws ReportCancelledException  if the report was cancelled or ran past its deadline
+     * @throws ReportGenerationException if there is an error generating the report
+     */
+    public byte[] generateReportAsBytes(String templateName, Map<String, Object> data, CancellationToken token)
+            throws ReportGenerationException {
+        BufferPool pool = bufferPool.get();
+        if (pool == null) {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            generateReport(templateName, data, baos, token);
+            return baos.toByteArray();
+        }
+        PooledOutputStream buffer = new PooledOutputStream(pool);
+        try {
+            generateReport(templateName, data, buffer, token);
+            return buffer.toByteArray();
+        } finally {
+            buffer.release();
+        }
+    }
+
+    /**
+     * Generates a report into a buffer that moves to a temporary file in the system temporary
+     * directory once the document grows beyond {@code spillThreshold} bytes.
+     *
+     * @param templateName   the name of the template file
+     * @param data           the data model to be used in the template
+     * @param spillThreshold the largest document kept in memory, in bytes
+     * @return a handle to the document; close it to delete the temporary file
+     * @throws ReportGenerationException if there is an error generating the report
+     * @see #generateReportToBuffer(String, Map, long, Path)
+     */
+    public ReportOutput generateReportToBuffer(String templateName, Map<String, Object> data, long spillThreshold)
+            throws ReportGenerationException {
+        return generateReportToBuffer(templateName, data, spillThreshold, null);
+    }
+
+    /**
+     * Generates a report into a buffer that stays in memory up to {@code spillThreshold} bytes — in
+     * segments of the {@linkplain #setBufferPool buffer pool}, if one is configured — and moves to
+     * a temporary file in {@code directory} above that. Unlike
+     * {@link #generateReportAsBytes(String, Map)}, large documents never need a contiguous array
+     * in the heap. The returned handle can stream, {@link FileChannel#transferTo transfer} or
+     * memory-map the document; the temporary file is deleted when the handle is closed, or right
+     * away if generation fails.
+     *
+     * @param templateName   the name of the template file
+     * @param data           the data model to be used in the template
+     * @param spillThreshold the largest document kept in memory, in bytes
+     * @param directory      the directory for the temporary file, or {@code null} for the system
+     *                       temporary directory
+     * @return a handle to the document; close it to delete the temporary file
+     * @throws ReportGenerationException if there is an error generating the report
+     */
+    public ReportOutput generateReportToBuffer(String templateName, Map<String, Object> data, long spillThreshold,
+                                               Path directory) throws ReportGenerationException {
+        return generateReportToBuffer(templateName, data, spillThreshold, directory, null);
+    }
+
+    /**
+     * Generates a report into a spilling buffer like
+     * {@link #generateReportToBuffer(String, Map, long, Path)}, stopping early if {@code token} is
+     * cancelled or its deadline passes. The temporary file of a stopped report is deleted.
+     *
+     * @param templateName   the name of the template file
+     * @param data           the data model to be used in the template
+     * @param spillThreshold the largest document kept in memory, in bytes
+     * @param directory      the directory for the temporary file, or {@code null} for the system
+     *                       temporary directory
+     * @param token          the cancellation token of the report, or {@code null}
+     * @return a handle to the document; close it to delete the temporary file
+     * @throws ReportCancelledException  if the report was cancelled or ran past its deadline
+     * @throws ReportGenerationException if there is an error generating the report
+     */
+    public ReportOutput generateReportToBuffer(String templateName, Map<String, Object> data, long spillThreshold,
+                                               Path directory, CancellationToken token)
+            throws ReportGenerationException {
+        SpillingOutputStream buffer = new SpillingOutputStream(spillThreshold, directory, bufferPool.get());
+        try {
+            generateReport(templateName, data, buffer, token);
+            ReportOutput output = buffer.toReportOutput();
+            if (!output.isInMemory()) {
+                logger.fine("Report of " + output.size() + " bytes spilled to " + output.getFile());
+            }
+            return output;
+        } catch (IOException e) {
+            buffer.discard();
+            throw new ReportGenerationException("Failed to buffer report: " + e.getMessage(), e);
+        } catch (ReportGenerationException | RuntimeException e) {
+            buffer.discard();
+            throw e;
+        }
+    }
+
+    /**
+     * Generates the same report in several output formats from a single template pass and returns
+     * the documents keyed by format.
+     *
+     * <p>The template is processed once and the resulting HTML is handed to every renderer in
+     * parallel on the default report executor. The configured {@link OutputRenderer} is not used.
+     *
+     * @param templateName the name of the template file
+     * @param data         the data model to be used in the template
+     * @param renderers    the renderers to use, keyed by a format name such as {@code "pdf"}
+     * @return the document content per format, in the iteration order of {@code renderers}
+     * @throws ReportGenerationException if the template or any of the renderers fails
+     * @see #generateReports(String, Map, Map, Function, Executor)
+     */
+    public Map<String, byte[]> generateReports(String templateName, Map<String, Object> data,
+                                               Map<String, ? extends OutputRenderer> renderers)
+            throws ReportGenerationException {
+        return generateReports(templateName, data, renderers, (CancellationToken) null);
+    }
+
+    /**
+     * Generates the same report in several output formats from a single template pass, stopping
+     * every format early if {@code token} is cancelled or its deadline passes.
+     *
+     * @param templateName the name of the template file
+     * @param data         the data model to be used in the template
+     * @param renderers    the renderers to use, keyed by a format name such as {@code "pdf"}
+     * @param token        the cancellation token of the report, or {@code null}
+     * @return the document content per format, in the iteration order of {@code renderers}
+     * @throws ReportCancelledException  if the report was cancelled or ran past its deadline
+     * @throws ReportGenerationException if the template or any of the renderers fails
+     * @see #generateReports(String, Map, Map)
+     */
+    public Map<String, byte[]> generateReports(String templateName, Map<String, Object> data,
+                                               Map<String, ? extends OutputRenderer> renderers,
+                                               CancellationToken token) throws ReportGenerationException {
+        BufferPool pool = bufferPool.get();
+        if (pool == null) {
+            Map<String, ByteArrayOutputStream> buffers = new LinkedHashMap<>();
+            for (String format : renderers.keySet()) {
+                buffers.put(format, new ByteArrayOutputStream());
+            }
+            generateReports(templateName, data, renderers, buffers::get, ReportExecutors.defaultExecutor(), token);
+
+            Map<String, byte[]> reports = new LinkedHashMap<>();
+            for (Map.Entry<String, ByteArrayOutputStream> entry : buffers.entrySet()) {
+                reports.put(entry.getKey(), entry.getValue().toByteArray());
+            }
+            return reports;
+        }
+        Map<String, PooledOutputStream> buffers = new LinkedHashMap<>();
+        for (String format : renderers.keySet()) {
+            buffers.put(format, new PooledOutputStream(pool));
+        }
+        try {
+            generateReports(templateName, data, renderers, buffers::get, ReportExecutors.defaultExecutor(), token);
+
+            Map<String, byte[]> reports = new LinkedHashMap<>();
+            for (Map.Entry<String, PooledOutputStream> entry : buffers.entrySet()) {
+                reports.put(entry.getKey(), entry.getValue().toByteArray());
+            }
+            return reports;
+        } finally {
+            for (PooledOutputStream buffer : buffers.values()) {
+                buffer.release();
+            }
+        }
+    }
+
+    /**
+     * Generates the same report in several output formats from a single template pass, writing
+     * each format to its own sink.
+     *
+     * <p>Formats already held by the {@linkplain #setReportCache report cache} are served from it;
+     * the template is processed once for the remaining formats and the HTML is rendered by their
+     * renderers concurrently on {@code executor}. The stream returned by {@code sinks} for a format
+     * is closed after the document is written. Each format is reported to metrics listeners
+     * separately, with the shared template time. When several formats fail, the first failure in
+     * the iteration order of {@code renderers} is thrown once every format has finished.
+     *
+     * @param templateName the name of the template file
+     * @param data         the data model to be used in the template
+     * @param renderers    the renderers to use, keyed by a format name such as {@code "pdf"}
+     * @param sinks        opens the output stream for a given format
+     * @param executor     the executor that runs the render stages
+     * @throws ReportGenerationException if the template, any of the renderers or a sink fails
+     */
+    public void generateReports(String templateName, Map<String, Object> data,
+                                Map<String, ? extends OutputRenderer> renderers,
+                                Function<String, ? extends OutputStream> sinks, Executor executor)
+            throws ReportGenerationException {
+        generateReports(templateName, data, renderers, sinks, executor, null);
+    }
+
+    /**
+     * Generates the same report in several output formats from a single template pass, writing
+     * each format to its own sink and stopping early if {@code token} is cancelled or its deadline
+     * passes. The token is checked by the shared template stage and by every render stage.
+     *
+     * @param templateName the name of the template file
+     * @param data         the data model to be used in the template
+     * @param renderers    the renderers to use, keyed by a format name such as {@code "pdf"}
+     * @param sinks        opens the output stream for a given format
+     * @param executor     the executor that runs the render stages
+     * @param token        the cancellation token of the report, or {@code null}
+     * @throws ReportCancelledException  if the report was cancelled or ran past its deadline
+     * @throws ReportGenerationException if the template, any of the renderers or a sink fails
+     * @see #generateReports(String, Map, Map, Function, Executor)
+     */
+    public void generateReports(String templateName, Map<String, Object> data,
+                                Map<String, ? extends OutputRenderer> renderers,
+                                Function<String, ? extends OutputStream> sinks, Executor executor,
+                                CancellationToken token) throws ReportGenerationException {
+        ReportCache cache = reportCache.get();
+        Map<String, OutputStream> outputs = new LinkedHashMap<>();
+        Map<String, String> cacheKeys = new LinkedHashMap<>();
+        HtmlBuffer html;
+        long templateNanos;
+        try {
+            for (Map.Entry<String, ? extends OutputRenderer> entry : renderers.entrySet()) {
+                String format = entry.getKey();
+                OutputStream out = sinks.apply(format);
+                outputs.put(format, out);
+                String cacheKey = cache != null ? cache.keyFor(templateName, entry.getValue(), data) : null;
+                if (cacheKey != null && writeCached(cache, cacheKey, out)) {
+                    logger.info("Report served from cache for template: " + templateName
+                            + ", format: " + format);
+                    outputs.remove(format);
+                    closeSink(format, out);
+                } else {
+                    cacheKeys.put(format, cacheKey);
+                }
+            }
+            if (outputs.isEmpty()) {
+                return;
+            }
+
+            logger.info("Generating " + outputs.size() + " formats using template: " + templateName);
+            if (token != null) {
+                token.throwIfCancelled();
+            }
+            long start = System.nanoTime();
+            CancellationToken previous = CancellationToken.attach(token);
+            try {
+                html = processTemplate(templateName, data, reportLimits.get());
+            } finally {
+                CancellationToken.restore(previous);
+            }
+            templateNanos = System.nanoTime() - start;
+        } catch (ReportGenerationException | RuntimeException e) {
+            for (OutputStream out : outputs.values()) {
+                try {
+                    out.close();
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+            }
+            ReportGenerationException aborted = abortReasonOf(token, null, e);
+            if (aborted != null) {
+                throw aborted;
+            }
+            if (e instanceof ReportGenerationException) {
+                throw (ReportGenerationException) e;
+            }
+            logger.log(Level.SEVERE, "Error generating report", e);
+            throw new ReportGenerationException("Failed to generate report: " + e.getMessage(), e);
+        }
+
+        Map<String, CompletableFuture<Void>> futures = new LinkedHashMap<>();
+        for (Map.Entry<String, OutputStream> entry : outputs.entrySet()) {
+            String format = entry.getKey();
+            OutputRenderer renderer = renderers.get(format);
+            String cacheKey = cacheKeys.get(format);
+            OutputStream sink = entry.getValue();
+            try {
+                futures.put(format, CompletableFuture.runAsync(() -> {
+                    try (OutputStream out = sink) {
+                        render(renderer, templateName, data, html, templateNanos, cache, cacheKey, out, token);
+                    } catch (ReportGenerationException e) {
+                        throw new CompletionException(e);
+                    } catch (IOException e) {
+                        throw new CompletionException(new ReportGenerationException(
+                                "Failed to write " + format + " report: " + e.getMessage(), e));
+                    }
+                }, executor));
+            } catch (RejectedExecutionException e) {
+                CompletableFuture<Void> rejected = new CompletableFuture<>();
+                try {
+                    sink.close();
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+                rejected.completeExceptionally(new CompletionException(e));
+                futures.put(format, rejected);
+            }
+        }
+        try {
+            CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            for (Map.Entry<String, CompletableFuture<Void>> entry : futures.entrySet()) {
+                try {
+                    entry.getValue().join();
+                } catch (CompletionException failure) {
+                    Throwable cause = failure.getCause();
+                    if (cause instanceof ReportGenerationException) {
+                        throw (ReportGenerationException) cause;
+                    }
+                    throw new ReportGenerationException("Failed to generate " + entry.getKey() + " report: "
+                            + cause.getMessage(), cause);
+                }
+            }
+        }
+    }
+
+    /**
+     * Asynchronously generates a report and returns it as a byte array.
+     *
+     * <p>The work runs on the default report executor: virtual threads on Java 21+, otherwise a
+     * cached pool of daemon threads. The calling thread is never blocked.
+     *
+     * @param templateName the name of the template file
+     * @param data         the data model to be used in the template
+     * @return a future completed with the document content, or completed exceptionally with a
+     *         {@link CompletionException} wrapping the {@link ReportGenerationException}
+     */
+    public CompletableFuture<byte[]> generateReportAsync(String templateName, Map<String, Object> data) {
+        return generateReportAsync(templateName, data, ReportExecutors.defaultExecutor());
+    }
+
+    /**
+     * Asynchronously generates a report on the given executor and returns it as a byte array.
+     *
+     * @param templateName the name of the template file
+     * @param data         the data model to be used in the template
+     * @param executor     the executor that runs the template and render stages
+     * @return a future completed with the document content, or completed exceptionally with a
+     *         {@link CompletionException} wrapping the {@link ReportGenerationException}
+     */
+    public CompletableFuture<byte[]> generateReportAsync(String templateName, Map<String, Object> data,
+                                                         Executor executor) {
+        return generateReportAsync(templateName, data, executor, null);
+    }
+
+    /**
+     * Asynchronously generates a report on the given executor and returns it as a byte array,
+     * stopping early if {@code token} is cancelled or its deadline passes.
+     *
+     * @param templateName the name of the template file
+     * @param data         the data model to be used in the template
+     * @param executor     the executor that runs the template and render stages
+     * @param token        the cancellation token of the report, or {@code null}
+     * @return a future completed with the document content, or completed exceptionally with a
+     *         {@link CompletionException} wrapping the {@link ReportGenerationException}
+     */
+    public CompletableFuture<byte[]> generateReportAsync(String templateName, Map<String, Object> data,
+                                                         Executor executor, CancellationToken token) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return generateReportAsBytes(templateName, data, token);
+            } catch (ReportGenerationException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Asynchronously generates a report on the given executor and writes it to the output stream.
+     * The stream is flushed but not closed.
+     *
+     * @param templateName the name of the template file
+     * @param data         the data model to be used in the template
+     * @param outputStream the output stream where the document will be written
+     * @param executor     the executor that runs the template and render stages
+     * @return a future completed once the document has been written, or completed exceptionally
+     *         with a {@link CompletionException} wrapping the {@link ReportGenerationException}
+     */
+    public CompletableFuture<Void> generateReportAsync(String templateName, Map<String, Object> data,
+                                                       OutputStream outputStream, Executor executor) {
+        return generateReportAsync(templateName, data, outputStream, executor, null);
+    }
+
+    /**
+     * Asynchronously generates a report on the given executor and writes it to the output stream,
+     * stopping early if {@code token} is cancelled or its deadline passes. The stream is flushed
+     * but not closed.
+     *
+     * @param templateName the name of the template file
+     * @param data         the data model to be used in the template
+     * @param outputStream the output stream where the document will be written
+     * @param executor     the executor that runs the template and render stages
+     * @param token        the cancellation token of the report, or {@code null}
+     * @return a future completed once the document has been written, or completed exceptionally
+     *         with a {@link CompletionException} wrapping the {@link ReportGenerationException}
+     */
+    public CompletableFuture<Void> generateReportAsync(String templateName, Map<String, Object> data,
+                                                       OutputStream outputStream, Executor executor,
+                                                       CancellationToken token) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                generateReport(templateName, data, outputStream, token);
+            } catch (ReportGenerationException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Generates one report per data model, running the template and render stages in parallel on
+     * an internal pool sized to the number of available processors.
+     *
+     * @param templateName the name of the template file
+     * @param models       the data models, pulled lazily as capacity becomes available
+     * @param sink         opens the output stream for a given model; the stream is closed after the report is written
+     * @return the per-item outcome of the batch
+     * @throws ReportGenerationException if the model source itself fails or the calling thread is interrupted
+     * @see #generateBatch(String, Iterable, Function, Executor, int)
+     */
+    public BatchResult generateBatch(String templateName, Iterable<? extends Map<String, Object>> models,
+                                     Function<? super Map<String, Object>, ? extends OutputStream> sink)
+            throws ReportGenerationException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            return generateBatch(templateName, models, sink, executor, threads * 2);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Generates one report per data model, running the template and render stages on the given
+     * executor.
+     *
+     * <p>Models are pulled from {@code models} lazily: at most {@code maxInFlight} reports are
+     * queued or running at any time, so the source is never materialised in full. Each report is
+     * written to the stream returned by {@code sink}, which is closed afterwards. A failing model
+     * (template error, render error, sink error) is recorded in the result and does not stop the
+     * batch. This method returns once every submitted report has finished.
+     *
+     * @param templateName the name of the template file
+     * @param models       the data models, pulled lazily as capacity becomes available
+     * @param sink         opens the output stream for a given model; the stream is closed after the report is written
+     * @param executor     the executor that runs the individual reports
+     * @param maxInFlight  the maximum number of reports queued or running at the same time
+     * @return the per-item outcome of the batch
+     * @throws ReportGenerationException if the model source itself fails or the calling thread is interrupted
+     */
+    public BatchResult generateBatch(String templateName, Iterable<? extends Map<String, Object>> models,
+                                     Function<? super Map<String, Object>, ? extends OutputStream> sink,
+                                     Executor executor, int maxInFlight) throws ReportGenerationException {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be at least 1, got " + maxInFlight);
+        }
+        logger.info("Generating batch using template: " + templateName);
+        long start = System.nanoTime();
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        ConcurrentLinkedQueue<BatchResult.Item> results = new ConcurrentLinkedQueue<>();
+
+        int index = 0;
+        try {
+            for (Map<String, Object> model : models) {
+                inFlight.acquire();
+                int itemIndex = index++;
+                try {
+                    executor.execute(() -> {
+                        try {
+                            results.add(generateBatchItem(templateName, model, sink, itemIndex));
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    inFlight.release();
+                    results.add(new BatchResult.Item(itemIndex, e, 0));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ReportGenerationException("Interrupted while generating batch after " + index + " items", e);
+        } catch (RuntimeException e) {
+            inFlight.acquireUninterruptibly(maxInFlight);
+            throw new ReportGenerationException("Batch data source failed after " + index + " items: "
+                    + e.getMessage(), e);
+        }
+        inFlight.acquireUninterruptibly(maxInFlight);
+
+        List<BatchResult.Item> items = new ArrayList<>(results);
+        items.sort(Comparator.comparingInt(BatchResult.Item::getIndex));
+        BatchResult result = new BatchResult(items, System.nanoTime() - start);
+        logger.info("Batch generated: " + result.getSuccessCount() + " succeeded, "
+                + result.getFailureCount() + " failed");
+        return result;
+    }
+
+    /**
+     * Processes a template and streams the resulting HTML straight into {@code writer}, skipping
+     * the output rendering stage. Nothing is buffered by the engine; the writer is flushed but not
+     * closed.
+     *
+     * @param templateName the name of the template file
+     * @param data         the data model to be used in the template
+     * @param writer       the destination for the rendered HTML
+     * @throws ReportGenerationException if there is an error processing the template
+     */
+    public void generateHtml(String templateName, Map<String, Object> data, Writer writer)
+            throws ReportGenerationException {
+        try {
+            logger.info("Generating HTML using template: " + templateName);
+            templateEngine.processTemplate(templateName, data, writer);
+            writer.flush();
+        } catch (IOException e) {
+            throw new ReportGenerationException("Failed to write HTML: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Prepares the engine for traffic: parses and caches the given templates and initialises the
+     * configured output renderer as well as the PDF and DOCX pipelines (used when a report overrides
+     * the renderer, e.g. through {@link ReportBuilder#generateAsDocx()}), so the first real reports
+     * do not pay for template compilation and class loading.
+     *
+     * @param templateNames the templates to preload
+     * @throws ReportGenerationException if a template cannot be loaded or a renderer fails to
+     *                                   initialise
+     */
+    public void warmUp(Collection<String> templateNames) throws ReportGenerationException {
+        long start = System.nanoTime();
+        for (String templateName : templateNames) {
+            templateEngine.preloadTemplate(templateName);
+        }
+        outputRenderer.warmUp();
+        if (!(outputRenderer instanceof PdfOutputRenderer)) {
+            new PdfOutputRenderer().warmUp();
+        }
+        if (!(outputRenderer instanceof DocxOutputRenderer)) {
+            new DocxOutputRenderer().warmUp();
+        }
+        logger.info("Warmed up " + templateNames.size() + " templates in "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+    }
+
+    /**
+     * Like {@link #warmUp(Collection)}, then renders every template {@code iterations} times with
+     * {@code sampleData} so the JIT compiles the hot paths before real traffic arrives. Synthetic
+     * renders bypass the report cache and are not reported to metrics listeners; their output is
+     * discarded.
+     *
+     * @param templateNames the templates to preload and render
+     * @param sampleData    a representative data model accepted by every template
+     * @param iterations    how many times to render each template
+     * @throws ReportGenerationException if a template or a synthetic render fails
+     */
+    public void warmUp(Collection<String> templateNames, Map<String, Object> sampleData, int iterations)
+            throws ReportGenerationException {
+        warmUp(templateNames);
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            for (String templateName : templateNames) {
+                outputRenderer.render(processTemplate(templateName, sampleData, ReportLimits.UNLIMITED),
+                        new ByteArrayOutputStream(), new RenderContext(templateName));
+            }
+        }
+        logger.info("Ran " + iterations * templateNames.size() + " synthetic renders in "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+    }
+
+    private static void closeSink(String format, OutputStream out) throws ReportGenerationException {
+        try {
+            out.close();
+        } catch (IOException e) {
+            throw new ReportGenerationException("Failed to write " + format + " report: " + e.getMessage(), e);
+        }
+    }
+
+    private static boolean writeCached(ReportCache cache, String key, OutputStream out)
+            throws ReportGenerationException {
+        try {
+            if (!cache.writeTo(key, out)) {
+                return false;
+            }
+            out.flush();
+            return true;
+        } catch (IOException e) {
+            throw new ReportGenerationException("Failed to write cached report: " + e.getMessage(), e);
+        }
+    }
+
+    private ReportMetrics metricsOf(OutputRenderer renderer, RenderContext context, MeteredOutputStream metered,
+                                    long templateNanos, long renderNanos, long htmlLength) {
+        if (metered == null) {
+            return null;
+        }
+        return new ReportMetrics(context.getTemplateName(), renderer.getClass().getSimpleName(),
+                templateNanos, renderNanos, metered.getNanos(), htmlLength, metered.getBytes(),
+                context.getPageCount());
+    }
+
+    private void fireReportGenerated(ReportMetrics metrics) {
+        if (metrics == null) {
+            return;
+        }
+        for (ReportMetricsListener listener : metricsListeners) {
+            try {
+                listener.onReportGenerated(metrics);
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "Metrics listener failed", e);
+            }
+        }
+    }
+
+    private void fireReportFailed(ReportMetrics metrics, ReportGenerationException error) {
+        if (metrics == null) {
+            return;
+        }
+        for (ReportMetricsListener listener : metricsListeners) {
+            try {
+                listener.onReportFailed(metrics, error);
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "Metrics listener failed", e);
+            }
+        }
+    }
+
+    private BatchResult.Item generateBatchItem(String templateName, Map<String, Object> model,
+                                               Function<? super Map<String, Object>, ? extends OutputStream> sink,
+                                               int index) {
+        long start = System.nanoTime();
+        try (OutputStream out = sink.apply(model)) {
+            generateReport(templateName, model, out);
+            return new BatchResult.Item(index, null, System.nanoTime() - start);
+        } catch (Exception e) {
+            logger.log(Level.WARNING, "Batch item " + index + " failed", e);
+            return new BatchResult.Item(index, e, System.nanoTime() - start);
+        }
     }
 
     /**
@@ -0,0 +1,53 @@
+package dev.avelar.jambock.reports;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Default executor for asynchronous report generation.
+ *
+ * <p>Report generation blocks on template evaluation, layout and I/O, so it should not run on
+ * {@link java.util.concurrent.ForkJoinPool#commonPool()}. On Java 21+ a virtual-thread-per-task
+ * executor is used; older runtimes fall back to a cached pool of daemon threads. The virtual thread
+ * API is looked up reflectively because the library targets Java 8.
+ */
+final class ReportExecutors {
+
+    private static final Logger logger = Logger.getLogger(ReportExecutors.class.getName());
+
+    private static final Executor DEFAULT_EXECUTOR = createDefaultExecutor();
+
+    private ReportExecutors() {
+    }
+
+    static Executor defaultExecutor() {
+        return DEFAULT_EXECUTOR;
+    }
+
+    private static Executor createDefaultExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            ExecutorService executor = (ExecutorService) factory.invoke(null);
+            logger.fine("Using virtual threads for asynchronous report generation");
+            return executor;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return Executors.newCachedThreadPool(new DaemonThreadFactory());
+        }
+    }
+
+    private static final class DaemonThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, "jambock-report-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package dev.avelar.jambock.reports;
+
+/**
+ * Thrown when a report is aborted because it exceeded one of the {@link ReportLimits} of its
+ * engine, typically because a template bug produced far more output than intended.
+ */
+public class ReportLimitExceededException extends ReportGenerationException {
+
+    /**
+     * The limits a report can exceed.
+     */
+    public enum Limit {
+        /** Characters of HTML produced by the template. */
+        HTML_CHARS,
+        /** Pages laid out by a paginating renderer. */
+        PAGES,
+        /** Bytes of the finished document. */
+        OUTPUT_BYTES
+    }
+
+    private final Limit limit;
+    private final long maxValue;
+
+    /**
+     * Creates a new ReportLimitExceededException with the specified message.
+     *
+     * @param message  the error message
+     * @param limit    the limit that was exceeded
+     * @param maxValue the configured value of the limit
+     */
+    public ReportLimitExceededException(String message, Limit limit, long maxValue) {
+        super(message);
+        this.limit = limit;
+        this.maxValue = maxValue;
+    }
+
+    /**
+     * Returns the limit that was exceeded.
+     *
+     * @return the limit
+     */
+    public Limit getLimit() {
+        return limit;
+    }
+
+    /**
+     * Returns the configured value of the exceeded limit.
+     *
+     * @return the maximum number of characters, pages or bytes
+     */
+    public long getMaxValue() {
+        return maxValue;
+    }
+}
@@ -0,0 +1,96 @@
+package dev.avelar.jambock.reports;
+
+/**
+ * Upper bounds on the size of a single report, so that a template bug that loops over far too
+ * much data fails quickly instead of exhausting heap and CPU.
+ *
+ * <p>Each limit is enforced while the report is produced: the template output is counted as it is
+ * written, the page count is checked right after layout (before any PDF bytes are produced), and
+ * the document is counted as the renderer writes it. A report that exceeds a limit fails with a
+ * {@link ReportLimitExceededException}.
+ *
+ * <pre>{@code
+ * engine.setReportLimits(ReportLimits.UNLIMITED
+ *         .withMaxHtmlChars(50_000_000)
+ *         .withMaxPages(2_000)
+ *         .withMaxOutputBytes(100L * 1024 * 1024));
+ * }</pre>
+ *
+ * <p>Instances are immutable; the {@code with} methods return a copy.
+ */
+public final class ReportLimits {
+
+    /** Limits that never trigger; the default of every engine. */
+    public static final ReportLimits UNLIMITED = new ReportLimits(Long.MAX_VALUE, Integer.MAX_VALUE, Long.MAX_VALUE);
+
+    private final long maxHtmlChars;
+    private final int maxPages;
+    private final long maxOutputBytes;
+
+    private ReportLimits(long maxHtmlChars, int maxPages, long maxOutputBytes) {
+        this.maxHtmlChars = maxHtmlChars;
+        this.maxPages = maxPages;
+        this.maxOutputBytes = maxOutputBytes;
+    }
+
+    /**
+     * Returns a copy that limits the HTML produced by the template.
+     *
+     * @param maxHtmlChars the maximum number of characters
+     * @return the new limits
+     */
+    public ReportLimits withMaxHtmlChars(long maxHtmlChars) {
+        requirePositive("maxHtmlChars", maxHtmlChars);
+        return new ReportLimits(maxHtmlChars, maxPages, maxOutputBytes);
+    }
+
+    /**
+     * Returns a copy that limits the number of pages laid out by paginating renderers such as
+     * {@link PdfOutputRenderer}.
+     *
+     * @param maxPages the maximum number of pages
+     * @return the new limits
+     */
+    public ReportLimits withMaxPages(int maxPages) {
+        requirePositive("maxPages", maxPages);
+        return new ReportLimits(maxHtmlChars, maxPages, maxOutputBytes);
+    }
+
+    /**
+     * Returns a copy that limits the size of the finished document.
+     *
+     * @param maxOutputBytes the maximum number of bytes
+     * @return the new limits
+     */
+    public ReportLimits withMaxOutputBytes(long maxOutputBytes) {
+        requirePositive("maxOutputBytes", maxOutputBytes);
+        return new ReportLimits(maxHtmlChars, maxPages, maxOutputBytes);
+    }
+
+    /** @return the maximum number of HTML characters, {@link Long#MAX_VALUE} if unlimited */
+    public long getMaxHtmlChars() {
+        return maxHtmlChars;
+    }
+
+    /** @return the maximum number of pages, {@link Integer#MAX_VALUE} if unlimited */
+    public int getMaxPages() {
+        return maxPages;
+    }
+
+    /** @return the maximum document size in bytes, {@link Long#MAX_VALUE} if unlimited */
+    public long getMaxOutputBytes() {
+        return maxOutputBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "ReportLimits{maxHtmlChars=" + maxHtmlChars + ", maxPages=" + maxPages
+                + ", maxOutputBytes=" + maxOutputBytes + '}';
+    }
+
+    private static void requirePositive(String name, long value) {
+        if (value < 1) {
+            throw new IllegalArgumentException(name + " must be positive, got " + value);
+        }
+    }
+}
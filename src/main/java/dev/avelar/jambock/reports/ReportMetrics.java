@@ -0,0 +1,83 @@
+package dev.avelar.jambock.reports;
+
+/**
+ * Timings and sizes of a single report generation, delivered to {@link ReportMetricsListener}s.
+ *
+ * <p>Stages that did not run (because an earlier stage failed) report zero durations and sizes.
+ */
+public final class ReportMetrics {
+
+    private final String templateName;
+    private final String rendererName;
+    private final long templateNanos;
+    private final long renderNanos;
+    private final long writeNanos;
+    private final long htmlLength;
+    private final long outputBytes;
+    private final int pageCount;
+
+    ReportMetrics(String templateName, String rendererName, long templateNanos, long renderNanos,
+                  long writeNanos, long htmlLength, long outputBytes, int pageCount) {
+        this.templateName = templateName;
+        this.rendererName = rendererName;
+        this.templateNanos = templateNanos;
+        this.renderNanos = renderNanos;
+        this.writeNanos = writeNanos;
+        this.htmlLength = htmlLength;
+        this.outputBytes = outputBytes;
+        this.pageCount = pageCount;
+    }
+
+    /** @return the name of the template that was processed */
+    public String getTemplateName() {
+        return templateName;
+    }
+
+    /** @return the simple class name of the {@link OutputRenderer} that was used */
+    public String getRendererName() {
+        return rendererName;
+    }
+
+    /** @return time spent evaluating the template, in nanoseconds */
+    public long getTemplateNanos() {
+        return templateNanos;
+    }
+
+    /** @return time spent converting HTML to the output format, excluding writes, in nanoseconds */
+    public long getRenderNanos() {
+        return renderNanos;
+    }
+
+    /** @return time spent writing to the destination stream, in nanoseconds */
+    public long getWriteNanos() {
+        return writeNanos;
+    }
+
+    /** @return total time of all stages, in nanoseconds */
+    public long getTotalNanos() {
+        return templateNanos + renderNanos + writeNanos;
+    }
+
+    /** @return the length of the generated HTML in characters */
+    public long getHtmlLength() {
+        return htmlLength;
+    }
+
+    /** @return the number of bytes written to the destination stream */
+    public long getOutputBytes() {
+        return outputBytes;
+    }
+
+    /** @return the number of laid-out pages, or {@link RenderContext#UNKNOWN_PAGE_COUNT} */
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    @Override
+    public String toString() {
+        return "ReportMetrics{templateName='" + templateName + "', rendererName='" + rendererName
+                + "', templateNanos=" + templateNanos + ", renderNanos=" + renderNanos
+                + ", writeNanos=" + writeNanos + ", htmlLength=" + htmlLength
+                + ", outputBytes=" + outputBytes + ", pageCount=" + pageCount + "}";
+    }
+}
@@ -0,0 +1,31 @@
+package dev.avelar.jambock.reports;
+
+/**
+ * Callback interface for observing report generation in a {@link ReportEngine}.
+ *
+ * <p>Listeners are registered with {@link ReportEngine#addMetricsListener(ReportMetricsListener)} and
+ * are invoked synchronously on the generating thread once a report has finished, successfully or
+ * not. Implementations must be thread-safe and fast; exceptions thrown by a listener are logged
+ * and otherwise ignored.
+ *
+ * <p>A JMX-backed implementation is provided by {@link JmxReportMetricsListener}.
+ */
+public interface ReportMetricsListener {
+
+    /**
+     * Called after a report has been generated and written successfully.
+     *
+     * @param metrics the timings and sizes of the report
+     */
+    default void onReportGenerated(ReportMetrics metrics) {
+    }
+
+    /**
+     * Called after report generation has failed.
+     *
+     * @param metrics the timings and sizes of the stages that ran before the failure
+     * @param error   the failure
+     */
+    default void onReportFailed(ReportMetrics metrics, ReportGenerationException error) {
+    }
+}
@@ -0,0 +1,260 @@
+package dev.avelar.jambock.reports;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Handle to a generated report returned by
+ * {@link ReportEngine#generateReportToBuffer(String, java.util.Map, long)}.
+ *
+ * <p>Small reports are held in memory — in segments of the engine's {@link BufferPool} if one is
+ * configured — and reports larger than the spill threshold live in a temporary file. Either way the
+ * content can be read with {@link #openStream()}, copied to a channel with
+ * {@link #transferTo(WritableByteChannel)} — which uses {@link FileChannel#transferTo} for spilled
+ * reports, so the bytes do not pass through the heap — viewed as read-only buffers with
+ * {@link #getBuffers()} or memory-mapped with {@link #map()}.
+ *
+ * <pre>{@code
+ * try (ReportOutput report = engine.generateReportToBuffer("archive.ftl", data, 16 * 1024 * 1024)) {
+ *     report.transferTo(socketChannel);
+ * }
+ * }</pre>
+ *
+ * <p>{@link #close()} deletes the temporary file or returns the segments to the pool; the handle
+ * and any buffer obtained from it cannot be read afterwards. Reads may run concurrently, but
+ * closing must not overlap with them.
+ */
+public final class ReportOutput implements Closeable {
+
+    private final byte[] content;
+    private final PooledOutputStream segments;
+    private final Path file;
+    private final long size;
+    private volatile boolean closed;
+
+    ReportOutput(byte[] content) {
+        this.content = content;
+        this.segments = null;
+        this.file = null;
+        this.size = content.length;
+    }
+
+    ReportOutput(PooledOutputStream segments) {
+        this.content = null;
+        this.segments = segments;
+        this.file = null;
+        this.size = segments.size();
+    }
+
+    ReportOutput(Path file, long size) {
+        this.content = null;
+        this.segments = null;
+        this.file = file;
+        this.size = size;
+    }
+
+    /**
+     * Returns the size of the report in bytes.
+     *
+     * @return the report size
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Returns {@code true} if the report is held in memory, {@code false} if it was spilled to a
+     * temporary file.
+     *
+     * @return whether the report is held in memory
+     */
+    public boolean isInMemory() {
+        return file == null;
+    }
+
+    /**
+     * Returns the temporary file holding the report, or {@code null} if it is held in memory.
+     * The file is deleted when this handle is closed.
+     *
+     * @return the temporary file, or {@code null}
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Opens a stream over the report content. Each call returns an independent stream.
+     *
+     * @return a new input stream positioned at the start of the report
+     * @throws IOException if the temporary file cannot be opened
+     */
+    public InputStream openStream() throws IOException {
+        checkOpen();
+        if (file != null) {
+            return Files.newInputStream(file);
+        }
+        return segments != null ? new BuffersInputStream(segments.getBuffers()) : new ByteArrayInputStream(content);
+    }
+
+    /**
+     * Returns read-only views of the report content, in order and each positioned at its start.
+     * Reports held in pooled segments yield one buffer per segment and spilled reports one
+     * memory-mapped buffer; no content is copied. The buffers must not be used after
+     * {@link #close()}, when pooled segments are reused for other reports.
+     *
+     * @return read-only buffers that together hold the whole report
+     * @throws IOException if the temporary file cannot be mapped
+     */
+    public ByteBuffer[] getBuffers() throws IOException {
+        checkOpen();
+        return segments != null ? segments.getBuffers() : new ByteBuffer[]{map()};
+    }
+
+    /**
+     * Writes the whole report to {@code target}. Spilled reports are copied with
+     * {@link FileChannel#transferTo}, which lets the operating system move the bytes directly
+     * from the file to sockets and other files.
+     *
+     * @param target the channel to write to; it is not closed
+     * @return the number of bytes written
+     * @throws IOException if reading the report or writing to {@code target} fails
+     */
+    public long transferTo(WritableByteChannel target) throws IOException {
+        checkOpen();
+        if (file == null) {
+            for (ByteBuffer buffer : getBuffers()) {
+                while (buffer.hasRemaining()) {
+                    target.write(buffer);
+                }
+            }
+            return size;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long position = 0;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, target);
+            }
+            return position;
+        }
+    }
+
+    /**
+     * Writes the whole report to {@code out}.
+     *
+     * @param out the stream to write to; it is flushed but not closed
+     * @return the number of bytes written
+     * @throws IOException if reading the report or writing to {@code out} fails
+     * @see #transferTo(WritableByteChannel)
+     */
+    public long transferTo(OutputStream out) throws IOException {
+        long written = transferTo(Channels.newChannel(out));
+        out.flush();
+        return written;
+    }
+
+    /**
+     * Returns a read-only view of the report content. Spilled reports are memory-mapped, so their
+     * pages are loaded by the operating system on access instead of being copied into the heap.
+     * Reports held in more than one pooled segment are copied into a single heap buffer; use
+     * {@link #getBuffers()} to avoid the copy. Do not use the buffer after closing the handle.
+     *
+     * @return a read-only buffer over the whole report
+     * @throws IOException if the temporary file cannot be mapped, e.g. because it is larger than
+     *                     {@link Integer#MAX_VALUE} bytes
+     */
+    public ByteBuffer map() throws IOException {
+        checkOpen();
+        if (segments != null) {
+            ByteBuffer[] buffers = segments.getBuffers();
+            return buffers.length == 1 ? buffers[0] : ByteBuffer.wrap(segments.toByteArray()).asReadOnlyBuffer();
+        }
+        if (file == null) {
+            return ByteBuffer.wrap(content).asReadOnlyBuffer();
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Report of " + size + " bytes is too large to map");
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+    }
+
+    /**
+     * Deletes the temporary file or returns the pooled segments. Calling this method more than
+     * once has no effect.
+     *
+     * @throws IOException if the temporary file cannot be deleted
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (segments != null) {
+            segments.release();
+        }
+        if (file != null) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Report output has been closed");
+        }
+    }
+
+    /** Reads a sequence of buffers as one stream. */
+    private static final class BuffersInputStream extends InputStream {
+        private final ByteBuffer[] buffers;
+        private int index;
+
+        BuffersInputStream(ByteBuffer[] buffers) {
+            this.buffers = buffers;
+        }
+
+        @Override
+        public int read() {
+            ByteBuffer buffer = next();
+            return buffer != null ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            ByteBuffer buffer = next();
+            if (buffer == null) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            ByteBuffer buffer = next();
+            return buffer != null ? buffer.remaining() : 0;
+        }
+
+        private ByteBuffer next() {
+            while (index < buffers.length && !buffers[index].hasRemaining()) {
+                index++;
+            }
+            return index < buffers.length ? buffers[index] : null;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package dev.avelar.jambock.reports;
+
+/**
+ * Thrown by {@link ReportScheduler} when a report cannot be accepted because the queue of its
+ * priority class is full or the scheduler has been closed. It signals overload: callers should
+ * shed the request (e.g. answer HTTP 503) or retry later rather than wait.
+ */
+public class ReportRejectedException extends ReportGenerationException {
+
+    private final ReportScheduler.Priority priority;
+
+    /**
+     * Creates a new ReportRejectedException with the specified message.
+     *
+     * @param message  the error message
+     * @param priority the priority class the report was submitted with
+     */
+    public ReportRejectedException(String message, ReportScheduler.Priority priority) {
+        super(message);
+        this.priority = priority;
+    }
+
+    /**
+     * Creates a new ReportRejectedException with the specified message and cause.
+     *
+     * @param message  the error message
+     * @param priority the priority class the report was submitted with
+     * @param cause    the underlying cause
+     */
+    public ReportRejectedException(String message, ReportScheduler.Priority priority, Throwable cause) {
+        super(message, cause);
+        this.priority = priority;
+    }
+
+    /**
+     * Returns the priority class the rejected report was submitted with.
+     *
+     * @return the priority class
+     */
+    public ReportScheduler.Priority getPriority() {
+        return priority;
+    }
+}
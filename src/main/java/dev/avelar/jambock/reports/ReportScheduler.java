@@ -0,0 +1,555 @@
+package dev.avelar.jambock.reports;
+
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Admission control in front of a {@link ReportEngine}: runs at most {@code concurrency} reports
+ * at a time, queues the rest in bounded queues and rejects work beyond that with a
+ * {@link ReportRejectedException}, so overload turns into a fast, explicit signal instead of
+ * unbounded latency.
+ *
+ * <p>Reports are submitted with a tenant key and a {@link Priority}. {@link Priority#INTERACTIVE}
+ * reports always start before {@link Priority#BULK} reports, and each class has its own queue, so
+ * a full bulk queue never rejects interactive work. Within a class, tenants share the execution
+ * slots in proportion to their {@linkplain #withTenantWeight(String, int) weight} (stride
+ * scheduling): a tenant that queues ten thousand reports only delays the others by its fair share,
+ * not by the length of its backlog.
+ *
+ * <pre>{@code
+ * ReportScheduler scheduler = new ReportScheduler(engine, 8, 1000)
+ *         .withTenantWeight("premium", 4);
+ * CompletableFuture<byte[]> pdf = scheduler.submit("acme", ReportScheduler.Priority.INTERACTIVE,
+ *         "invoice.ftl", data);
+ * }</pre>
+ *
+ * <p>The data model of a queued report must not be modified until its future completes.
+ * Cancelling a future of a report that has not started yet removes it from its queue, freeing its
+ * place; cancelling it while the report runs stops the report through its
+ * {@link CancellationToken}. Instances are safe for
+ * concurrent use.
+ */
+public final class ReportScheduler implements AutoCloseable {
+
+    private static final Logger logger = Logger.getLogger(ReportScheduler.class.getName());
+
+    /** Pass increment of a tenant with weight 1; divisible by every small weight. */
+    private static final long STRIDE = 720_720L;
+
+    /**
+     * Priority classes of a {@link ReportScheduler}.
+     */
+    public enum Priority {
+        /** A user is waiting for the report, e.g. a download. Always started first. */
+        INTERACTIVE,
+        /** Background work such as batch exports. Runs when no interactive report is queued. */
+        BULK
+    }
+
+    private final ReportEngine engine;
+    private final Executor executor;
+    private final int concurrency;
+    private final int queueCapacity;
+    private final Map<String, Integer> tenantWeights = new ConcurrentHashMap<>();
+    private volatile long timeoutNanos;
+
+    private final Object lock = new Object();
+    private final Map<Priority, ClassQueue> queues = new EnumMap<>(Priority.class);
+    private int running;
+    private boolean closed;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    /**
+     * Creates a scheduler that runs reports on the default report executor (virtual threads on
+     * Java 21+).
+     *
+     * @param engine        the engine that generates the reports
+     * @param concurrency   the maximum number of reports generated at the same time
+     * @param queueCapacity the maximum number of waiting reports per priority class
+     */
+    public ReportScheduler(ReportEngine engine, int concurrency, int queueCapacity) {
+        this(engine, ReportExecutors.defaultExecutor(), concurrency, queueCapacity);
+    }
+
+    /**
+     * Creates a scheduler that runs reports on the given executor.
+     *
+     * @param engine        the engine that generates the reports
+     * @param executor      the executor that runs the reports; it should accept at least
+     *                      {@code concurrency} tasks at once
+     * @param concurrency   the maximum number of reports generated at the same time
+     * @param queueCapacity the maximum number of waiting reports per priority class
+     */
+    public ReportScheduler(ReportEngine engine, Executor executor, int concurrency, int queueCapacity) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("concurrency must be at least 1, got " + concurrency);
+        }
+        if (queueCapacity < 0) {
+            throw new IllegalArgumentException("queueCapacity must not be negative, got " + queueCapacity);
+        }
+        this.engine = engine;
+        this.executor = executor;
+        this.concurrency = concurrency;
+        this.queueCapacity = queueCapacity;
+        for (Priority priority : Priority.values()) {
+            queues.put(priority, new ClassQueue());
+        }
+    }
+
+    /**
+     * Sets the share of execution slots a tenant receives relative to other tenants of the same
+     * priority class. Tenants without an explicit weight have weight 1.
+     *
+     * @param tenant the tenant key
+     * @param weight the tenant's weight, between 1 and 1000
+     * @return this scheduler for method chaining
+     */
+    public ReportScheduler withTenantWeight(String tenant, int weight) {
+        if (weight < 1 || weight > 1000) {
+            throw new IllegalArgumentException("weight must be between 1 and 1000, got " + weight);
+        }
+        tenantWeights.put(tenant, weight);
+        return this;
+    }
+
+    /**
+     * Sets the deadline of every report submitted from now on, counted from submission so that
+     * time spent waiting in the queue counts. A report that misses it fails with a
+     * {@link ReportTimeoutException}.
+     *
+     * @param timeout the time a report may take from submission to completion
+     * @param unit    the unit of {@code timeout}
+     * @return this scheduler for method chaining
+     */
+    public ReportScheduler withTimeout(long timeout, TimeUnit unit) {
+        if (timeout <= 0) {
+            throw new IllegalArgumentException("timeout must be positive, got " + timeout);
+        }
+        this.timeoutNanos = unit.toNanos(timeout);
+        return this;
+    }
+
+    /**
+     * Queues a report and returns it as a byte array once generated.
+     *
+     * @param tenant       the tenant the report is generated for
+     * @param priority     the priority class of the report
+     * @param templateName the name of the template file
+     * @param data         the data model to be used in the template
+     * @return a future completed with the document content, or completed exceptionally with the
+     *         {@link ReportGenerationException}
+     * @throws ReportRejectedException if the queue of {@code priority} is full or the scheduler is
+     *                                 closed
+     */
+    public CompletableFuture<byte[]> submit(String tenant, Priority priority, String templateName,
+                                            Map<String, Object> data) throws ReportRejectedException {
+        return enqueue(tenant, priority, token -> engine.generateReportAsBytes(templateName, data, token));
+    }
+
+    /**
+     * Queues a report that is written to the given output stream once its turn comes. The stream
+     * is flushed but not closed.
+     *
+     * @param tenant       the tenant the report is generated for
+     * @param priority     the priority class of the report
+     * @param templateName the name of the template file
+     * @param data         the data model to be used in the template
+     * @param outputStream the output stream where the document will be written
+     * @return a future completed once the document has been written, or completed exceptionally
+     *         with the {@link ReportGenerationException}
+     * @throws ReportRejectedException if the queue of {@code priority} is full or the scheduler is
+     *                                 closed
+     */
+    public CompletableFuture<Void> submit(String tenant, Priority priority, String templateName,
+                                          Map<String, Object> data, OutputStream outputStream)
+            throws ReportRejectedException {
+        return enqueue(tenant, priority, token -> {
+            engine.generateReport(templateName, data, outputStream, token);
+            return null;
+        });
+    }
+
+    /**
+     * Returns a snapshot of the scheduler's queue depths, wait times and counters.
+     *
+     * @return the current statistics
+     */
+    public Statistics getStatistics() {
+        synchronized (lock) {
+            Map<Priority, ClassStatistics> classes = new EnumMap<>(Priority.class);
+            for (Map.Entry<Priority, ClassQueue> entry : queues.entrySet()) {
+                ClassQueue queue = entry.getValue();
+                classes.put(entry.getKey(), new ClassStatistics(queue.size, queue.started,
+                        queue.totalWaitNanos, queue.maxWaitNanos));
+            }
+            return new Statistics(classes, running, submitted.get(), rejected.get(), completed.get(), failed.get());
+        }
+    }
+
+    /**
+     * Stops accepting reports. Reports already queued still run; the executor is not shut down.
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            closed = true;
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Internal helpers
+    // -------------------------------------------------------------------------
+
+    private <T> CompletableFuture<T> enqueue(String tenant, Priority priority, Work<T> work)
+            throws ReportRejectedException {
+        Objects.requireNonNull(tenant, "tenant");
+        Objects.requireNonNull(priority, "priority");
+        long timeout = timeoutNanos;
+        CancellationToken token = timeout > 0
+                ? CancellationToken.withTimeout(timeout, TimeUnit.NANOSECONDS) : new CancellationToken();
+        Job<T> job = new Job<>(tenant, priority, work, token);
+        synchronized (lock) {
+            ClassQueue queue = queues.get(priority);
+            if (closed) {
+                rejected.incrementAndGet();
+                throw new ReportRejectedException("Report scheduler is closed", priority);
+            }
+            if (queue.size >= queueCapacity) {
+                rejected.incrementAndGet();
+                throw new ReportRejectedException("Report queue is full: " + queue.size + " " + priority
+                        + " reports waiting", priority);
+            }
+            queue.add(job, weightOf(tenant));
+            submitted.incrementAndGet();
+        }
+        job.future.whenComplete((result, failure) -> {
+            if (job.future.isCancelled()) {
+                synchronized (lock) {
+                    queues.get(priority).remove(job);
+                }
+            }
+        });
+        dispatch();
+        return job.future;
+    }
+
+    /** Starts queued reports while execution slots are free. */
+    private void dispatch() {
+        List<Job<?>> ready = new ArrayList<>();
+        synchronized (lock) {
+            while (running < concurrency) {
+                Job<?> job = pollNext();
+                if (job == null) {
+                    break;
+                }
+                running++;
+                ready.add(job);
+            }
+        }
+        for (Job<?> job : ready) {
+            try {
+                executor.execute(() -> run(job));
+            } catch (RejectedExecutionException e) {
+                synchronized (lock) {
+                    running--;
+                }
+                logger.log(Level.WARNING, "Executor rejected a queued report", e);
+                rejected.incrementAndGet();
+                job.future.completeExceptionally(new ReportRejectedException(
+                        "Executor rejected report: " + e.getMessage(), job.priority, e));
+            }
+        }
+    }
+
+    private Job<?> pollNext() {
+        for (ClassQueue queue : queues.values()) {
+            Job<?> job = queue.poll();
+            if (job != null) {
+                return job;
+            }
+        }
+        return null;
+    }
+
+    private void run(Job<?> job) {
+        boolean succeeded = false;
+        try {
+            succeeded = job.run();
+        } finally {
+            (succeeded ? completed : failed).incrementAndGet();
+            synchronized (lock) {
+                running--;
+            }
+            dispatch();
+        }
+    }
+
+    private int weightOf(String tenant) {
+        Integer weight = tenantWeights.get(tenant);
+        return weight != null ? weight : 1;
+    }
+
+    @FunctionalInterface
+    private interface Work<T> {
+        T run(CancellationToken token) throws ReportGenerationException;
+    }
+
+    private static final class Job<T> {
+        final String tenant;
+        final Priority priority;
+        final Work<T> work;
+        final CancellationToken token;
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        final long enqueuedAt = System.nanoTime();
+
+        Job(String tenant, Priority priority, Work<T> work, CancellationToken token) {
+            this.tenant = tenant;
+            this.priority = priority;
+            this.work = work;
+            this.token = token;
+            future.whenComplete((result, failure) -> {
+                if (future.isCancelled()) {
+                    token.cancel();
+                }
+            });
+        }
+
+        /**
+         * Runs the work and completes the future; returns {@code false} if the work failed. Errors
+         * fail the future as well and are rethrown afterwards.
+         */
+        boolean run() {
+            try {
+                future.complete(work.run(token));
+                return true;
+            } catch (ReportGenerationException e) {
+                future.completeExceptionally(e);
+            } catch (RuntimeException e) {
+                future.completeExceptionally(
+                        new ReportGenerationException("Failed to generate report: " + e.getMessage(), e));
+            } catch (Error e) {
+                future.completeExceptionally(
+                        new ReportGenerationException("Failed to generate report: " + e, e));
+                throw e;
+            }
+            return false;
+        }
+    }
+
+    /** Waiting reports of one priority class, one FIFO per tenant. Guarded by the scheduler lock. */
+    private static final class ClassQueue {
+        private final Map<String, TenantQueue> tenants = new HashMap<>();
+        private final PriorityQueue<TenantQueue> active = new PriorityQueue<>(
+                Comparator.comparingLong((TenantQueue t) -> t.pass).thenComparingLong(t -> t.sequence));
+        private long virtualTime;
+        private long nextSequence;
+        int size;
+        long started;
+        long totalWaitNanos;
+        long maxWaitNanos;
+
+        void add(Job<?> job, int weight) {
+            TenantQueue queue = tenants.get(job.tenant);
+            if (queue == null) {
+                // a tenant (re)joining starts at the current virtual time, so idle periods earn no credit
+                queue = new TenantQueue(job.tenant, STRIDE / weight, virtualTime, nextSequence++);
+                tenants.put(job.tenant, queue);
+                active.add(queue);
+            }
+            queue.jobs.add(job);
+            size++;
+        }
+
+        /** Removes a job that has not been started yet; does nothing if it already left the queue. */
+        void remove(Job<?> job) {
+            TenantQueue queue = tenants.get(job.tenant);
+            if (queue == null || !queue.jobs.remove(job)) {
+                return;
+            }
+            if (queue.jobs.isEmpty()) {
+                tenants.remove(queue.tenant);
+                active.remove(queue);
+            }
+            size--;
+        }
+
+        /** Returns the next job to start, or {@code null} if no job is waiting. */
+        Job<?> poll() {
+            while (size > 0) {
+                TenantQueue queue = active.poll();
+                Job<?> job = queue.jobs.poll();
+                size--;
+                // a job cancelled just now is skipped without charging its tenant or the statistics
+                boolean cancelled = job.future.isDone();
+                if (!cancelled) {
+                    virtualTime = queue.pass;
+                    queue.pass += queue.stride;
+                }
+                if (queue.jobs.isEmpty()) {
+                    tenants.remove(queue.tenant);
+                } else {
+                    active.add(queue);
+                }
+                if (cancelled) {
+                    continue;
+                }
+
+                long wait = System.nanoTime() - job.enqueuedAt;
+                started++;
+                totalWaitNanos += wait;
+                maxWaitNanos = Math.max(maxWaitNanos, wait);
+                return job;
+            }
+            return null;
+        }
+    }
+
+    private static final class TenantQueue {
+        final ArrayDeque<Job<?>> jobs = new ArrayDeque<>();
+        final String tenant;
+        final long stride;
+        final long sequence;
+        long pass;
+
+        TenantQueue(String tenant, long stride, long pass, long sequence) {
+            this.tenant = tenant;
+            this.stride = stride;
+            this.pass = pass;
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * Queue depth and wait times of one priority class.
+     */
+    public static final class ClassStatistics {
+        private final int queueDepth;
+        private final long started;
+        private final long totalWaitNanos;
+        private final long maxWaitNanos;
+
+        ClassStatistics(int queueDepth, long started, long totalWaitNanos, long maxWaitNanos) {
+            this.queueDepth = queueDepth;
+            this.started = started;
+            this.totalWaitNanos = totalWaitNanos;
+            this.maxWaitNanos = maxWaitNanos;
+        }
+
+        /** @return number of reports currently waiting */
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+
+        /** @return number of reports that left the queue */
+        public long getStarted() {
+            return started;
+        }
+
+        /** @return mean time reports spent in the queue, or 0 if none has left it yet */
+        public long getAverageWaitNanos() {
+            return started > 0 ? totalWaitNanos / started : 0;
+        }
+
+        /** @return longest time a report spent in the queue */
+        public long getMaxWaitNanos() {
+            return maxWaitNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "{queueDepth=" + queueDepth + ", started=" + started + ", averageWaitNanos="
+                    + getAverageWaitNanos() + ", maxWaitNanos=" + maxWaitNanos + "}";
+        }
+    }
+
+    /**
+     * Point-in-time counters of a {@link ReportScheduler}.
+     */
+    public static final class Statistics {
+        private final Map<Priority, ClassStatistics> classes;
+        private final int running;
+        private final long submitted;
+        private final long rejected;
+        private final long completed;
+        private final long failed;
+
+        Statistics(Map<Priority, ClassStatistics> classes, int running, long submitted, long rejected,
+                   long completed, long failed) {
+            this.classes = classes;
+            this.running = running;
+            this.submitted = submitted;
+            this.rejected = rejected;
+            this.completed = completed;
+            this.failed = failed;
+        }
+
+        /**
+         * @param priority the priority class
+         * @return queue depth and wait times of {@code priority}
+         */
+        public ClassStatistics get(Priority priority) {
+            return classes.get(priority);
+        }
+
+        /** @return number of reports waiting across all priority classes */
+        public int getQueueDepth() {
+            int depth = 0;
+            for (ClassStatistics statistics : classes.values()) {
+                depth += statistics.getQueueDepth();
+            }
+            return depth;
+        }
+
+        /** @return number of reports being generated */
+        public int getRunning() {
+            return running;
+        }
+
+        /** @return number of reports accepted into a queue */
+        public long getSubmitted() {
+            return submitted;
+        }
+
+        /** @return number of reports rejected because a queue was full or the scheduler closed */
+        public long getRejected() {
+            return rejected;
+        }
+
+        /** @return number of reports generated successfully */
+        public long getCompleted() {
+            return completed;
+        }
+
+        /** @return number of reports whose generation failed */
+        public long getFailed() {
+            return failed;
+        }
+
+        @Override
+        public String toString() {
+            return "ReportScheduler.Statistics{classes=" + classes + ", running=" + running
+                    + ", submitted=" + submitted + ", rejected=" + rejected + ", completed=" + completed
+                    + ", failed=" + failed + "}";
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package dev.avelar.jambock.reports;
+
+/**
+ * Thrown when a report is stopped because the deadline of its {@link CancellationToken} passed.
+ */
+public class ReportTimeoutException extends ReportCancelledException {
+
+    /**
+     * Creates a new ReportTimeoutException with the specified message.
+     *
+     * @param message the error message
+     */
+    public ReportTimeoutException(String message) {
+        super(message);
+    }
+
+    /**
+     * Creates a new ReportTimeoutException with the specified message and cause.
+     *
+     * @param message the error message
+     * @param cause the underlying cause
+     */
+    public ReportTimeoutException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,243 @@
+package dev.avelar.jambock.reports;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * {@link RowSource} that streams the rows of a JDBC {@link ResultSet} into a template.
+ *
+ * <p>Each row is exposed as a read-only {@code Map<String, Object>} keyed by column label, so
+ * templates written against {@code List<Map<String, Object>>} models keep working unchanged. Column
+ * labels are read once from the result set metadata and shared by all rows; a row holds only its
+ * values, and lookups are case-insensitive. Rows are read from the cursor as the template asks for
+ * them, so with a suitable fetch size memory use stays flat regardless of the number of rows.
+ *
+ * <pre>{@code
+ * try (Connection connection = dataSource.getConnection();
+ *      ResultSetRowSource rows = ResultSetRowSource.query(connection,
+ *              "SELECT description, quantity, unit_price FROM line_item WHERE invoice_id = ?", 500, invoiceId)) {
+ *     data.put("lineItems", rows);
+ *     engine.generateReport("invoice.ftl", data, outputFile);
+ * }
+ * }</pre>
+ *
+ * <p>Failures while reading are thrown as {@link RowSourceException}. Closing the source closes the
+ * result set, and the statement too when the source was created by
+ * {@link #query(Connection, String, int, Object...)}; the connection is never closed.
+ */
+public final class ResultSetRowSource implements RowSource<Map<String, Object>> {
+
+    private final ResultSet resultSet;
+    private final Statement ownedStatement;
+    private final String[] columnLabels;
+    private final Map<String, Integer> columnIndexes;
+    /** Result of the look-ahead {@code resultSet.next()}, or {@code null} if the cursor has not been advanced. */
+    private Boolean advanced;
+    private boolean started;
+
+    /**
+     * Creates a row source over an already executed result set. The result set should be
+     * {@link ResultSet#TYPE_FORWARD_ONLY}; it is read from its current position.
+     *
+     * @param resultSet the rows
+     * @param fetchSize the number of rows the driver should fetch per round trip, or {@code 0} to
+     *                  keep the driver's default
+     * @throws RowSourceException if the result set metadata cannot be read
+     */
+    public ResultSetRowSource(ResultSet resultSet, int fetchSize) {
+        this(resultSet, fetchSize, null);
+    }
+
+    private ResultSetRowSource(ResultSet resultSet, int fetchSize, Statement ownedStatement) {
+        this.resultSet = resultSet;
+        this.ownedStatement = ownedStatement;
+        try {
+            if (fetchSize > 0) {
+                resultSet.setFetchSize(fetchSize);
+            }
+            ResultSetMetaData metaData = resultSet.getMetaData();
+            int columnCount = metaData.getColumnCount();
+            this.columnLabels = new String[columnCount];
+            this.columnIndexes = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            for (int i = 0; i < columnCount; i++) {
+                columnLabels[i] = metaData.getColumnLabel(i + 1);
+                columnIndexes.putIfAbsent(columnLabels[i], i);
+            }
+        } catch (SQLException e) {
+            throw new RowSourceException("Failed to read result set metadata: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Executes a query with a forward-only, read-only cursor and returns its rows. The statement
+     * is closed together with the returned source.
+     *
+     * @param connection the connection to query
+     * @param sql        the SQL query, with {@code ?} placeholders for {@code parameters}
+     * @param fetchSize  the number of rows the driver should fetch per round trip, or {@code 0} to
+     *                   keep the driver's default
+     * @param parameters the values bound to the placeholders, in order
+     * @return a row source over the query results
+     * @throws SQLException if the query cannot be executed
+     */
+    public static ResultSetRowSource query(Connection connection, String sql, int fetchSize, Object... parameters)
+            throws SQLException {
+        PreparedStatement statement =
+                connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        try {
+            if (fetchSize > 0) {
+                statement.setFetchSize(fetchSize);
+            }
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setObject(i + 1, parameters[i]);
+            }
+            return new ResultSetRowSource(statement.executeQuery(), fetchSize, statement);
+        } catch (SQLException | RuntimeException e) {
+            statement.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the column labels of the result set, in column order.
+     *
+     * @return a copy of the column labels
+     */
+    public String[] getColumnLabels() {
+        return columnLabels.clone();
+    }
+
+    /**
+     * Returns a view of the result set cursor. Every view shares the cursor and its look-ahead, so
+     * template engines may look the source up several times (e.g. an emptiness check followed by a
+     * loop) without losing rows; asking for a new view after rows have been read fails.
+     */
+    @Override
+    public synchronized Iterator<Map<String, Object>> iterator() {
+        if (started) {
+            throw new IllegalStateException("ResultSetRowSource has already been consumed; it can only be iterated once");
+        }
+        return new Iterator<Map<String, Object>>() {
+            @Override
+            public boolean hasNext() {
+                if (advanced == null) {
+                    CancellationToken.checkCurrent();
+                    try {
+                        advanced = resultSet.next();
+                    } catch (SQLException e) {
+                        throw new RowSourceException("Failed to read next row: " + e.getMessage(), e);
+                    }
+                }
+                return advanced;
+            }
+
+            @Override
+            public Map<String, Object> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                started = true;
+                advanced = null;
+                Object[] values = new Object[columnLabels.length];
+                try {
+                    for (int i = 0; i < values.length; i++) {
+                        values[i] = resultSet.getObject(i + 1);
+                    }
+                } catch (SQLException e) {
+                    throw new RowSourceException("Failed to read row values: " + e.getMessage(), e);
+                }
+                return new Row(values);
+            }
+        };
+    }
+
+    /**
+     * Closes the result set, and the statement if this source executed the query.
+     *
+     * @throws RowSourceException if closing fails
+     */
+    @Override
+    public void close() {
+        try {
+            try {
+                resultSet.close();
+            } finally {
+                if (ownedStatement != null) {
+                    ownedStatement.close();
+                }
+            }
+        } catch (SQLException e) {
+            throw new RowSourceException("Failed to close result set: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Read-only map view of one row, backed by the row's values and the shared column index.
+     */
+    private final class Row extends AbstractMap<String, Object> {
+
+        private final Object[] values;
+
+        private Row(Object[] values) {
+            this.values = values;
+        }
+
+        @Override
+        public Object get(Object key) {
+            Integer index = key instanceof String ? columnIndexes.get(key) : null;
+            return index != null ? values[index] : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof String && columnIndexes.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<Entry<String, Object>>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    return new Iterator<Entry<String, Object>>() {
+                        private int index;
+
+                        @Override
+                        public boolean hasNext() {
+                            return index < values.length;
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            if (index >= values.length) {
+                                throw new NoSuchElementException();
+                            }
+                            int i = index++;
+                            return new SimpleImmutableEntry<>(columnLabels[i], values[i]);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return values.length;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package dev.avelar.jambock.reports;
+
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * A lazy, single-pass sequence of rows that can be placed in a report's data model instead of a
+ * fully materialised {@link java.util.List}.
+ *
+ * <p>Rows are pulled while the template iterates over the source, so only the row being rendered
+ * has to be in memory. Both built-in template engines iterate row sources natively (FreeMarker via
+ * {@link StreamingObjectWrapper}, Thymeleaf via {@code th:each}); plain {@link Iterator} and
+ * {@link Stream} values in the model are supported as well.
+ *
+ * <pre>{@code
+ * try (Stream<LedgerEntry> entries = ledger.stream()) {
+ *     data.put("entries", RowSource.of(entries));
+ *     engine.generateReport("ledger.ftl", data, out);
+ * }
+ * }</pre>
+ *
+ * <p>A row source can be iterated only once: once rows have been read, {@link #iterator()} throws
+ * {@link IllegalStateException}. Templates may test the variable for presence or
+ * {@linkplain #isEmpty() emptiness}, but must not list the same source twice or ask for its size. Row sources are not hashable, so reports built from them
+ * bypass the {@link ReportCache}.
+ *
+ * @param <T> the row type
+ */
+public interface RowSource<T> extends Iterable<T>, AutoCloseable {
+
+    /**
+     * Releases the resources backing this source. The default implementation does nothing.
+     */
+    @Override
+    default void close() {
+    }
+
+    /**
+     * Returns {@code true} if no rows are left. The next row is looked at but not consumed, so a
+     * template can check for content before listing the source, e.g. with
+     * {@code th:if="${items != null and !items.empty}"}, which works for lists as well.
+     *
+     * @return whether the source has no more rows
+     */
+    default boolean isEmpty() {
+        return !iterator().hasNext();
+    }
+
+    /**
+     * Creates a row source that reads from {@code iterator}.
+     *
+     * @param iterator the rows
+     * @param <T>      the row type
+     * @return a single-pass row source
+     */
+    static <T> RowSource<T> of(Iterator<? extends T> iterator) {
+        return new IteratorRowSource<>(iterator, null);
+    }
+
+    /**
+     * Creates a row source that reads from {@code stream}. Closing the row source closes the
+     * stream.
+     *
+     * @param stream the rows
+     * @param <T>    the row type
+     * @return a single-pass row source
+     */
+    static <T> RowSource<T> of(Stream<? extends T> stream) {
+        return new IteratorRowSource<>(stream.iterator(), stream);
+    }
+}
@@ -0,0 +1,19 @@
+package dev.avelar.jambock.reports;
+
+/**
+ * Unchecked exception thrown by a {@link RowSource} when reading the next row fails, e.g. because
+ * the database connection behind a {@link ResultSetRowSource} was lost. Template engines wrap it,
+ * so callers of {@link ReportEngine} receive it as the cause of a {@link ReportGenerationException}.
+ */
+public class RowSourceException extends RuntimeException {
+
+    /**
+     * Creates a new RowSourceException with the specified message and cause.
+     *
+     * @param message the error message
+     * @param cause the underlying cause
+     */
+    public RowSourceException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
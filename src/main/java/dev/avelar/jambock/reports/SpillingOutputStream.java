@@ -0,0 +1,140 @@
+package dev.avelar.jambock.reports;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Output buffer that keeps the first {@code threshold} bytes in memory and moves everything to a
+ * temporary file once the output grows beyond that, so large documents never live in heap. The
+ * in-memory part uses segments of a {@link BufferPool} when one is given. Call
+ * {@link #toReportOutput()} when writing is done, or {@link #discard()} to delete the file and
+ * return the segments.
+ */
+final class SpillingOutputStream extends OutputStream {
+
+    private static final int INITIAL_CAPACITY = 8 * 1024;
+    private static final int FILE_BUFFER_SIZE = 64 * 1024;
+
+    private final long threshold;
+    private final Path directory;
+    private OutputStream memory;
+    private Path file;
+    private OutputStream fileOut;
+    private long size;
+    private boolean closed;
+
+    /**
+     * @param threshold the largest output kept in memory, in bytes
+     * @param directory the directory for the temporary file, or {@code null} for the system default
+     * @param pool      the pool backing the in-memory part, or {@code null} to use a heap array
+     */
+    SpillingOutputStream(long threshold, Path directory, BufferPool pool) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException("threshold must not be negative, got " + threshold);
+        }
+        this.threshold = threshold;
+        this.directory = directory;
+        this.memory = pool != null
+                ? new PooledOutputStream(pool)
+                : new ByteArrayOutputStream((int) Math.min(threshold, INITIAL_CAPACITY));
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        target(1).write(b);
+        size++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        target(len).write(b, off, len);
+        size += len;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (fileOut != null) {
+            fileOut.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            if (fileOut != null) {
+                fileOut.close();
+            }
+        }
+    }
+
+    /** Returns {@code true} once the output has been moved to a temporary file. */
+    boolean isSpilled() {
+        return file != null;
+    }
+
+    /**
+     * Closes the stream and hands its content over to a {@link ReportOutput}, which becomes
+     * responsible for deleting the temporary file or returning the pooled segments.
+     */
+    ReportOutput toReportOutput() throws IOException {
+        close();
+        if (file != null) {
+            return new ReportOutput(file, size);
+        }
+        return memory instanceof PooledOutputStream
+                ? new ReportOutput((PooledOutputStream) memory)
+                : new ReportOutput(((ByteArrayOutputStream) memory).toByteArray());
+    }
+
+    /** Closes the stream and deletes the temporary file, if any. */
+    void discard() {
+        try {
+            close();
+        } catch (IOException e) {
+            // the file is deleted below anyway
+        }
+        if (file != null) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                file.toFile().deleteOnExit();
+            }
+        }
+        releaseMemory();
+    }
+
+    private OutputStream target(int len) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (file == null && size + len > threshold) {
+            spill();
+        }
+        return fileOut != null ? fileOut : memory;
+    }
+
+    private void spill() throws IOException {
+        file = directory != null
+                ? Files.createTempFile(directory, "jambock-", ".report")
+                : Files.createTempFile("jambock-", ".report");
+        fileOut = new BufferedOutputStream(Files.newOutputStream(file), FILE_BUFFER_SIZE);
+        if (memory instanceof PooledOutputStream) {
+            ((PooledOutputStream) memory).writeTo(fileOut);
+        } else {
+            ((ByteArrayOutputStream) memory).writeTo(fileOut);
+        }
+        releaseMemory();
+    }
+
+    private void releaseMemory() {
+        if (memory instanceof PooledOutputStream) {
+            ((PooledOutputStream) memory).release();
+        }
+        memory = null;
+    }
+}
@@ -0,0 +1,187 @@
+package dev.avelar.jambock.reports;
+
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.nodes.TextNode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * {@link OutputRenderer} that converts HTML to DOCX by writing WordprocessingML directly into the
+ * output zip while the HTML is walked, instead of building an Apache POI {@code XWPFDocument} in
+ * memory first.
+ *
+ * <p>It supports the same elements and produces the same formatting as {@link DocxOutputRenderer}
+ * (headings, paragraphs with inline {@code <b>} / {@code <i>} / {@code <u>} / {@code <br>}, lists
+ * and tables). The HTML is parsed incrementally and every block, table row and list item is written
+ * and discarded as soon as it completes, so memory use does not grow with the size of the document
+ * and the XMLBeans overhead is avoided. This makes it the better choice for large exports:
+ * <pre>{@code
+ * ReportEngine engine = new ReportEngine(new FreemarkerTemplateEngine(), new StreamingDocxOutputRenderer());
+ * }</pre>
+ */
+public class StreamingDocxOutputRenderer implements OutputRenderer {
+
+    /**
+     * Converts the supplied HTML string into a DOCX document.
+     *
+     * @param html the fully-rendered HTML string produced by a {@link TemplateEngine}
+     * @return the DOCX content as a byte array
+     * @throws ReportGenerationException if document creation or serialisation fails
+     */
+    @Override
+    public byte[] render(String html) throws ReportGenerationException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        render(html, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Converts the supplied HTML string into a DOCX document, streaming it directly to {@code out}.
+     *
+     * @param html the fully-rendered HTML string produced by a {@link TemplateEngine}
+     * @param out  the destination for the DOCX document
+     * @throws ReportGenerationException if document creation or serialisation fails
+     */
+    @Override
+    public void render(String html, OutputStream out) throws ReportGenerationException {
+        render(html, out, new RenderContext(null));
+    }
+
+    /**
+     * Converts the supplied HTML string into a DOCX document, streaming it directly to {@code out}.
+     *
+     * @param html    the fully-rendered HTML string produced by a {@link TemplateEngine}
+     * @param out     the destination for the DOCX document
+     * @param context the per-request render context, checked for cancellation during the traversal
+     * @throws ReportGenerationException if document creation or writing to {@code out} fails
+     */
+    @Override
+    public void render(String html, OutputStream out, RenderContext context) throws ReportGenerationException {
+        render((CharSequence) html, out, context);
+    }
+
+    /**
+     * Converts the supplied HTML into a DOCX document, streaming it directly to {@code out}.
+     *
+     * @param html    the fully-rendered HTML produced by a {@link TemplateEngine}
+     * @param out     the destination for the DOCX document
+     * @param context the per-request render context, checked for cancellation during the traversal
+     * @throws ReportGenerationException if document creation or writing to {@code out} fails
+     */
+    @Override
+    public void render(CharSequence html, OutputStream out, RenderContext context)
+            throws ReportGenerationException {
+        try {
+            DocxStreamWriter writer = new DocxStreamWriter(out);
+            HtmlBlockStreamer.stream(HtmlBuffer.reader(html), new StreamingHandler(writer), context);
+            writer.finish();
+        } catch (IOException e) {
+            throw new ReportGenerationException("Failed to generate DOCX document: " + e.getMessage(), e);
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Block handling
+    // -------------------------------------------------------------------------
+
+    /**
+     * Writes a run for each text node and inline element ({@code <b>}, {@code <strong>},
+     * {@code <i>}, {@code <em>}, {@code <u>}, {@code <br>}, {@code <span>}) of {@code element}.
+     */
+    private static void writeInlineContent(DocxStreamWriter writer, Element element) throws IOException {
+        for (Node node : element.childNodes()) {
+            if (node instanceof TextNode) {
+                String text = ((TextNode) node).text();
+                if (!text.isEmpty()) {
+                    writer.run(text, null);
+                }
+            } else if (node instanceof Element) {
+                Element child = (Element) node;
+                switch (child.normalName()) {
+                    case "b": case "strong":
+                        writer.run(child.text(), DocxStyles.STRONG);
+                        break;
+                    case "i": case "em":
+                        writer.run(child.text(), DocxStyles.EMPHASIS);
+                        break;
+                    case "u":
+                        writer.run(child.text(), DocxStyles.UNDERLINE);
+                        break;
+                    case "br":
+                        writer.lineBreak();
+                        break;
+                    default:
+                        String text = child.text().trim();
+                        if (!text.isEmpty()) {
+                            writer.run(text, null);
+                        }
+                }
+            }
+        }
+    }
+
+    private static final class StreamingHandler implements HtmlBlockStreamer.Handler {
+
+        private final DocxStreamWriter writer;
+
+        private StreamingHandler(DocxStreamWriter writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void block(Element element) throws IOException {
+            String tag = element.normalName();
+            switch (tag) {
+                case "h1": case "h2": case "h3":
+                case "h4": case "h5": case "h6":
+                    writer.paragraph(element.text(), DocxStyles.heading(tag));
+                    break;
+                case "p":
+                    writer.startParagraph(DocxStyles.BODY_TEXT);
+                    writeInlineContent(writer, element);
+                    writer.endParagraph();
+                    break;
+                default:
+                    String text = element.text().trim();
+                    if (!text.isEmpty()) {
+                        writer.paragraph(text, null);
+                    }
+            }
+        }
+
+        @Override
+        public void listItem(Element item, boolean ordered, int number) throws IOException {
+            String prefix = ordered ? number + ". " : "\u2022 ";
+            writer.paragraph(prefix + item.text(), DocxStyles.LIST_ITEM);
+        }
+
+        @Override
+        public void startTable(int columns) throws IOException {
+            writer.startTable(columns);
+        }
+
+        @Override
+        public void tableRow(Element row, int columns) throws IOException {
+            writer.startRow();
+            int written = 0;
+            for (Element cell : row.children()) {
+                if (HtmlBlockStreamer.isCell(cell)) {
+                    writer.cell(cell.text(), "th".equals(cell.normalName()));
+                    written++;
+                }
+            }
+            for (; written < columns; written++) {
+                writer.cell(null, false);
+            }
+            writer.endRow();
+        }
+
+        @Override
+        public void endTable() throws IOException {
+            writer.endTable();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package dev.avelar.jambock.reports;
+
+import freemarker.template.DefaultIteratorAdapter;
+import freemarker.template.DefaultObjectWrapper;
+import freemarker.template.TemplateModel;
+import freemarker.template.TemplateModelException;
+import freemarker.template.Version;
+
+import java.util.stream.Stream;
+
+/**
+ * FreeMarker object wrapper that exposes lazy data sources — {@link RowSource}, {@link Stream}
+ * and {@link java.util.Iterator} — as single-pass collections, so {@code <#list>} pulls rows one at
+ * a time instead of requiring a materialised {@link java.util.List}.
+ *
+ * <p>The wrapper also checks the {@link CancellationToken} of the running report whenever it wraps
+ * a value. Lists, collections, arrays and iterators hand every element they yield to the wrapper,
+ * so a {@code <#list>} over Java data can be cancelled at each iteration even when its body writes
+ * no output. Numeric ranges such as {@code 1..n} are built by FreeMarker itself and are not seen.
+ *
+ * <p>Used by the default configuration of {@link FreemarkerTemplateEngine}. When supplying a custom
+ * {@link freemarker.template.Configuration}, install it with
+ * {@code cfg.setObjectWrapper(new StreamingObjectWrapper(cfg.getIncompatibleImprovements()))}.
+ */
+public class StreamingObjectWrapper extends DefaultObjectWrapper {
+
+    /**
+     * Creates a wrapper for the given FreeMarker compatibility level.
+     *
+     * @param incompatibleImprovements the FreeMarker version whose wrapping behaviour to follow
+     */
+    public StreamingObjectWrapper(Version incompatibleImprovements) {
+        super(incompatibleImprovements);
+        setUseAdaptersForContainers(true);
+    }
+
+    @Override
+    public TemplateModel wrap(Object obj) throws TemplateModelException {
+        CancellationToken.checkCurrent();
+        return super.wrap(obj);
+    }
+
+    @Override
+    protected TemplateModel handleNonBasicTypes(Object obj) throws TemplateModelException {
+        if (obj instanceof RowSource) {
+            return DefaultIteratorAdapter.adapt(((RowSource<?>) obj).iterator(), this);
+        }
+        if (obj instanceof Stream) {
+            return DefaultIteratorAdapter.adapt(((Stream<?>) obj).iterator(), this);
+        }
+        return super.handleNonBasicTypes(obj);
+    }
+}
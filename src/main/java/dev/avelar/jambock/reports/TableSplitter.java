@@ -0,0 +1,189 @@
+package dev.avelar.jambock.reports;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Entities;
+import org.jsoup.parser.Parser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link HtmlTransformer} that splits tables with more than {@code maxRows} body rows into
+ * consecutive tables of at most {@code maxRows} rows each.
+ *
+ * <p>Flying Saucer lays out a table as a whole, which becomes dramatically slower than linear for
+ * tables with tens of thousands of rows. Every continuation table keeps the original table's
+ * attributes, {@code <colgroup>} and {@code <thead>}; the {@code <caption>} stays on the first table
+ * and the {@code <tfoot>} moves to the last one. Vertical margins between the parts are removed and
+ * {@code id} attributes are kept only on the first part, so the output looks like the original
+ * table.
+ *
+ * <pre>{@code
+ * PdfOutputRenderer pdf = new PdfOutputRenderer().withHtmlTransformer(new TableSplitter(500));
+ * }</pre>
+ *
+ * <p>Tables with fewer rows are left untouched, and documents without any such table are returned
+ * without being parsed. Documents are parsed as XML unless the renderer uses
+ * {@linkplain PdfOutputRenderer#withHtml5Parsing() HTML5 parsing}, so self-closing XHTML elements
+ * keep their meaning.
+ */
+public final class TableSplitter implements HtmlTransformer {
+
+    private static final String CONTINUATION_STYLE = "margin-top: 0";
+    private static final String CONTINUED_STYLE = "margin-bottom: 0";
+
+    private final int maxRows;
+
+    /**
+     * Creates a splitter that keeps at most {@code maxRows} body rows per table.
+     *
+     * @param maxRows the maximum number of body rows per table
+     */
+    public TableSplitter(int maxRows) {
+        if (maxRows < 1) {
+            throw new IllegalArgumentException("maxRows must be positive, got " + maxRows);
+        }
+        this.maxRows = maxRows;
+    }
+
+    /**
+     * Returns the maximum number of body rows per table.
+     *
+     * @return the configured row limit
+     */
+    public int getMaxRows() {
+        return maxRows;
+    }
+
+    @Override
+    public String transform(String html) {
+        return transform(html, false);
+    }
+
+    @Override
+    public String transform(String html, boolean html5) {
+        if (countRows(html) <= maxRows) {
+            return html;
+        }
+        Document document = html5 ? Jsoup.parse(html) : Jsoup.parse(html, "", Parser.xmlParser());
+        document.outputSettings()
+                .syntax(Document.OutputSettings.Syntax.xml)
+                .escapeMode(Entities.EscapeMode.xhtml)
+                .prettyPrint(false);
+
+        boolean changed = false;
+        for (Element table : document.select("table")) {
+            changed |= split(table);
+        }
+        return changed ? document.outerHtml() : html;
+    }
+
+    @Override
+    public String toString() {
+        return "TableSplitter{maxRows=" + maxRows + "}";
+    }
+
+    // -------------------------------------------------------------------------
+    // Internal helpers
+    // -------------------------------------------------------------------------
+
+    private boolean split(Element table) {
+        List<Element> rows = new ArrayList<>();
+        Element thead = null;
+        Element tfoot = null;
+        Element caption = null;
+        List<Element> colgroups = new ArrayList<>();
+        Element tbody = null;
+        for (Element child : table.children()) {
+            switch (child.normalName()) {
+                case "thead":
+                    thead = child;
+                    break;
+                case "tfoot":
+                    tfoot = child;
+                    break;
+                case "caption":
+                    caption = child;
+                    break;
+                case "colgroup":
+                case "col":
+                    colgroups.add(child);
+                    break;
+                case "tbody":
+                    if (tbody == null) {
+                        tbody = child;
+                    }
+                    rows.addAll(child.children());
+                    break;
+                case "tr":
+                    rows.add(child);
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (rows.size() <= maxRows) {
+            return false;
+        }
+
+        Element insertAfter = table;
+        int parts = (rows.size() + maxRows - 1) / maxRows;
+        for (int part = 0; part < parts; part++) {
+            Element piece = table.shallowClone();
+            if (part > 0) {
+                piece.removeAttr("id");
+                appendStyle(piece, CONTINUATION_STYLE);
+            }
+            if (part < parts - 1) {
+                appendStyle(piece, CONTINUED_STYLE);
+            }
+            if (part == 0 && caption != null) {
+                piece.appendChild(caption.clone());
+            }
+            for (Element colgroup : colgroups) {
+                piece.appendChild(colgroup.clone());
+            }
+            if (thead != null) {
+                piece.appendChild(thead.clone());
+            }
+            Element body = tbody != null ? tbody.shallowClone() : new Element("tbody");
+            if (part > 0) {
+                body.removeAttr("id");
+            }
+            for (Element row : rows.subList(part * maxRows, Math.min(rows.size(), (part + 1) * maxRows))) {
+                body.appendChild(row);
+            }
+            piece.appendChild(body);
+            if (part == parts - 1 && tfoot != null) {
+                piece.appendChild(tfoot.clone());
+            }
+            insertAfter.after(piece);
+            insertAfter = piece;
+        }
+        table.remove();
+        return true;
+    }
+
+    private static void appendStyle(Element element, String declaration) {
+        String style = element.attr("style").trim();
+        if (style.isEmpty()) {
+            element.attr("style", declaration);
+        } else {
+            element.attr("style", style + (style.endsWith(";") ? " " : "; ") + declaration);
+        }
+    }
+
+    /** Counts {@code <tr} tags, an upper bound for the rows of any single table. */
+    private static int countRows(String html) {
+        int count = 0;
+        for (int i = html.indexOf('<'); i >= 0 && i + 3 < html.length(); i = html.indexOf('<', i + 1)) {
+            char next = html.charAt(i + 3);
+            if (html.regionMatches(true, i + 1, "tr", 0, 2) && (next == '>' || Character.isWhitespace(next))) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
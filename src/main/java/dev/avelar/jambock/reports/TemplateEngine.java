@@ -1,5 +1,7 @@
 package dev.avelar.jambock.reports;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.Map;
 
 /**
@@ -21,6 +23,40 @@ public interface TemplateEngine {
      * @throws ReportGenerationException if the template cannot be found or processed
      */
     String processTemplate(String templateName, Map<String, Object> data) throws ReportGenerationException;
-}
 
+    /**
+     * Processes the given template with the supplied data model and writes the rendered HTML
+     * directly to {@code writer}, without materialising the whole document as a {@link String}.
+     *
+     * <p>The writer is not closed. The default implementation falls back to
+     * {@link #processTemplate(String, Map)}; the built-in engines override it to stream natively.
+     *
+     * @param templateName the name / path of the template to process (relative to the template root)
+     * @param data         the data model to expose to the template
+     * @param writer       the destination for the rendered HTML
+     * @throws ReportGenerationException if the template cannot be found or processed, or if
+     *                                   writing to {@code writer} fails
+     */
+    default void processTemplate(String templateName, Map<String, Object> data, Writer writer)
+            throws ReportGenerationException {
+        String html = processTemplate(templateName, data);
+        try {
+            writer.write(html);
+        } catch (IOException e) {
+            throw new ReportGenerationException(
+                    "Failed to write output of template '" + templateName + "': " + e.getMessage(), e);
+        }
+    }
 
+    /**
+     * Loads, parses and caches the given template without producing any output, so that the first
+     * real request does not pay for template compilation.
+     *
+     * <p>The default implementation does nothing.
+     *
+     * @param templateName the name / path of the template to preload (relative to the template root)
+     * @throws ReportGenerationException if the template cannot be found or parsed
+     */
+    default void preloadTemplate(String templateName) throws ReportGenerationException {
+    }
+}
@@ -0,0 +1,63 @@
+package dev.avelar.jambock.reports;
+
+/**
+ * JMX view of the report metrics collected for a single template by
+ * {@link JmxReportMetricsListener}. Durations are in milliseconds, sizes in characters (HTML) or
+ * bytes (output).
+ */
+public interface TemplateMetricsMXBean {
+
+    /** @return the template these metrics belong to */
+    String getTemplateName();
+
+    /** @return number of successfully generated reports */
+    long getCount();
+
+    /** @return number of failed report generations */
+    long getFailureCount();
+
+    /** @return mean end-to-end duration */
+    double getTotalMeanMillis();
+
+    /** @return median end-to-end duration */
+    double getTotalP50Millis();
+
+    /** @return 99th percentile end-to-end duration */
+    double getTotalP99Millis();
+
+    /** @return slowest end-to-end duration */
+    double getTotalMaxMillis();
+
+    /** @return median template processing duration */
+    double getTemplateP50Millis();
+
+    /** @return 99th percentile template processing duration */
+    double getTemplateP99Millis();
+
+    /** @return median output rendering duration (excluding writes) */
+    double getRenderP50Millis();
+
+    /** @return 99th percentile output rendering duration (excluding writes) */
+    double getRenderP99Millis();
+
+    /** @return median time spent writing output */
+    double getWriteP50Millis();
+
+    /** @return 99th percentile time spent writing output */
+    double getWriteP99Millis();
+
+    /** @return mean generated HTML length in characters */
+    double getMeanHtmlLength();
+
+    /** @return mean output size in bytes */
+    double getMeanOutputBytes();
+
+    /** @return largest output size in bytes */
+    long getMaxOutputBytes();
+
+    /** @return mean page count of paginated output */
+    double getMeanPageCount();
+
+    /** @return largest page count of paginated output */
+    long getMaxPageCount();
+}
@@ -2,9 +2,13 @@ package dev.avelar.jambock.reports;
 
 import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.context.Context;
+import org.thymeleaf.exceptions.TemplateInputException;
 import org.thymeleaf.templatemode.TemplateMode;
 import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
 
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Collections;
 import java.util.Locale;
 import java.util.Map;
 
@@ -53,16 +57,48 @@ public class ThymeleafTemplateEngine implements dev.avelar.jambock.reports.Templ
      */
     @Override
     public String processTemplate(String templateName, Map<String, Object> data) throws ReportGenerationException {
+        StringWriter writer = new StringWriter();
+        processTemplate(templateName, data, writer);
+        return writer.toString();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Thymeleaf writes its output to {@code writer} as the template executes.
+     *
+     * @throws ReportGenerationException wrapping any runtime exception thrown by Thymeleaf
+     */
+    @Override
+    public void processTemplate(String templateName, Map<String, Object> data, Writer writer)
+            throws ReportGenerationException {
         try {
-            Context context = new Context(Locale.US);
-            context.setVariables(data);
-            return thymeleafEngine.process(templateName, context);
+            thymeleafEngine.process(templateName, createContext(data), CancellableWriter.wrap(writer));
         } catch (Exception e) {
             throw new ReportGenerationException(
                     "Thymeleaf failed to process template '" + templateName + "': " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Resolves and parses the template by processing it with an empty model, which stores the
+     * parsed template in Thymeleaf's cache. Errors raised while evaluating expressions against the
+     * empty model are ignored; only a template that cannot be resolved or parsed is reported.
+     *
+     * @throws ReportGenerationException if the template cannot be found or parsed
+     */
+    @Override
+    public void preloadTemplate(String templateName) throws ReportGenerationException {
+        try {
+            thymeleafEngine.process(templateName, createContext(Collections.emptyMap()), new StringWriter());
+        } catch (TemplateInputException e) {
+            throw new ReportGenerationException(
+                    "Thymeleaf failed to load template '" + templateName + "': " + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            // expressions need real data; the template itself has been parsed and cached
+        }
+    }
+
     /**
      * Returns the underlying Thymeleaf {@link TemplateEngine}.
      *
@@ -76,6 +112,12 @@ public class ThymeleafTemplateEngine implements dev.avelar.jambock.reports.Templ
     // Internal helpers
     // -------------------------------------------------------------------------
 
+    private static Context createContext(Map<String, Object> data) {
+        Context context = new Context(Locale.US);
+        context.setVariables(IteratorRowSource.adaptModel(data));
+        return context;
+    }
+
     private static TemplateEngine createDefaultEngine() {
         ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
         resolver.setPrefix("/templates/");
@@ -141,7 +141,7 @@
         </div>
     </#if>
 
-    <#if items?? && items?size gt 0>
+    <#if items?has_content>
         <h2>Items</h2>
         <table>
             <thead>
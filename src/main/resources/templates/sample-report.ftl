@@ -110,7 +110,7 @@
         </#if>
     </div>
 
-    <#if items?? && items?size gt 0>
+    <#if items?has_content>
         <h2>Items</h2>
         <table>
             <thead>
@@ -1,16 +1,61 @@
 package dev.avelar.jambock.reports;
 
+import com.lowagie.text.pdf.BaseFont;
+import com.lowagie.text.pdf.PdfDictionary;
+import com.lowagie.text.pdf.PdfName;
+import com.lowagie.text.pdf.PdfObject;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.parser.PdfTextExtractor;
+import freemarker.cache.StringTemplateLoader;
+import freemarker.template.Configuration;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFParagraph;
+import org.apache.poi.xwpf.usermodel.XWPFTable;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.parser.Parser;
+import org.jsoup.select.Elements;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
+import org.thymeleaf.templateresolver.StringTemplateResolver;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 /**
  * Tests for the ReportEngine class (FreeMarker and Thymeleaf engines).
@@ -184,6 +229,41 @@ class ReportEngineTest {
     assertEquals("A4", data.get("pageSize"), "pageSize should be 'A4'");
   }
 
+  /** Returns a TrueType font installed on this machine, or {@code null} if none is found. */
+  private static Path findTrueTypeFont() throws IOException {
+    List<Path> roots = Arrays.asList(Paths.get(System.getProperty("java.home"), "lib", "fonts"),
+        Paths.get("/usr/share/fonts"), Paths.get("/Library/Fonts"), Paths.get("C:\\Windows\\Fonts"));
+    for (Path root : roots) {
+      if (Files.isDirectory(root)) {
+        try (Stream<Path> files = Files.walk(root, 3)) {
+          Optional<Path> font = files.filter(file -> file.toString().toLowerCase(Locale.ROOT).endsWith(".ttf"))
+              .sorted().findFirst();
+          if (font.isPresent()) {
+            return font.get();
+          }
+        }
+      }
+    }
+    return null;
+  }
+
+  /** Returns the {@code /BaseFont} names of every font dictionary in a PDF. */
+  private static Set<String> pdfFontNames(byte[] pdf) throws IOException {
+    Set<String> names = new TreeSet<>();
+    PdfReader reader = new PdfReader(pdf);
+    for (int i = 1; i < reader.getXrefSize(); i++) {
+      PdfObject object = reader.getPdfObject(i);
+      if (object instanceof PdfDictionary && PdfName.FONT.equals(((PdfDictionary) object).get(PdfName.TYPE))) {
+        PdfName name = ((PdfDictionary) object).getAsName(PdfName.BASEFONT);
+        if (name != null) {
+          names.add(PdfName.decodeName(name.toString()));
+        }
+      }
+    }
+    reader.close();
+    return names;
+  }
+
   private Map<String, Object> createSampleReportData() {
     Map<String, Object> data = new HashMap<>();
     data.put("title", "Test Report");
@@ -318,6 +398,1364 @@ class ReportEngineTest {
         "Should throw exception for non-existent Thymeleaf template");
   }
 
+  // =========================================================================
+  // PDF renderer pool tests
+  // =========================================================================
+
+  @Test
+  void testPooledPdfRendererReusesRenderers() throws ReportGenerationException {
+    PdfOutputRenderer pdf = new PdfOutputRenderer().withRendererPool(2, 1, TimeUnit.MINUTES);
+    ReportEngine pooledEngine = new ReportEngine(new FreemarkerTemplateEngine(), pdf);
+    Map<String, Object> data = createSampleReportData();
+
+    byte[] first = pooledEngine.generateReportAsBytes("sample-report.ftl", data);
+    byte[] second = pooledEngine.generateReportAsBytes("sample-report.ftl", data);
+
+    assertEquals("%PDF", new String(Arrays.copyOfRange(first, 0, 4)), "Should be a valid PDF file");
+    assertEquals("%PDF", new String(Arrays.copyOfRange(second, 0, 4)), "Should be a valid PDF file");
+
+    PdfRendererPool.Statistics stats = pdf.getRendererPool().getStatistics();
+    assertEquals(1, stats.getMisses(), "Only the first render should create a renderer");
+    assertEquals(1, stats.getHits(), "The second render should reuse the pooled renderer");
+    assertEquals(1, stats.getIdle(), "The renderer should be back in the pool");
+    assertEquals(0, stats.getInUse(), "No renderer should remain checked out");
+  }
+
+  @Test
+  void testPooledPdfRendererDiscardsFailedRenderer() {
+    PdfOutputRenderer pdf = new PdfOutputRenderer().withRendererPool(1, 0, TimeUnit.SECONDS);
+
+    assertThrows(RuntimeException.class, () -> pdf.render("<html><body><p>unclosed</body></html>"));
+
+    PdfRendererPool.Statistics stats = pdf.getRendererPool().getStatistics();
+    assertEquals(1, stats.getDiscards(), "A failed renderer should not be returned to the pool");
+    assertEquals(0, stats.getInUse(), "The pool permit should be released after a failure");
+  }
+
+  @Test
+  void testFontRegistryRejectsMissingFont() {
+    PdfFontRegistry registry = new PdfFontRegistry();
+
+    assertThrows(ReportGenerationException.class,
+        () -> registry.registerFont(tempDir.resolve("missing.ttf").toString()),
+        "Registering a missing font should fail fast");
+    assertThrows(ReportGenerationException.class,
+        () -> registry.registerFontDirectory(tempDir.resolve("missing-dir").toString()),
+        "Registering a missing directory should fail fast");
+    assertTrue(registry.getFontPaths().isEmpty());
+  }
+
+  @Test
+  void testPdfRendererWithEmptyFontRegistry() throws ReportGenerationException {
+    PdfFontRegistry registry = new PdfFontRegistry().registerFontDirectory(tempDir.toString()).withSubsetting(false);
+    PdfOutputRenderer pdf = new PdfOutputRenderer().withFontRegistry(registry).withRendererPool(1, 0, TimeUnit.SECONDS);
+
+    byte[] pdfBytes = new ReportEngine(new FreemarkerTemplateEngine(), pdf)
+        .generateReportAsBytes("sample-report.ftl", createSampleReportData());
+
+    assertEquals("%PDF", new String(Arrays.copyOfRange(pdfBytes, 0, 4)), "Should be a valid PDF file");
+  }
+
+  @Test
+  void testFontRegistryAppliesSubsettingToDirectoryFonts() throws Exception {
+    Path font = findTrueTypeFont();
+    assumeTrue(font != null, "No TrueType font installed on this machine");
+    Path directory = Files.createDirectory(tempDir.resolve("fonts"));
+    Files.copy(font, directory.resolve("registered.ttf"));
+    BaseFont baseFont = BaseFont.createFont(font.toString(), BaseFont.IDENTITY_H, false, false, null, null);
+    String psName = baseFont.getPostscriptFontName();
+    String html = "<html><head><style>body { font-family: '" + baseFont.getFamilyFontName()[0][3]
+        + "'; }</style></head><body><p>Subset policy</p></body></html>";
+
+    Set<String> full = pdfFontNames(new PdfOutputRenderer().withFontRegistry(
+        new PdfFontRegistry().registerFontDirectory(directory.toString()).withSubsetting(false)).render(html));
+    Set<String> subset = pdfFontNames(new PdfOutputRenderer().withFontRegistry(
+        new PdfFontRegistry().registerFontDirectory(directory.toString()).withSubsetting(true)).render(html));
+
+    assertTrue(full.stream().anyMatch(name -> name.startsWith(psName)), "The registered font should be used: " + full);
+    assertTrue(full.stream().noneMatch(name -> name.contains("+" + psName)), "Font should be embedded whole: " + full);
+    assertTrue(subset.stream().anyMatch(name -> name.contains("+" + psName)), "Font should be subset: " + subset);
+  }
+
+  @Test
+  void testResourceCacheServesDataUriImages() throws ReportGenerationException {
+    String html = "<html><body><p>Logo</p><img width=\"10\" height=\"10\" src=\"data:image/png;base64,"
+        + "iVBORw0KGgoAAAANSUhEUgAAAAEAAAABCAYAAAAfFcSJAAAADUlEQVR42mNkYPhfDwAChwGA60e6kgAAAABJRU5ErkJggg==\"/>"
+        + "</body></html>";
+    PdfResourceCache cache = new PdfResourceCache(1024 * 1024);
+    PdfOutputRenderer pdf = new PdfOutputRenderer().withResourceCache(cache);
+
+    pdf.render(html);
+    pdf.render(html);
+
+    PdfResourceCache.Statistics stats = cache.getStatistics();
+    assertEquals(1, stats.getEntryCount(), "The inline image should be cached once");
+    assertTrue(stats.getHits() >= 1, "The second render should be served from the cache");
+    assertTrue(stats.getSizeBytes() <= stats.getMaxBytes());
+  }
+
+  @Test
+  void testHtml5ParsingRendersMalformedHtml() throws Exception {
+    String html = "<!DOCTYPE html><html><head><title>Loose</title></head><body>"
+        + "<p>Fish &amp; Chips &nbsp;<br>Open tag<p>Second paragraph & more<img src=missing.png>"
+        + "<table><tr><td>Cell</table></body></html>";
+
+    assertThrows(Exception.class, () -> new PdfOutputRenderer().render(html),
+        "The XML parser should reject HTML that is not well-formed");
+    byte[] pdfBytes = new PdfOutputRenderer().withHtml5Parsing().render(html);
+
+    PdfReader reader = new PdfReader(pdfBytes);
+    String text = new PdfTextExtractor(reader).getTextFromPage(1);
+    assertTrue(text.contains("Second paragraph & more"), "Lenient HTML should be laid out");
+    assertTrue(text.contains("Cell"));
+    reader.close();
+  }
+
+  @Test
+  void testHtml5ParsingWithSegmentedRendering() throws Exception {
+    StringBuilder html = new StringBuilder("<html><body>");
+    for (int i = 1; i <= 4; i++) {
+      html.append("<section data-jambock-segment><h1>Part ").append(i).append("</h1><p>Text &nbsp;<br></section>");
+    }
+    html.append("</body></html>");
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      PdfOutputRenderer renderer = new PdfOutputRenderer().withHtml5Parsing().withSegmentedRendering(executor, 2);
+      PdfReader reader = new PdfReader(renderer.render(html.toString()));
+      assertEquals(2, reader.getNumberOfPages(), "Each segment starts on a new page");
+      assertTrue(new PdfTextExtractor(reader).getTextFromPage(2).contains("Part 4"));
+      reader.close();
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  // =========================================================================
+  // Segmented PDF rendering tests
+  // =========================================================================
+
+  @Test
+  void testSegmentedRenderingMergesSectionsWithContinuousPageNumbers() throws Exception {
+    StringBuilder html = new StringBuilder("<html><head><style>"
+        + "@page { size: A4; @bottom-center { content: \"Page \" counter(page) \" of \" counter(pages); } }"
+        + "</style></head><body>");
+    for (int i = 1; i <= 6; i++) {
+      html.append("<div style=\"page-break-before: always\"><h1>Section ").append(i).append("</h1></div>");
+    }
+    html.append("</body></html>");
+
+    ExecutorService executor = Executors.newFixedThreadPool(3);
+    try {
+      PdfOutputRenderer renderer = new PdfOutputRenderer().withSegmentedRendering(executor, 3);
+      RenderContext context = new RenderContext("sections");
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      renderer.render(html.toString(), out, context);
+
+      PdfReader reader = new PdfReader(out.toByteArray());
+      assertEquals(6, reader.getNumberOfPages(), "Merged PDF should contain every section");
+      assertEquals(6, context.getPageCount());
+      String lastPage = new PdfTextExtractor(reader).getTextFromPage(6);
+      assertTrue(lastPage.contains("Section 6"), "Sections should keep their order");
+      assertTrue(lastPage.contains("Page 6 of 6"), "Page numbers should continue across segments");
+      reader.close();
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void testSegmentedRenderingStopsAtPageLimitBeforeLayingOutEverySegment() {
+    StringBuilder html = new StringBuilder("<html><body>");
+    for (int i = 1; i <= 6; i++) {
+      html.append("<div style=\"page-break-before: always\"><h1>Section ").append(i).append("</h1></div>");
+    }
+    html.append("</body></html>");
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      PdfOutputRenderer renderer = new PdfOutputRenderer().withSegmentedRendering(executor, 3);
+      RenderContext context = new RenderContext("sections");
+      context.setMaxPages(1);
+      ReportLimitExceededException e = assertThrows(ReportLimitExceededException.class,
+          () -> renderer.render(html.toString(), new ByteArrayOutputStream(), context));
+
+      assertEquals(ReportLimitExceededException.Limit.PAGES, e.getLimit());
+      assertEquals(1, e.getMaxValue());
+      assertTrue(e.getMessage().contains("at least 2 pages"),
+          "The limit should trip after the first segment, not after all six pages: " + e.getMessage());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void testSegmentedRenderingFallsBackWithoutBoundaries() throws ReportGenerationException {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      ReportEngine segmentedEngine = new ReportEngine(new FreemarkerTemplateEngine(),
+          new PdfOutputRenderer().withSegmentedRendering(executor, 4));
+      byte[] pdfBytes = segmentedEngine.generateReportAsBytes("sample-report.ftl", createSampleReportData());
+
+      assertEquals("%PDF", new String(Arrays.copyOfRange(pdfBytes, 0, 4)), "Should be a valid PDF file");
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void testSegmenterParsesXhtmlAsXml() {
+    String html = "<html><body><div data-jambock-segment=\"\"><p>One<br/>Two</p></div>"
+        + "<div data-jambock-segment=\"\"><p>Three</p><div class=\"spacer\"/><p>Four</p></div></body></html>";
+
+    List<Document> segments = HtmlSegmenter.split(html, 2);
+
+    assertEquals(2, segments.size());
+    Element spacer = segments.get(1).selectFirst("div.spacer");
+    assertNotNull(spacer);
+    assertEquals(0, spacer.childNodeSize(), "Self-closing elements should stay empty");
+    assertTrue(segments.get(0).body().text().contains("One"));
+  }
+
+  @Test
+  void testSegmenterCopiesRunningElementsDeclaredInStylesheet() {
+    String head = "<html><head><style>/* header */ @media print { .header, #footer { position: running(header); } }"
+        + "</style></head><body>";
+    String sections = "<div data-jambock-segment=\"\">A</div><div data-jambock-segment=\"\">B</div>";
+
+    List<Document> segments = HtmlSegmenter.split(head + "<div class=\"header\">Title</div>"
+        + sections + "<div id=\"footer\">End</div></body></html>", 2);
+    assertEquals(2, segments.size());
+    for (Document segment : segments) {
+      assertNotNull(segment.selectFirst("div.header"), "Running header should be copied into every segment");
+      assertNotNull(segment.selectFirst("#footer"), "Running footer should be copied into every segment");
+    }
+
+    List<Document> nested = HtmlSegmenter.split(head + "<div data-jambock-segment=\"\"><div class=\"header\">Title"
+        + "</div></div>" + sections + "</body></html>", 2);
+    assertTrue(nested.isEmpty(), "Nested running elements cannot be copied, so the document is not segmented");
+  }
+
+  @Test
+  void testTableSplitterRepeatsHeaderInEachPart() {
+    StringBuilder html = new StringBuilder("<html><body><table id=\"ledger\" class=\"data\">"
+        + "<caption>Ledger</caption><thead><tr><th>#</th></tr></thead><tbody>");
+    for (int i = 1; i <= 25; i++) {
+      html.append("<tr><td>").append(i).append("</td></tr>");
+    }
+    html.append("</tbody><tfoot><tr><td>End</td></tr></tfoot></table></body></html>");
+
+    Document document = Jsoup.parse(new TableSplitter(10).transform(html.toString()));
+    Elements tables = document.select("table");
+
+    assertEquals(3, tables.size(), "25 rows should be split into 3 tables of at most 10 rows");
+    assertEquals(Arrays.asList(10, 10, 5), Arrays.asList(tables.get(0).select("tbody tr").size(),
+        tables.get(1).select("tbody tr").size(), tables.get(2).select("tbody tr").size()));
+    for (Element table : tables) {
+      assertEquals("#", table.select("thead th").text(), "Every part should repeat the header");
+      assertTrue(table.hasClass("data"), "Every part should keep the table attributes");
+    }
+    assertEquals("ledger", tables.get(0).id());
+    assertEquals("", tables.get(1).id(), "Ids should not be duplicated");
+    assertEquals(1, document.select("caption").size());
+    assertEquals(1, tables.get(2).select("tfoot").size(), "The footer should close the last part");
+    assertEquals("1", tables.get(0).select("tbody td").first().text());
+    assertEquals("25", tables.get(2).select("tbody td").last().text());
+  }
+
+  @Test
+  void testTableSplitterKeepsSelfClosingXhtmlElements() {
+    String html = "<html><body><table><tr><td>1<br/></td></tr><tr><td>2</td></tr><tr><td>3</td></tr></table>"
+        + "<div class=\"spacer\"/><p>After</p></body></html>";
+
+    Document document = Jsoup.parse(new TableSplitter(2).transform(html), "", Parser.xmlParser());
+
+    assertEquals(2, document.select("table").size());
+    assertEquals(0, document.selectFirst("div.spacer").childNodeSize(), "Self-closing elements should stay empty");
+    assertEquals("body", document.selectFirst("p").parent().normalName());
+  }
+
+  @Test
+  void testTableSplitterLeavesSmallTablesUntouched() throws ReportGenerationException {
+    String html = "<html><body><table><tr><td>1</td></tr><tr><td>2</td></tr></table></body></html>";
+    assertSame(html, new TableSplitter(10).transform(html));
+
+    PdfOutputRenderer renderer = new PdfOutputRenderer().withHtmlTransformer(new TableSplitter(1));
+    byte[] pdfBytes = renderer.render(html);
+    assertEquals("%PDF", new String(Arrays.copyOfRange(pdfBytes, 0, 4)), "Should be a valid PDF file");
+  }
+
+  // =========================================================================
+  // Batch generation tests
+  // =========================================================================
+
+  @Test
+  void testGenerateBatchIsolatesFailures() throws ReportGenerationException {
+    List<Map<String, Object>> models = new ArrayList<>();
+    models.add(createSampleReportData());
+    models.add(new HashMap<>()); // missing required variables
+    models.add(createSampleReportData());
+
+    Map<Map<String, Object>, ByteArrayOutputStream> outputs = new IdentityHashMap<>();
+    BatchResult result = engine.generateBatch("sample-report.ftl", models, model -> {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      synchronized (outputs) {
+        outputs.put(model, out);
+      }
+      return out;
+    });
+
+    assertEquals(3, result.getItems().size(), "Every model should produce a result");
+    assertEquals(2, result.getSuccessCount());
+    assertEquals(1, result.getFailureCount());
+    assertEquals(1, result.getFailures().get(0).getIndex(), "The empty model should be the failure");
+    assertInstanceOf(ReportGenerationException.class, result.getFailures().get(0).getError());
+
+    byte[] pdfBytes = outputs.get(models.get(2)).toByteArray();
+    assertEquals("%PDF", new String(Arrays.copyOfRange(pdfBytes, 0, 4)), "Should be a valid PDF file");
+  }
+
+  // =========================================================================
+  // Asynchronous generation tests
+  // =========================================================================
+
+  @Test
+  void testGenerateReportAsync() throws Exception {
+    byte[] pdfBytes = engine.generateReportAsync("sample-report.ftl", createSampleReportData())
+        .get(60, TimeUnit.SECONDS);
+
+    assertEquals("%PDF", new String(Arrays.copyOfRange(pdfBytes, 0, 4)), "Should be a valid PDF file");
+  }
+
+  @Test
+  void testReportBuilderGenerateAsyncWithExecutor() throws Exception {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      CompletableFuture<byte[]> future = new ReportBuilder(engine)
+          .withTemplate("sample-report.ftl")
+          .withData(createSampleReportData())
+          .generateAsync(executor);
+
+      assertTrue(future.get(60, TimeUnit.SECONDS).length > 0);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void testGenerateReportAsyncFailure() {
+    CompletableFuture<byte[]> future = engine.generateReportAsync("non-existent-template.ftl", new HashMap<>());
+
+    ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(60, TimeUnit.SECONDS));
+    assertInstanceOf(ReportGenerationException.class, e.getCause(), "Failure cause should be preserved");
+  }
+
+  // =========================================================================
+  // Multi-format generation tests
+  // =========================================================================
+
+  @Test
+  void testGenerateReportsRunsTemplateOnce() throws Exception {
+    FreemarkerTemplateEngine freemarker = new FreemarkerTemplateEngine();
+    AtomicInteger templateRuns = new AtomicInteger();
+    ReportEngine countingEngine = new ReportEngine((templateName, data) -> {
+      templateRuns.incrementAndGet();
+      return freemarker.processTemplate(templateName, data);
+    });
+    Map<String, OutputRenderer> formats = new LinkedHashMap<>();
+    formats.put("pdf", new PdfOutputRenderer());
+    formats.put("docx", new DocxOutputRenderer());
+
+    Map<String, byte[]> documents = countingEngine.generateReports("sample-report.ftl", createSampleReportData(), formats);
+
+    assertEquals(Arrays.asList("pdf", "docx"), new ArrayList<>(documents.keySet()), "Formats should keep their order");
+    assertEquals("%PDF", new String(Arrays.copyOfRange(documents.get("pdf"), 0, 4)));
+    try (XWPFDocument docx = new XWPFDocument(new ByteArrayInputStream(documents.get("docx")))) {
+      assertFalse(docx.getParagraphs().isEmpty());
+    }
+    assertEquals(1, templateRuns.get(), "The template should be processed once for all formats");
+  }
+
+  @Test
+  void testGenerateReportsWritesSinksAndUsesCache() throws ReportGenerationException {
+    ReportCache cache = new ReportCache(16 * 1024 * 1024, 1, TimeUnit.HOURS);
+    engine.setReportCache(cache);
+    Map<String, OutputRenderer> formats = new LinkedHashMap<>();
+    formats.put("pdf", new PdfOutputRenderer());
+    formats.put("docx", new DocxOutputRenderer());
+    byte[] pdfBytes = engine.generateReportAsBytes("sample-report.ftl", createSampleReportData());
+
+    Map<String, ByteArrayOutputStream> sinks = new HashMap<>();
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      engine.generateReports("sample-report.ftl", createSampleReportData(), formats,
+          format -> sinks.computeIfAbsent(format, f -> new ByteArrayOutputStream()), executor);
+    } finally {
+      executor.shutdown();
+    }
+
+    assertArrayEquals(pdfBytes, sinks.get("pdf").toByteArray(), "PDF should be served from the cache");
+    assertTrue(sinks.get("docx").size() > 0);
+    assertEquals(1, cache.getStatistics().getMemoryHits());
+    assertEquals(2, cache.getStatistics().getStores(), "Only the DOCX output should be rendered and stored");
+  }
+
+  @Test
+  void testGenerateReportsPropagatesRendererFailure() {
+    Map<String, OutputRenderer> formats = new LinkedHashMap<>();
+    formats.put("pdf", new PdfOutputRenderer());
+    formats.put("broken", html -> {
+      throw new ReportGenerationException("renderer failed");
+    });
+
+    ReportGenerationException e = assertThrows(ReportGenerationException.class,
+        () -> engine.generateReports("sample-report.ftl", createSampleReportData(), formats));
+    assertEquals("renderer failed", e.getMessage());
+  }
+
+  // =========================================================================
+  // Output buffer tests
+  // =========================================================================
+
+  @Test
+  void testGenerateReportToBufferSpillsLargeReports() throws Exception {
+    byte[] expected = engine.generateReportAsBytes("sample-report.ftl", createSampleReportData());
+    Path spillDir = tempDir.resolve("spill");
+    Files.createDirectories(spillDir);
+
+    Path copy = tempDir.resolve("copy.pdf");
+    Path spilled;
+    try (ReportOutput output = engine.generateReportToBuffer("sample-report.ftl", createSampleReportData(), 1024, spillDir)) {
+      assertFalse(output.isInMemory(), "Reports above the threshold should spill to disk");
+      spilled = output.getFile();
+      assertEquals(spillDir, spilled.getParent());
+      assertEquals(expected.length, output.size());
+
+      try (FileChannel channel = FileChannel.open(copy, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+        assertEquals(expected.length, output.transferTo(channel));
+      }
+      ByteBuffer mapped = output.map();
+      byte[] header = new byte[4];
+      mapped.get(header);
+      assertEquals("%PDF", new String(header));
+    }
+
+    assertArrayEquals(expected, Files.readAllBytes(copy));
+    assertFalse(Files.exists(spilled), "Closing the handle should delete the temporary file");
+  }
+
+  @Test
+  void testGenerateReportToBufferKeepsSmallReportsInMemory() throws Exception {
+    try (ReportOutput output = new ReportBuilder(engine)
+        .withTemplate("sample-report.ftl")
+        .withData(createSampleReportData())
+        .generateToBuffer(64 * 1024 * 1024)) {
+      assertTrue(output.isInMemory());
+      assertNull(output.getFile());
+
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      output.transferTo(out);
+      assertEquals(output.size(), out.size());
+    }
+  }
+
+  @Test
+  void testGenerateReportToBufferDeletesFileOnFailure() throws Exception {
+    Path spillDir = tempDir.resolve("failed");
+    Files.createDirectories(spillDir);
+    ReportEngine partialEngine = new ReportEngine(new FreemarkerTemplateEngine(), new OutputRenderer() {
+      @Override
+      public byte[] render(String html) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public void render(String html, OutputStream out) throws ReportGenerationException {
+        try {
+          out.write(new byte[4096]);
+        } catch (IOException e) {
+          throw new ReportGenerationException(e.getMessage(), e);
+        }
+        throw new ReportGenerationException("failed after writing");
+      }
+    });
+
+    assertThrows(ReportGenerationException.class,
+        () -> partialEngine.generateReportToBuffer("sample-report.ftl", createSampleReportData(), 1024, spillDir));
+    try (Stream<Path> files = Files.list(spillDir)) {
+      assertEquals(0, files.count(), "Temporary files should be removed when generation fails");
+    }
+  }
+
+  @Test
+  void testBufferPoolRecyclesSegments() throws ReportGenerationException {
+    byte[] expected = engine.generateReportAsBytes("sample-report.ftl", createSampleReportData());
+    BufferPool pool = new BufferPool(1024, 1024);
+    engine.setBufferPool(pool);
+
+    assertArrayEquals(expected, engine.generateReportAsBytes("sample-report.ftl", createSampleReportData()));
+    BufferPool.Statistics first = pool.getStatistics();
+    assertArrayEquals(expected, engine.generateReportAsBytes("sample-report.ftl", createSampleReportData()));
+    BufferPool.Statistics second = pool.getStatistics();
+
+    assertTrue(first.getAllocations() > 1, "A report larger than a segment should use several segments");
+    assertEquals(first.getAllocations(), second.getAllocations(), "The second report should reuse every segment");
+    assertEquals(2 * first.getAcquisitions(), second.getAcquisitions());
+    assertEquals(0, second.getSegmentsInUse(), "Segments should be returned after copying");
+    assertEquals(first.getAllocations(), second.getIdleSegments());
+  }
+
+  @Test
+  void testGenerateReportToBufferWithDirectBufferPool() throws Exception {
+    byte[] expected = engine.generateReportAsBytes("sample-report.ftl", createSampleReportData());
+    BufferPool pool = new BufferPool(1024, 1024, true);
+    engine.setBufferPool(pool);
+
+    try (ReportOutput output = engine.generateReportToBuffer("sample-report.ftl", createSampleReportData(), 64 * 1024 * 1024)) {
+      assertTrue(output.isInMemory());
+      ByteBuffer[] buffers = output.getBuffers();
+      assertTrue(buffers.length > 1);
+      for (ByteBuffer buffer : buffers) {
+        assertTrue(buffer.isReadOnly() && buffer.isDirect(), "Segments should be exposed as read-only off-heap views");
+      }
+      assertEquals(buffers.length, pool.getStatistics().getSegmentsInUse(), "Segments are held until the handle is closed");
+
+      ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+      try (InputStream in = output.openStream()) {
+        byte[] chunk = new byte[1000];
+        for (int n; (n = in.read(chunk)) != -1; ) {
+          streamed.write(chunk, 0, n);
+        }
+      }
+      assertArrayEquals(expected, streamed.toByteArray());
+    }
+    assertEquals(0, pool.getStatistics().getSegmentsInUse(), "Closing the handle should return the segments");
+  }
+
+  @Test
+  void testBufferPoolBacksMultiFormatBuffersAndCacheCopies() throws ReportGenerationException {
+    engine.setReportCache(new ReportCache(16 * 1024 * 1024, 1, TimeUnit.HOURS));
+    BufferPool pool = new BufferPool(1024, 1024);
+    engine.setBufferPool(pool);
+    Map<String, OutputRenderer> formats = new LinkedHashMap<>();
+    formats.put("pdf", new PdfOutputRenderer());
+    formats.put("docx", new DocxOutputRenderer());
+
+    Map<String, byte[]> documents = engine.generateReports("sample-report.ftl", createSampleReportData(), formats);
+    long segments = 0;
+    for (byte[] document : documents.values()) {
+      segments += (document.length + 1023) / 1024;
+    }
+    BufferPool.Statistics stats = pool.getStatistics();
+    assertEquals(2 * segments, stats.getAcquisitions(), "Each format should fill pooled segments twice: buffer and cache copy");
+    assertEquals(0, stats.getSegmentsInUse(), "Segments should be returned once the documents are copied");
+
+    Map<String, byte[]> cached = engine.generateReports("sample-report.ftl", createSampleReportData(), formats);
+    assertArrayEquals(documents.get("pdf"), cached.get("pdf"), "The cache should hold the pooled copy");
+    assertArrayEquals(documents.get("docx"), cached.get("docx"));
+    assertEquals(0, pool.getStatistics().getSegmentsInUse());
+  }
+
+  @Test
+  void testSegmentedRenderingBuffersSegmentsInContextPool() throws Exception {
+    StringBuilder html = new StringBuilder("<html><body>");
+    for (int i = 1; i <= 4; i++) {
+      html.append("<div style=\"page-break-before: always\"><h1>Section ").append(i).append("</h1></div>");
+    }
+    html.append("</body></html>");
+    BufferPool pool = new BufferPool(1024, 1024);
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      PdfOutputRenderer renderer = new PdfOutputRenderer().withSegmentedRendering(executor, 2);
+      RenderContext context = new RenderContext("sections");
+      context.setBufferPool(pool);
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      renderer.render(html.toString(), out, context);
+
+      PdfReader reader = new PdfReader(out.toByteArray());
+      assertEquals(4, reader.getNumberOfPages());
+      reader.close();
+    } finally {
+      executor.shutdown();
+    }
+    BufferPool.Statistics stats = pool.getStatistics();
+    assertTrue(stats.getAcquisitions() >= 2, "Every segment PDF should be buffered in the pool");
+    assertEquals(0, stats.getSegmentsInUse(), "Segment buffers should be returned after the merge");
+  }
+
+  // =========================================================================
+  // Cancellation tests
+  // =========================================================================
+
+  @Test
+  void testExpiredTokenFailsWithTimeout() {
+    BufferPool pool = new BufferPool(1024, 1024);
+    engine.setBufferPool(pool);
+    CancellationToken token = CancellationToken.withTimeout(0, TimeUnit.MILLISECONDS);
+
+    assertTrue(token.isExpired());
+    assertThrows(ReportTimeoutException.class,
+        () -> engine.generateReportAsBytes("sample-report.ftl", createSampleReportData(), token));
+    assertEquals(0, pool.getStatistics().getSegmentsInUse(), "Segments should be returned on timeout");
+  }
+
+  @Test
+  void testCancelStopsTemplateEvaluation() {
+    CancellationToken token = new CancellationToken();
+    int[] produced = {0};
+    Iterator<Map<String, Object>> rows = new Iterator<Map<String, Object>>() {
+      @Override
+      public boolean hasNext() {
+        return produced[0] < 20_000;
+      }
+
+      @Override
+      public Map<String, Object> next() {
+        if (++produced[0] == 100) {
+          token.cancel();
+        }
+        return createItem(String.valueOf(produced[0]), "Row " + produced[0], null, 1, 1.0);
+      }
+    };
+    Map<String, Object> data = createSampleReportData();
+    data.put("items", RowSource.of(rows));
+
+    ReportCancelledException e = assertThrows(ReportCancelledException.class,
+        () -> new ReportBuilder(engine)
+            .withTemplate("sample-report.ftl")
+            .withData(data)
+            .withCancellationToken(token)
+            .generateAsBytes());
+    assertFalse(e instanceof ReportTimeoutException);
+    assertEquals(100, produced[0], "No row should be read after cancellation");
+    assertNull(CancellationToken.current(), "The token should be detached from the thread");
+  }
+
+  @Test
+  void testCancelStopsFreemarkerLoopWithoutOutput() {
+    StringTemplateLoader loader = new StringTemplateLoader();
+    loader.putTemplate("silent.ftl", "<html><body><#list items as item><#if item < 0>${item}</#if></#list></body></html>");
+    Configuration cfg = new Configuration(Configuration.VERSION_2_3_32);
+    cfg.setTemplateLoader(loader);
+    cfg.setObjectWrapper(new StreamingObjectWrapper(Configuration.VERSION_2_3_32));
+    ReportEngine silentEngine = new ReportEngine(new FreemarkerTemplateEngine(cfg), new PdfOutputRenderer());
+
+    CancellationToken token = new CancellationToken();
+    int[] read = {0};
+    List<Integer> items = new AbstractList<Integer>() {
+      @Override
+      public Integer get(int index) {
+        if (++read[0] == 1000) {
+          token.cancel();
+        }
+        return index;
+      }
+
+      @Override
+      public int size() {
+        return 50_000_000;
+      }
+    };
+    Map<String, Object> data = new HashMap<>();
+    data.put("items", items);
+
+    assertThrows(ReportCancelledException.class,
+        () -> silentEngine.generateReportAsBytes("silent.ftl", data, token));
+    assertEquals(1000, read[0], "The loop should stop at the first element after cancellation");
+  }
+
+  @Test
+  void testReusedBuilderStartsTimeoutPerReport() throws Exception {
+    ReportBuilder builder = new ReportBuilder(engine)
+        .withTemplate("sample-report.ftl")
+        .withData(createSampleReportData())
+        .withTimeout(200, TimeUnit.MILLISECONDS);
+
+    assertTrue(builder.generateAsBytes().length > 0);
+    Thread.sleep(300);
+    assertTrue(builder.generateAsBytes().length > 0, "A later report should get its own deadline");
+  }
+
+  @Test
+  void testBuilderPassesTokenToEveryGenerationMethod() {
+    CancellationToken token = new CancellationToken();
+    int[] produced = {0};
+    Iterator<Map<String, Object>> rows = new Iterator<Map<String, Object>>() {
+      @Override
+      public boolean hasNext() {
+        return produced[0] < 20_000;
+      }
+
+      @Override
+      public Map<String, Object> next() {
+        if (++produced[0] == 100) {
+          token.cancel();
+        }
+        return createItem(String.valueOf(produced[0]), "Row " + produced[0], null, 1, 1.0);
+      }
+    };
+    Map<String, Object> data = createSampleReportData();
+    data.put("items", RowSource.of(rows));
+    ReportBuilder builder = new ReportBuilder(engine)
+        .withTemplate("sample-report.ftl")
+        .withData(data)
+        .withCancellationToken(token);
+
+    Map<String, OutputRenderer> formats = new LinkedHashMap<>();
+    formats.put("pdf", new PdfOutputRenderer());
+    formats.put("docx", new DocxOutputRenderer());
+    assertThrows(ReportCancelledException.class, () -> builder.generateAsFormats(formats));
+    assertEquals(100, produced[0], "The shared template stage should stop on cancellation");
+    assertNull(CancellationToken.current(), "The token should be detached from the thread");
+
+    assertThrows(ReportCancelledException.class, () -> builder.generateToBuffer(1024));
+    ExecutionException e = assertThrows(ExecutionException.class,
+        () -> builder.generateAsync().get(10, TimeUnit.SECONDS));
+    assertTrue(e.getCause() instanceof ReportCancelledException, "Async reports should see the token");
+  }
+
+  @Test
+  void testCancelStopsDocxTraversal() {
+    CancellationToken token = new CancellationToken();
+    token.cancel();
+    RenderContext context = new RenderContext("cancelled", token);
+    String html = "<html><body><h1>Title</h1><p>Body</p></body></html>";
+
+    assertThrows(ReportCancelledException.class,
+        () -> new DocxOutputRenderer().render(html, new ByteArrayOutputStream(), context));
+    assertThrows(ReportCancelledException.class,
+        () -> new StreamingDocxOutputRenderer().render(html, new ByteArrayOutputStream(), context));
+  }
+
+  @Test
+  void testCancelledPdfRenderLeavesRendererPoolIntact() throws ReportGenerationException {
+    PdfOutputRenderer pdf = new PdfOutputRenderer().withRendererPool(1, 1, TimeUnit.MINUTES);
+    CancellationToken token = new CancellationToken();
+    token.cancel();
+
+    assertThrows(ReportCancelledException.class, () -> pdf.render(
+        "<html><body><p>Cancelled</p></body></html>", new ByteArrayOutputStream(), new RenderContext(null, token)));
+    assertEquals(0, pdf.getRendererPool().getStatistics().getInUse());
+    assertTrue(pdf.render("<html><body><p>Next</p></body></html>").length > 0);
+    assertEquals(0, pdf.getRendererPool().getStatistics().getInUse());
+  }
+
+  // =========================================================================
+  // Report limit tests
+  // =========================================================================
+
+  @Test
+  void testHtmlLimitStopsTemplateEarly() {
+    int[] produced = {0};
+    Iterator<Map<String, Object>> rows = new Iterator<Map<String, Object>>() {
+      @Override
+      public boolean hasNext() {
+        return produced[0] < 20_000;
+      }
+
+      @Override
+      public Map<String, Object> next() {
+        produced[0]++;
+        return createItem(String.valueOf(produced[0]), "Row " + produced[0], null, 1, 1.0);
+      }
+    };
+    Map<String, Object> data = createSampleReportData();
+    data.put("items", RowSource.of(rows));
+    engine.setReportLimits(ReportLimits.UNLIMITED.withMaxHtmlChars(10_000));
+
+    ReportLimitExceededException e = assertThrows(ReportLimitExceededException.class,
+        () -> engine.generateReportAsBytes("sample-report.ftl", data));
+    assertEquals(ReportLimitExceededException.Limit.HTML_CHARS, e.getLimit());
+    assertEquals(10_000, e.getMaxValue());
+    assertTrue(produced[0] < 1_000, "The template should stop shortly after the limit, read " + produced[0]);
+  }
+
+  @Test
+  void testPageLimitFailsBeforeWritingPdf() {
+    Map<String, Object> data = createSampleReportData();
+    List<Map<String, Object>> items = new ArrayList<>();
+    for (int i = 1; i <= 500; i++) {
+      items.add(createItem(String.valueOf(i), "Row " + i, null, 1, 1.0));
+    }
+    data.put("items", items);
+    engine.setReportLimits(ReportLimits.UNLIMITED.withMaxPages(2));
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ReportLimitExceededException e = assertThrows(ReportLimitExceededException.class,
+        () -> engine.generateReport("sample-report.ftl", data, out));
+    assertEquals(ReportLimitExceededException.Limit.PAGES, e.getLimit());
+    assertEquals(0, out.size(), "No PDF bytes should be written once layout exceeds the limit");
+  }
+
+  @Test
+  void testOutputLimitStopsRenderer() throws ReportGenerationException {
+    engine.setReportLimits(ReportLimits.UNLIMITED.withMaxOutputBytes(1024));
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ReportLimitExceededException e = assertThrows(ReportLimitExceededException.class,
+        () -> engine.generateReport("sample-report.ftl", createSampleReportData(), out));
+    assertEquals(ReportLimitExceededException.Limit.OUTPUT_BYTES, e.getLimit());
+    assertTrue(out.size() <= 1024, "Nothing beyond the limit should reach the stream");
+
+    engine.setReportLimits(null);
+    assertTrue(engine.generateReportAsBytes("sample-report.ftl", createSampleReportData()).length > 1024);
+  }
+
+  // =========================================================================
+  // Report scheduler tests
+  // =========================================================================
+
+  @Test
+  void testSchedulerRunsInteractiveFirstAndSharesByTenantWeight() throws Exception {
+    List<String> order = new ArrayList<>();
+    ReportEngine recordingEngine = new ReportEngine((templateName, data) -> {
+      order.add(templateName);
+      return "<p>" + templateName + "</p>";
+    }, html -> html.getBytes());
+    List<Runnable> tasks = new ArrayList<>();
+    ReportScheduler scheduler = new ReportScheduler(recordingEngine, tasks::add, 1, 100)
+        .withTenantWeight("b", 2);
+
+    CompletableFuture<byte[]> first = scheduler.submit("a", ReportScheduler.Priority.BULK, "blocker", new HashMap<>());
+    for (int i = 1; i <= 4; i++) {
+      scheduler.submit("a", ReportScheduler.Priority.BULK, "a" + i, new HashMap<>());
+    }
+    for (int i = 1; i <= 4; i++) {
+      scheduler.submit("b", ReportScheduler.Priority.BULK, "b" + i, new HashMap<>());
+    }
+    scheduler.submit("c", ReportScheduler.Priority.INTERACTIVE, "interactive", new HashMap<>());
+
+    ReportScheduler.Statistics queued = scheduler.getStatistics();
+    assertEquals(1, queued.getRunning(), "Concurrency should be limited to one report");
+    assertEquals(8, queued.get(ReportScheduler.Priority.BULK).getQueueDepth());
+    assertEquals(1, queued.get(ReportScheduler.Priority.INTERACTIVE).getQueueDepth());
+
+    while (!tasks.isEmpty()) {
+      tasks.remove(0).run();
+    }
+
+    assertEquals(Arrays.asList("blocker", "interactive", "a1", "b1", "b2", "a2", "b3", "b4", "a3", "a4"), order,
+        "Interactive reports should run first, then tenants in proportion to their weight");
+    assertArrayEquals("<p>blocker</p>".getBytes(), first.get(1, TimeUnit.SECONDS));
+    ReportScheduler.Statistics done = scheduler.getStatistics();
+    assertEquals(10, done.getCompleted());
+    assertEquals(0, done.getQueueDepth());
+    assertTrue(done.get(ReportScheduler.Priority.BULK).getMaxWaitNanos() > 0, "Wait time should be recorded");
+  }
+
+  @Test
+  void testSchedulerTimeoutCountsQueueWait() throws Exception {
+    List<Runnable> tasks = new ArrayList<>();
+    ReportScheduler scheduler = new ReportScheduler(engine, tasks::add, 1, 10)
+        .withTimeout(1, TimeUnit.MILLISECONDS);
+
+    CompletableFuture<byte[]> future = scheduler.submit("tenant", ReportScheduler.Priority.INTERACTIVE,
+        "sample-report.ftl", createSampleReportData());
+    Thread.sleep(20);
+    tasks.remove(0).run();
+
+    ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(1, TimeUnit.SECONDS));
+    assertTrue(e.getCause() instanceof ReportTimeoutException, "Expired reports should fail with a timeout");
+    assertEquals(1, scheduler.getStatistics().getFailed());
+  }
+
+  @Test
+  void testSchedulerRejectsWhenQueueIsFull() throws Exception {
+    List<Runnable> tasks = new ArrayList<>();
+    ReportScheduler scheduler = new ReportScheduler(engine, tasks::add, 1, 2);
+
+    scheduler.submit("tenant", ReportScheduler.Priority.BULK, "sample-report.ftl", createSampleReportData());
+    scheduler.submit("tenant", ReportScheduler.Priority.BULK, "sample-report.ftl", createSampleReportData());
+    scheduler.submit("tenant", ReportScheduler.Priority.BULK, "sample-report.ftl", createSampleReportData());
+    ReportRejectedException e = assertThrows(ReportRejectedException.class,
+        () -> scheduler.submit("tenant", ReportScheduler.Priority.BULK, "sample-report.ftl", createSampleReportData()));
+    assertEquals(ReportScheduler.Priority.BULK, e.getPriority());
+
+    CompletableFuture<byte[]> interactive = scheduler.submit("other", ReportScheduler.Priority.INTERACTIVE,
+        "sample-report.ftl", createSampleReportData());
+    assertEquals(1, scheduler.getStatistics().getRejected());
+
+    scheduler.close();
+    assertThrows(ReportRejectedException.class,
+        () -> scheduler.submit("other", ReportScheduler.Priority.INTERACTIVE, "sample-report.ftl", new HashMap<>()));
+    while (!tasks.isEmpty()) {
+      tasks.remove(0).run();
+    }
+    assertTrue(interactive.get(1, TimeUnit.SECONDS).length > 0, "Queued reports should still run after close()");
+    assertEquals(4, scheduler.getStatistics().getCompleted());
+  }
+
+  @Test
+  void testSchedulerReleasesCancelledReportsAndFailsOnErrors() throws Exception {
+    List<Runnable> tasks = new ArrayList<>();
+    ReportEngine failingEngine = new ReportEngine((templateName, data) -> {
+      if (templateName.equals("error")) {
+        throw new StackOverflowError("template recursion");
+      }
+      return "<p>" + templateName + "</p>";
+    }, html -> html.getBytes());
+    ReportScheduler scheduler = new ReportScheduler(failingEngine, tasks::add, 1, 2);
+
+    CompletableFuture<byte[]> error = scheduler.submit("tenant", ReportScheduler.Priority.BULK, "error", new HashMap<>());
+    CompletableFuture<byte[]> cancelled = scheduler.submit("tenant", ReportScheduler.Priority.BULK, "x", new HashMap<>());
+    scheduler.submit("other", ReportScheduler.Priority.BULK, "y", new HashMap<>());
+    assertTrue(cancelled.cancel(false));
+    assertEquals(1, scheduler.getStatistics().getQueueDepth(), "Cancelled reports should leave the queue");
+    CompletableFuture<byte[]> last = scheduler.submit("tenant", ReportScheduler.Priority.BULK, "z", new HashMap<>());
+
+    assertThrows(StackOverflowError.class, () -> tasks.remove(0).run());
+    ExecutionException e = assertThrows(ExecutionException.class, () -> error.get(1, TimeUnit.SECONDS));
+    assertTrue(e.getCause() instanceof ReportGenerationException, "Errors should fail the future");
+    while (!tasks.isEmpty()) {
+      tasks.remove(0).run();
+    }
+
+    assertArrayEquals("<p>z</p>".getBytes(), last.get(1, TimeUnit.SECONDS));
+    ReportScheduler.Statistics statistics = scheduler.getStatistics();
+    assertEquals(2, statistics.getCompleted());
+    assertEquals(1, statistics.getFailed());
+    assertEquals(3, statistics.get(ReportScheduler.Priority.BULK).getStarted(),
+        "Cancelled reports should not count as started");
+  }
+
+  // =========================================================================
+  // Metrics tests
+  // =========================================================================
+
+  @Test
+  void testMetricsListenerReceivesStageTimings() throws ReportGenerationException {
+    List<ReportMetrics> generated = new ArrayList<>();
+    List<ReportGenerationException> failures = new ArrayList<>();
+    engine.addMetricsListener(new ReportMetricsListener() {
+      @Override
+      public void onReportGenerated(ReportMetrics metrics) {
+        generated.add(metrics);
+      }
+
+      @Override
+      public void onReportFailed(ReportMetrics metrics, ReportGenerationException error) {
+        failures.add(error);
+      }
+    });
+
+    byte[] pdfBytes = engine.generateReportAsBytes("sample-report.ftl", createSampleReportData());
+    assertThrows(ReportGenerationException.class,
+        () -> engine.generateReportAsBytes("non-existent-template.ftl", createSampleReportData()));
+
+    assertEquals(1, generated.size());
+    ReportMetrics metrics = generated.get(0);
+    assertEquals("sample-report.ftl", metrics.getTemplateName());
+    assertEquals("PdfOutputRenderer", metrics.getRendererName());
+    assertEquals(pdfBytes.length, metrics.getOutputBytes(), "Output bytes should match the document size");
+    assertTrue(metrics.getHtmlLength() > 0);
+    assertTrue(metrics.getPageCount() >= 1, "PDF renders should report a page count");
+    assertTrue(metrics.getTemplateNanos() > 0 && metrics.getRenderNanos() > 0);
+    assertEquals(1, failures.size());
+  }
+
+  @Test
+  void testJmxMetricsListenerRegistersMXBean() throws Exception {
+    MBeanServer server = MBeanServerFactory.newMBeanServer();
+    try (JmxReportMetricsListener listener = new JmxReportMetricsListener(server, "jambock.test")) {
+      engine.addMetricsListener(listener);
+      engine.generateReportAsBytes("sample-report.ftl", createSampleReportData());
+      engine.generateReportAsBytes("sample-report.ftl", createSampleReportData());
+
+      ObjectName name = new ObjectName("jambock.test:type=ReportMetrics,template=" + ObjectName.quote("sample-report.ftl"));
+      assertTrue(server.isRegistered(name), "An MXBean should be registered per template");
+      assertEquals(2L, server.getAttribute(name, "Count"));
+      assertTrue((Double) server.getAttribute(name, "TotalP99Millis") >= (Double) server.getAttribute(name, "TotalP50Millis"));
+      assertTrue(listener.getTemplateMetrics("sample-report.ftl").getMaxPageCount() >= 1);
+
+      listener.close();
+      assertFalse(server.isRegistered(name), "close() should unregister the MXBeans");
+    }
+  }
+
+  // =========================================================================
+  // Report cache tests
+  // =========================================================================
+
+  @Test
+  void testReportCacheServesIdenticalBytes() throws ReportGenerationException {
+    ReportCache cache = new ReportCache(16 * 1024 * 1024, 1, TimeUnit.HOURS);
+    engine.setReportCache(cache);
+
+    byte[] first = engine.generateReportAsBytes("sample-report.ftl", createSampleReportData());
+    byte[] second = engine.generateReportAsBytes("sample-report.ftl", createSampleReportData());
+
+    assertArrayEquals(first, second, "Cached report should be identical to the rendered one");
+    ReportCache.Statistics stats = cache.getStatistics();
+    assertEquals(1, stats.getMisses(), "First call should miss");
+    assertEquals(1, stats.getMemoryHits(), "Second call should be served from memory");
+    assertEquals(first.length, stats.getMemoryBytes());
+  }
+
+  @Test
+  void testReportCacheKeyDependsOnDataAndVersion() throws ReportGenerationException {
+    ReportCache cache = new ReportCache(16 * 1024 * 1024, 1, TimeUnit.HOURS);
+    engine.setReportCache(cache);
+
+    Map<String, Object> data = createSampleReportData();
+    engine.generateReportAsBytes("sample-report.ftl", data);
+    data.put("title", "Another Title");
+    engine.generateReportAsBytes("sample-report.ftl", data);
+    cache.setTemplateVersion("sample-report.ftl", "2");
+    engine.generateReportAsBytes("sample-report.ftl", data);
+
+    assertEquals(3, cache.getStatistics().getMisses(), "Changed data or version should not hit the cache");
+    assertEquals(0, cache.getStatistics().getMemoryHits());
+  }
+
+  @Test
+  void testReportCacheBypassesUnhashableData() throws ReportGenerationException {
+    ReportCache cache = new ReportCache(16 * 1024 * 1024, 1, TimeUnit.HOURS);
+    engine.setReportCache(cache);
+
+    Map<String, Object> data = createSampleReportData();
+    data.put("opaque", new Object());
+    engine.generateReportAsBytes("sample-report.ftl", data);
+
+    assertEquals(1, cache.getStatistics().getUncacheable());
+    assertEquals(0, cache.getStatistics().getMemoryEntries());
+  }
+
+  @Test
+  void testReportCacheDiskTierSurvivesNewInstance() throws ReportGenerationException {
+    Path cacheDir = tempDir.resolve("report-cache");
+    engine.setReportCache(new ReportCache(16 * 1024 * 1024, 1, TimeUnit.HOURS)
+        .withDiskTier(cacheDir, 64 * 1024 * 1024));
+    byte[] rendered = engine.generateReportAsBytes("sample-report.ftl", createSampleReportData());
+
+    ReportCache reopened = new ReportCache(16 * 1024 * 1024, 1, TimeUnit.HOURS)
+        .withDiskTier(cacheDir, 64 * 1024 * 1024);
+    engine.setReportCache(reopened);
+    byte[] cached = engine.generateReportAsBytes("sample-report.ftl", createSampleReportData());
+
+    assertArrayEquals(rendered, cached);
+    assertEquals(1, reopened.getStatistics().getDiskHits(), "Report should be served from disk");
+
+    reopened.invalidateTemplate("sample-report.ftl");
+    assertEquals(0, reopened.getStatistics().getDiskBytes(), "Invalidation should delete the cached files");
+    assertEquals(0, reopened.getStatistics().getMemoryEntries());
+  }
+
+  @Test
+  void testReportCacheKeyDependsOnRendererSettings() throws ReportGenerationException {
+    ReportCache cache = new ReportCache(16 * 1024 * 1024, 1, TimeUnit.HOURS);
+    engine.setReportCache(cache);
+
+    engine.generateReportAsBytes("sample-report.ftl", createSampleReportData());
+    new ReportBuilder(engine)
+        .withTemplate("sample-report.ftl")
+        .withData(createSampleReportData())
+        .withOutputRenderer(new PdfOutputRenderer().withHtml5Parsing())
+        .generateAsBytes();
+    new ReportBuilder(engine)
+        .withTemplate("sample-report.ftl")
+        .withData(createSampleReportData())
+        .withOutputRenderer(new PdfOutputRenderer().withHtmlTransformer(new TableSplitter(10)))
+        .generateAsBytes();
+    new ReportBuilder(engine)
+        .withTemplate("sample-report.ftl")
+        .withData(createSampleReportData())
+        .withOutputRenderer(new PdfOutputRenderer())
+        .generateAsBytes();
+
+    assertEquals(3, cache.getStatistics().getMisses(), "Differently configured renderers should not share entries");
+    assertEquals(1, cache.getStatistics().getMemoryHits(), "An equally configured renderer should hit the cache");
+  }
+
+  @Test
+  void testReportCacheStreamsLargeReportsToDiskTier() throws ReportGenerationException {
+    Path cacheDir = tempDir.resolve("large-report-cache");
+    ReportCache cache = new ReportCache(1024, 1, TimeUnit.HOURS).withDiskTier(cacheDir, 64 * 1024 * 1024);
+    engine.setReportCache(cache);
+
+    byte[] rendered = engine.generateReportAsBytes("sample-report.ftl", createSampleReportData());
+    assertTrue(rendered.length > 1024);
+    assertEquals(0, cache.getStatistics().getMemoryBytes(), "Reports above the memory limit should skip the heap");
+    assertEquals(rendered.length, cache.getStatistics().getDiskBytes());
+
+    assertArrayEquals(rendered, engine.generateReportAsBytes("sample-report.ftl", createSampleReportData()));
+    assertEquals(1, cache.getStatistics().getDiskHits());
+  }
+
+  // =========================================================================
+  // Warm-up tests
+  // =========================================================================
+
+  @Test
+  void testWarmUpPreloadsTemplates() throws ReportGenerationException {
+    engine.warmUp(Arrays.asList("sample-report.ftl", "invoice.ftl"));
+    thymeleafEngine.warmUp(Collections.singletonList("sample-report"));
+    new ReportEngine(new FreemarkerTemplateEngine(), new DocxOutputRenderer())
+        .warmUp(Collections.singletonList("sample-report.ftl"));
+
+    byte[] pdfBytes = engine.generateReportAsBytes("sample-report.ftl", createSampleReportData());
+    assertEquals("%PDF", new String(Arrays.copyOfRange(pdfBytes, 0, 4)), "Should be a valid PDF file");
+  }
+
+  @Test
+  void testWarmUpFillsPdfRendererPool() throws ReportGenerationException {
+    PdfOutputRenderer pdf = new PdfOutputRenderer().withRendererPool(3, 1, TimeUnit.MINUTES);
+    new ReportEngine(new FreemarkerTemplateEngine(), pdf).warmUp(Collections.singletonList("sample-report.ftl"));
+
+    PdfRendererPool.Statistics stats = pdf.getRendererPool().getStatistics();
+    assertEquals(3, stats.getIdle(), "Warm-up should create renderers up to the pool size");
+    assertEquals(3, stats.getMisses());
+    assertEquals(0, stats.getInUse());
+  }
+
+  @Test
+  void testWarmUpFailsForMissingTemplate() {
+    assertThrows(ReportGenerationException.class,
+        () -> engine.warmUp(Collections.singletonList("non-existent-template.ftl")));
+    assertThrows(ReportGenerationException.class,
+        () -> thymeleafEngine.warmUp(Collections.singletonList("non-existent-template")));
+  }
+
+  @Test
+  void testSyntheticWarmUpRendersAreNotReported() throws ReportGenerationException {
+    List<ReportMetrics> reported = new ArrayList<>();
+    engine.addMetricsListener(new ReportMetricsListener() {
+      @Override
+      public void onReportGenerated(ReportMetrics metrics) {
+        reported.add(metrics);
+      }
+    });
+
+    engine.warmUp(Collections.singletonList("sample-report.ftl"), createSampleReportData(), 3);
+
+    assertTrue(reported.isEmpty(), "Synthetic renders should not reach metrics listeners");
+  }
+
+  // =========================================================================
+  // Lazy row source tests
+  // =========================================================================
+
+  @Test
+  void testFreemarkerListsRowSourceLazily() throws ReportGenerationException {
+    int rowCount = 20_000;
+    int[] produced = {0};
+    Iterator<Map<String, Object>> rows = new Iterator<Map<String, Object>>() {
+      @Override
+      public boolean hasNext() {
+        return produced[0] < rowCount;
+      }
+
+      @Override
+      public Map<String, Object> next() {
+        produced[0]++;
+        return createItem(String.valueOf(produced[0]), "Row " + produced[0], null, 1, 1.0);
+      }
+    };
+    Map<String, Object> data = createSampleReportData();
+    data.put("items", RowSource.of(rows));
+
+    StringWriter writer = new StringWriter();
+    engine.generateHtml("sample-report.ftl", data, writer);
+
+    assertEquals(rowCount, produced[0], "Every row should be read exactly once");
+    assertTrue(writer.toString().contains("Row " + rowCount), "Last row should be rendered");
+  }
+
+  @Test
+  void testFreemarkerListsStream() throws ReportGenerationException {
+    Map<String, Object> data = createSampleReportData();
+    data.put("items", IntStream.rangeClosed(1, 3)
+        .mapToObj(i -> createItem(String.valueOf(i), "Streamed " + i, null, i, i)));
+
+    StringWriter writer = new StringWriter();
+    engine.generateHtml("sample-report.ftl", data, writer);
+
+    assertTrue(writer.toString().contains("Streamed 3"), "Streamed rows should be rendered");
+  }
+
+  @Test
+  void testBundledTemplatesAcceptRowSources() throws ReportGenerationException {
+    Map<String, Object> data = createSampleReportData();
+    data.put("items", RowSource.of(Arrays.asList(
+        createItem("1", "Lazy 1", null, 1, 1.0), createItem("2", "Lazy 2", null, 2, 2.0)).iterator()));
+    StringWriter landscape = new StringWriter();
+    engine.generateHtml("landscape-report.ftl", data, landscape);
+    assertTrue(landscape.toString().contains(">Lazy 1<"), "Every row should be rendered");
+
+    data.put("items", Stream.of(createItem("1", "Lazy 1", null, 1, 1.0)));
+    StringWriter thymeleaf = new StringWriter();
+    thymeleafEngine.generateHtml("sample-report", data, thymeleaf);
+    assertTrue(thymeleaf.toString().contains(">Lazy 1<"));
+
+    data.put("items", Collections.emptyList());
+    StringWriter empty = new StringWriter();
+    thymeleafEngine.generateHtml("sample-report", data, empty);
+    assertFalse(empty.toString().contains("<h2>Items</h2>"), "Empty lists should still hide the section");
+  }
+
+  @Test
+  void testThymeleafIteratesRowSourceAndStream() throws ReportGenerationException {
+    org.thymeleaf.TemplateEngine inline = new org.thymeleaf.TemplateEngine();
+    inline.setTemplateResolver(new StringTemplateResolver());
+    TemplateEngine templateEngine = new ThymeleafTemplateEngine(inline);
+
+    Map<String, Object> data = new HashMap<>();
+    data.put("letters", RowSource.of(Arrays.asList("a", "b", "c").iterator()));
+    data.put("numbers", Stream.of(1, 2, 3));
+    String html = templateEngine.processTemplate(
+        "<p><span th:each=\"l : ${letters}\" th:text=\"${l}\"></span>|"
+            + "<span th:each=\"n : ${numbers}\" th:text=\"${n}\"></span></p>", data);
+
+    assertEquals("<p><span>a</span><span>b</span><span>c</span>|<span>1</span><span>2</span><span>3</span></p>",
+        html);
+  }
+
+  @Test
+  void testResultSetRowSourceStreamsQueryIntoTemplate() throws Exception {
+    try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:rowsource")) {
+      try (Statement statement = connection.createStatement()) {
+        statement.execute("CREATE TABLE item (id VARCHAR(10), name VARCHAR(50), description VARCHAR(50),"
+            + " quantity INT, price DECIMAL(10, 2))");
+        statement.execute("INSERT INTO item SELECT X, 'Row ' || X, NULL, X, X * 1.5 FROM SYSTEM_RANGE(1, 5000)");
+      }
+
+      Map<String, Object> data = createSampleReportData();
+      StringWriter writer = new StringWriter();
+      try (ResultSetRowSource rows = ResultSetRowSource.query(connection,
+          "SELECT id, name, description, quantity, price FROM item WHERE quantity >= ? ORDER BY quantity", 100, 100)) {
+        assertArrayEquals(new String[]{"ID", "NAME", "DESCRIPTION", "QUANTITY", "PRICE"}, rows.getColumnLabels());
+        data.put("items", rows);
+        engine.generateHtml("sample-report.ftl", data, writer);
+      }
+
+      String html = writer.toString();
+      assertTrue(html.contains(">Row 100<"), "First row should survive the emptiness check");
+      assertFalse(html.contains(">Row 99<"));
+      assertTrue(html.contains("Row 5000"), "Last row should be rendered");
+      assertTrue(html.contains("$7500.00"), "Column values should be exposed case-insensitively");
+    }
+  }
+
+  @Test
+  void testResultSetRowSourceRowsAreMaps() throws Exception {
+    try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:rowview");
+         ResultSetRowSource rows = ResultSetRowSource.query(connection, "SELECT 1 AS a, 'x' AS b", 0)) {
+      Iterator<Map<String, Object>> it = rows.iterator();
+      Map<String, Object> row = it.next();
+
+      assertEquals(2, row.size());
+      assertEquals("x", row.get("b"));
+      assertTrue(row.containsKey("A"));
+      assertNull(row.get("missing"));
+      assertFalse(it.hasNext());
+      assertThrows(IllegalStateException.class, rows::iterator);
+    }
+  }
+
+  @Test
+  void testRowSourceIsSinglePass() {
+    RowSource<String> source = RowSource.of(Arrays.asList("a", "b").iterator());
+    Iterator<String> first = source.iterator();
+    first.next();
+
+    assertThrows(IllegalStateException.class, source::iterator);
+  }
+
+  @Test
+  void testRowSourceClosesStream() {
+    boolean[] closed = {false};
+    RowSource<Integer> source = RowSource.of(Stream.of(1, 2).onClose(() -> closed[0] = true));
+    source.close();
+
+    assertTrue(closed[0], "Closing the row source should close the stream");
+  }
+
+  // =========================================================================
+  // Streaming template output tests
+  // =========================================================================
+
+  @Test
+  void testFreemarkerProcessTemplateToWriter() throws ReportGenerationException {
+    Map<String, Object> data = createSampleReportData();
+    TemplateEngine templateEngine = engine.getTemplateEngine();
+
+    StringWriter writer = new StringWriter();
+    templateEngine.processTemplate("sample-report.ftl", data, writer);
+
+    assertEquals(templateEngine.processTemplate("sample-report.ftl", data), writer.toString(),
+        "Streamed output should match the String variant");
+  }
+
+  @Test
+  void testThymeleafProcessTemplateToWriter() throws ReportGenerationException {
+    Map<String, Object> data = createSampleReportData();
+    TemplateEngine templateEngine = thymeleafEngine.getTemplateEngine();
+
+    StringWriter writer = new StringWriter();
+    templateEngine.processTemplate("sample-report", data, writer);
+
+    assertEquals(templateEngine.processTemplate("sample-report", data), writer.toString(),
+        "Streamed output should match the String variant");
+  }
+
+  @Test
+  void testGenerateHtmlToWriter() throws ReportGenerationException {
+    StringWriter writer = new StringWriter();
+    engine.generateHtml("sample-report.ftl", createSampleReportData(), writer);
+
+    assertTrue(writer.toString().contains("Test Report"), "HTML should contain the report title");
+  }
+
+  @Test
+  void testHtmlBufferReadsBackAcrossChunks() throws IOException {
+    HtmlBuffer buffer = new HtmlBuffer();
+    StringBuilder expected = new StringBuilder();
+    for (int i = 0; i < 5000; i++) {
+      String row = "<tr><td>" + i + "</td><td>\u00e9l\u00e9ment</td></tr>";
+      buffer.write(row);
+      buffer.write(row.toCharArray(), 4, 4);
+      buffer.write('\n');
+      expected.append(row).append(row, 4, 8).append('\n');
+    }
+
+    assertEquals(expected.length(), buffer.length());
+    assertEquals(expected.charAt(20_000), buffer.charAt(20_000));
+    StringWriter read = new StringWriter();
+    Reader reader = HtmlBuffer.reader(buffer);
+    char[] chunk = new char[1000];
+    for (int n = reader.read(chunk); n > 0; n = reader.read(chunk)) {
+      read.write(chunk, 0, n);
+    }
+    assertEquals(expected.toString(), read.toString());
+    assertEquals(expected.toString(), buffer.toString());
+  }
+
+  @Test
+  void testEngineHandsTemplateOutputToRendererWithoutStringCopy() throws ReportGenerationException {
+    List<CharSequence> received = new ArrayList<>();
+    OutputRenderer renderer = new OutputRenderer() {
+      @Override
+      public byte[] render(String html) {
+        return html.getBytes();
+      }
+
+      @Override
+      public void render(CharSequence html, OutputStream out, RenderContext context) {
+        received.add(html);
+      }
+    };
+    ReportEngine bufferEngine = new ReportEngine(new FreemarkerTemplateEngine(), renderer);
+    bufferEngine.generateReportAsBytes("sample-report.ftl", createSampleReportData());
+    bufferEngine.setReportLimits(ReportLimits.UNLIMITED.withMaxHtmlChars(1_000_000));
+    bufferEngine.generateReportAsBytes("sample-report.ftl", createSampleReportData());
+
+    assertEquals(2, received.size());
+    for (CharSequence html : received) {
+      assertFalse(html instanceof String, "The template output should not be copied into a String");
+      assertTrue(html.toString().contains("Test Report"));
+    }
+  }
+
   // =========================================================================
   // DOCX output renderer tests
   // =========================================================================
@@ -359,6 +1797,107 @@ class ReportEngineTest {
     assertTrue(docxBytes.length > 0);
   }
 
+  @Test
+  void testRenderersWriteToOutputStream() throws ReportGenerationException {
+    String html = "<html><body><h1>Streamed</h1><p>Hello World</p></body></html>";
+
+    ByteArrayOutputStream pdfOut = new ByteArrayOutputStream();
+    new PdfOutputRenderer().render(html, pdfOut);
+    assertEquals("%PDF", new String(Arrays.copyOfRange(pdfOut.toByteArray(), 0, 4)), "Should be a valid PDF file");
+
+    ByteArrayOutputStream docxOut = new ByteArrayOutputStream();
+    new DocxOutputRenderer().render(html, docxOut);
+    assertEquals(0x50, docxOut.toByteArray()[0] & 0xFF, "Should be a valid DOCX (ZIP) file");
+  }
+
+  @Test
+  void testStreamingDocxRendererMatchesDocxContent() throws Exception {
+    String html = "<html><body><h1>Title</h1><p>Plain <b>bold</b> <i>italic</i><br/>next</p>"
+        + "<ul><li>One</li><li>Two</li></ul>"
+        + "<table><thead><tr><th>Name</th><th>Price</th></tr></thead>"
+        + "<tbody><tr><td>Widget &amp; Co</td><td>25.99</td></tr><tr><td>Short</td></tr></tbody></table>"
+        + "</body></html>";
+
+    byte[] docxBytes = new StreamingDocxOutputRenderer().render(html);
+
+    try (XWPFDocument document = new XWPFDocument(new ByteArrayInputStream(docxBytes))) {
+      List<String> paragraphs = new ArrayList<>();
+      for (XWPFParagraph paragraph : document.getParagraphs()) {
+        if (!paragraph.getText().isEmpty()) {
+          paragraphs.add(paragraph.getText());
+        }
+      }
+      assertEquals(Arrays.asList("Title", "Plain bold italic\nnext", "\u2022 One", "\u2022 Two"), paragraphs);
+      assertEquals("Heading1", document.getParagraphs().get(0).getStyle(), "Headings should use heading styles");
+
+      XWPFTable table = document.getTables().get(0);
+      assertEquals(3, table.getNumberOfRows());
+      assertEquals("Widget & Co", table.getRow(1).getCell(0).getText());
+      assertEquals(2, table.getRow(2).getTableCells().size(), "Short rows should be padded");
+    }
+  }
+
+  @Test
+  void testReportEngineWithStreamingDocxRenderer() throws ReportGenerationException {
+    ReportEngine docxEngine = new ReportEngine(new FreemarkerTemplateEngine(), new StreamingDocxOutputRenderer());
+    byte[] docxBytes = docxEngine.generateReportAsBytes("sample-report.ftl", createSampleReportData());
+
+    assertEquals(0x50, docxBytes[0] & 0xFF, "Should be a valid DOCX (ZIP) file");
+  }
+
+  @Test
+  void testDocxRenderersStreamLargeTablesInsideContainers() throws Exception {
+    StringBuilder html = new StringBuilder("<html><body><div class=\"content\"><h2>Ledger</h2>"
+        + "<table><thead><tr><th>#</th><th>Note</th></tr></thead><tbody>");
+    for (int i = 1; i <= 3000; i++) {
+      html.append("<tr><td>").append(i).append("</td><td><table><tr><td>nested ").append(i)
+          .append("</td></tr></table></td></tr>");
+    }
+    html.append("</tbody></table><ol><li>first</li><li>second</li></ol></div></body></html>");
+
+    for (OutputRenderer renderer : Arrays.asList(new DocxOutputRenderer(), new StreamingDocxOutputRenderer())) {
+      try (XWPFDocument document = new XWPFDocument(new ByteArrayInputStream(renderer.render(html.toString())))) {
+        String name = renderer.getClass().getSimpleName();
+        assertEquals(1, document.getTables().size(), name + ": nested tables should stay inside their cell");
+        XWPFTable table = document.getTables().get(0);
+        assertEquals(3001, table.getNumberOfRows(), name);
+        assertEquals("nested 3000", table.getRow(3000).getCell(1).getText(), name);
+
+        List<String> paragraphs = new ArrayList<>();
+        for (XWPFParagraph paragraph : document.getParagraphs()) {
+          if (!paragraph.getText().isEmpty()) {
+            paragraphs.add(paragraph.getText());
+          }
+        }
+        assertEquals(Arrays.asList("Ledger", "1. first", "2. second"), paragraphs, name);
+      }
+    }
+  }
+
+  @Test
+  void testDocxRenderersUseSharedStyles() throws Exception {
+    String html = "<html><body><h2>Heading</h2><p>Text <b>bold</b></p><ul><li>Item</li></ul>"
+        + "<table><tr><th>Header</th></tr><tr><td>Cell</td></tr></table></body></html>";
+
+    for (OutputRenderer renderer : Arrays.asList(new DocxOutputRenderer(), new StreamingDocxOutputRenderer())) {
+      try (XWPFDocument document = new XWPFDocument(new ByteArrayInputStream(renderer.render(html)))) {
+        String name = renderer.getClass().getSimpleName();
+        for (String styleId : Arrays.asList("Heading1", "Heading6", "BodyText", "ListItem", "TableHeader", "Strong")) {
+          assertTrue(document.getStyles().styleExist(styleId), name + ": missing style " + styleId);
+        }
+
+        List<XWPFParagraph> paragraphs = document.getParagraphs();
+        assertEquals("Heading2", paragraphs.get(0).getStyle(), name);
+        assertEquals("BodyText", paragraphs.get(1).getStyle(), name);
+        assertEquals("Strong", paragraphs.get(1).getRuns().get(1).getStyle(), name);
+        assertNull(paragraphs.get(1).getRuns().get(0).getFontSizeAsDouble(), name + ": runs should not set a size");
+        assertEquals("ListItem", paragraphs.get(2).getStyle(), name);
+        assertEquals("TableHeader",
+            document.getTables().get(0).getRow(0).getCell(0).getParagraphs().get(0).getStyle(), name);
+      }
+    }
+  }
+
   @Test
   void testReportEngineWithDocxRenderer() throws ReportGenerationException {
     ReportEngine docxEngine = new ReportEngine(new FreemarkerTemplateEngine(), new DocxOutputRenderer());